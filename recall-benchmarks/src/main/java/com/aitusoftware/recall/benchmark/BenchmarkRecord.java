@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+/**
+ * Mutable record used by benchmarks.
+ * <p>
+ * The encoded form consists of the id followed by <code>long</code> values filling the record length,
+ * so that the cost of encoding and decoding scales with the record length.
+ */
+final class BenchmarkRecord
+{
+    static final int VALUE_OFFSET = Long.BYTES;
+
+    long id;
+    long value;
+    long checksum;
+
+    long getId()
+    {
+        return id;
+    }
+}
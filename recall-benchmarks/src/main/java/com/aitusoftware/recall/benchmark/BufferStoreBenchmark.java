@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link com.aitusoftware.recall.store.BufferStore} hot paths.
+ * <p>
+ * Each operation targets an existing record, chosen from a pre-computed random sequence, so that the store
+ * size is constant throughout the benchmark. Record counts are chosen so that the store is resident in
+ * L1/L2 cache (<code>256</code>), in last-level cache (<code>16384</code>), or in main memory
+ * (<code>1048576</code>) for the default record lengths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class BufferStoreBenchmark
+{
+    private static final int ID_SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"BYTE_BUFFER", "UNSAFE_BUFFER"})
+    public BufferType bufferType;
+
+    @Param({"32", "128", "512"})
+    public int recordLength;
+
+    @Param({"256", "16384", "1048576"})
+    public int recordCount;
+
+    private final long[] ids = new long[ID_SEQUENCE_LENGTH];
+    private BufferStoreFixture<?> fixture;
+    private int idIndex;
+
+    /**
+     * Creates and populates the store.
+     */
+    @Setup
+    public void setUp()
+    {
+        fixture = BufferStoreFixture.create(bufferType, recordLength, recordCount).populate(recordCount);
+        final Random random = new Random(17L);
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = random.nextInt(recordCount);
+        }
+    }
+
+    /**
+     * Loads an existing record.
+     *
+     * @return checksum of the loaded record
+     */
+    @Benchmark
+    public long load()
+    {
+        return fixture.load(nextId());
+    }
+
+    /**
+     * Replaces an existing record.
+     */
+    @Benchmark
+    public void store()
+    {
+        fixture.store(nextId());
+    }
+
+    /**
+     * Removes an existing record, then stores it again so that the store size is unchanged.
+     *
+     * @return indicates whether the record was removed
+     */
+    @Benchmark
+    public boolean removeAndStore()
+    {
+        final long id = nextId();
+        final boolean removed = fixture.remove(id);
+        fixture.store(id);
+        return removed;
+    }
+
+    /**
+     * Modifies a field of an existing record in place.
+     *
+     * @return indicates whether the record was updated
+     */
+    @Benchmark
+    public boolean update()
+    {
+        return fixture.update(nextId());
+    }
+
+    private long nextId()
+    {
+        final long id = ids[idIndex];
+        idIndex = (idIndex + 1) & (ID_SEQUENCE_LENGTH - 1);
+        return id;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import com.aitusoftware.recall.store.BufferOps;
+import com.aitusoftware.recall.store.BufferStore;
+import com.aitusoftware.recall.store.ByteBufferOps;
+import com.aitusoftware.recall.store.UnsafeBufferOps;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link BufferStore} of {@link BenchmarkRecord}s, along with the codecs needed to access it.
+ * <p>
+ * The fixture is independent of the buffer type; the type-specific parts are the {@link BufferOps}, the buffer
+ * factory, and the accessors used by the codecs to read and write <code>long</code> values.
+ *
+ * @param <B> type of the underlying buffer
+ */
+final class BufferStoreFixture<B>
+{
+    final int recordLength;
+    final BenchmarkRecord record = new BenchmarkRecord();
+    private final BufferOps<B> bufferOps;
+    private final IntFunction<B> bufferFactory;
+    private final LongReader<B> longReader;
+    private final LongWriter<B> longWriter;
+    private final BufferStore<B> store;
+    private final Encoder<B, BenchmarkRecord> encoder = this::encode;
+    private final Decoder<B, BenchmarkRecord> decoder = this::decode;
+    private final RecordUpdater<B> updater = this::increment;
+
+    /**
+     * Reads a <code>long</code> from a buffer.
+     *
+     * @param <B> type of the buffer
+     */
+    @FunctionalInterface
+    interface LongReader<B>
+    {
+        long readLong(B buffer, int offset);
+    }
+
+    /**
+     * Writes a <code>long</code> to a buffer.
+     *
+     * @param <B> type of the buffer
+     */
+    @FunctionalInterface
+    interface LongWriter<B>
+    {
+        void writeLong(B buffer, int offset, long value);
+    }
+
+    BufferStoreFixture(
+        final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory,
+        final LongReader<B> longReader, final LongWriter<B> longWriter,
+        final int recordLength, final int initialSize)
+    {
+        if (recordLength < 2 * Long.BYTES || (recordLength & (Long.BYTES - 1)) != 0)
+        {
+            throw new IllegalArgumentException("Record length must be a multiple of 8, and at least 16");
+        }
+        this.bufferOps = bufferOps;
+        this.bufferFactory = bufferFactory;
+        this.longReader = longReader;
+        this.longWriter = longWriter;
+        this.recordLength = recordLength;
+        store = new BufferStore<>(recordLength, initialSize, bufferFactory, bufferOps);
+    }
+
+    static BufferStoreFixture<?> create(final BufferType bufferType, final int recordLength, final int initialSize)
+    {
+        return create(bufferType, recordLength, initialSize, Runnable::run, 1);
+    }
+
+    static BufferStoreFixture<?> create(
+        final BufferType bufferType, final int recordLength, final int initialSize,
+        final Executor snapshotExecutor, final int snapshotWriters)
+    {
+        switch (bufferType)
+        {
+            case BYTE_BUFFER:
+                return forByteBuffer(new ByteBufferOps(snapshotExecutor, snapshotWriters),
+                    ByteBuffer::allocateDirect, recordLength, initialSize);
+            case UNSAFE_BUFFER:
+                return new BufferStoreFixture<>(new UnsafeBufferOps(snapshotExecutor, snapshotWriters),
+                    length -> new UnsafeBuffer(ByteBuffer.allocateDirect(length)),
+                    UnsafeBuffer::getLong, UnsafeBuffer::putLong, recordLength, initialSize);
+            default:
+                throw new IllegalArgumentException("Unknown buffer type: " + bufferType);
+        }
+    }
+
+    static BufferStoreFixture<ByteBuffer> forByteBuffer(
+        final ByteBufferOps bufferOps, final IntFunction<ByteBuffer> bufferFactory,
+        final int recordLength, final int initialSize)
+    {
+        return new BufferStoreFixture<>(
+            bufferOps, bufferFactory, ByteBuffer::getLong, ByteBuffer::putLong, recordLength, initialSize);
+    }
+
+    /**
+     * Stores records with ids from zero to <code>recordCount - 1</code>.
+     *
+     * @param recordCount the number of records to store
+     * @return this fixture
+     */
+    BufferStoreFixture<B> populate(final int recordCount)
+    {
+        for (int i = 0; i < recordCount; i++)
+        {
+            store(i);
+        }
+        return this;
+    }
+
+    void store(final long id)
+    {
+        record.id = id;
+        record.value = id;
+        store.store(encoder, record, BenchmarkRecord::getId);
+    }
+
+    long load(final long id)
+    {
+        store.load(id, decoder, record);
+        return record.checksum;
+    }
+
+    boolean remove(final long id)
+    {
+        return store.remove(id);
+    }
+
+    boolean update(final long id)
+    {
+        return store.update(id, updater);
+    }
+
+    int size()
+    {
+        return store.size();
+    }
+
+    void writeTo(final FileChannel output)
+    {
+        store.writeTo(output);
+    }
+
+    /**
+     * Loads a copy of the store from a file, and reads a record from the copy.
+     *
+     * @param input   the file written by {@link #writeTo(FileChannel)}
+     * @param probeId id of the record to read once loaded
+     * @return checksum of the record read from the loaded store
+     */
+    long loadFrom(final FileChannel input, final long probeId)
+    {
+        final BufferStore<B> loaded = BufferStore.loadFrom(input, bufferOps, bufferFactory);
+        loaded.load(probeId, decoder, record);
+        return record.checksum;
+    }
+
+    private void encode(final B buffer, final int offset, final BenchmarkRecord value)
+    {
+        longWriter.writeLong(buffer, offset, value.id);
+        for (int i = BenchmarkRecord.VALUE_OFFSET; i < recordLength; i += Long.BYTES)
+        {
+            longWriter.writeLong(buffer, offset + i, value.value);
+        }
+    }
+
+    private void decode(final B buffer, final int offset, final BenchmarkRecord container)
+    {
+        container.id = longReader.readLong(buffer, offset);
+        long checksum = container.id;
+        for (int i = BenchmarkRecord.VALUE_OFFSET; i < recordLength; i += Long.BYTES)
+        {
+            checksum += longReader.readLong(buffer, offset + i);
+        }
+        container.value = longReader.readLong(buffer, offset + BenchmarkRecord.VALUE_OFFSET);
+        container.checksum = checksum;
+    }
+
+    private void increment(final B buffer, final int offset)
+    {
+        final int valueOffset = offset + BenchmarkRecord.VALUE_OFFSET;
+        longWriter.writeLong(buffer, valueOffset, longReader.readLong(buffer, valueOffset) + 1);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+/**
+ * Buffer implementations that can back a store under test.
+ */
+public enum BufferType
+{
+    /**
+     * Direct {@link java.nio.ByteBuffer} accessed via {@link com.aitusoftware.recall.store.ByteBufferOps}.
+     */
+    BYTE_BUFFER,
+    /**
+     * Agrona {@link org.agrona.concurrent.UnsafeBuffer} accessed via
+     * {@link com.aitusoftware.recall.store.UnsafeBufferOps}.
+     */
+    UNSAFE_BUFFER
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Minimal open-addressed map of a 64-bit key hash to a <code>long</code> value, stored in a direct
+ * {@link ByteBuffer}.
+ * <p>
+ * Keys are not stored, so hash collisions are not detected; this map exists only to measure the cost of
+ * probing an off-heap table, as a baseline for the maps in {@code com.aitusoftware.recall.map}.
+ */
+final class DirectBufferBaselineMap
+{
+    private static final int ENTRY_LENGTH = 2 * Long.BYTES;
+    private static final long EMPTY_KEY = 0L;
+    private static final long REMOVED_KEY = 1L;
+
+    private final long missingValue;
+    private ByteBuffer buffer;
+    private int mask;
+
+    DirectBufferBaselineMap(final int capacity, final long missingValue)
+    {
+        if (Integer.bitCount(capacity) != 1)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.missingValue = missingValue;
+        buffer = ByteBuffer.allocateDirect(capacity * ENTRY_LENGTH);
+        mask = capacity - 1;
+    }
+
+    void put(final long keyHash, final long value)
+    {
+        final long key = storedKey(keyHash);
+        int index = index(key);
+        int insertIndex = -1;
+        for (int i = 0; i <= mask; i++)
+        {
+            final long existingKey = buffer.getLong(index * ENTRY_LENGTH);
+            if (existingKey == key)
+            {
+                insertIndex = index;
+                break;
+            }
+            if (existingKey == EMPTY_KEY)
+            {
+                insertIndex = insertIndex < 0 ? index : insertIndex;
+                break;
+            }
+            if (existingKey == REMOVED_KEY && insertIndex < 0)
+            {
+                insertIndex = index;
+            }
+            index = (index + 1) & mask;
+        }
+        if (insertIndex < 0)
+        {
+            throw new IllegalStateException("Map is full");
+        }
+        buffer.putLong(insertIndex * ENTRY_LENGTH, key);
+        buffer.putLong(insertIndex * ENTRY_LENGTH + Long.BYTES, value);
+    }
+
+    long get(final long keyHash)
+    {
+        final int index = find(storedKey(keyHash));
+        return index < 0 ? missingValue : buffer.getLong(index * ENTRY_LENGTH + Long.BYTES);
+    }
+
+    long remove(final long keyHash)
+    {
+        final int index = find(storedKey(keyHash));
+        if (index < 0)
+        {
+            return missingValue;
+        }
+        buffer.putLong(index * ENTRY_LENGTH, REMOVED_KEY);
+        return buffer.getLong(index * ENTRY_LENGTH + Long.BYTES);
+    }
+
+    void rehash()
+    {
+        final ByteBuffer oldBuffer = buffer;
+        buffer = ByteBuffer.allocateDirect(oldBuffer.capacity());
+        for (int i = 0; i <= mask; i++)
+        {
+            final long key = oldBuffer.getLong(i * ENTRY_LENGTH);
+            if (key != EMPTY_KEY && key != REMOVED_KEY)
+            {
+                put(key, oldBuffer.getLong(i * ENTRY_LENGTH + Long.BYTES));
+            }
+        }
+    }
+
+    private int find(final long key)
+    {
+        int index = index(key);
+        for (int i = 0; i <= mask; i++)
+        {
+            final long existingKey = buffer.getLong(index * ENTRY_LENGTH);
+            if (existingKey == key)
+            {
+                return index;
+            }
+            if (existingKey == EMPTY_KEY)
+            {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int index(final long key)
+    {
+        return (int)((key ^ (key >>> 32)) * 0x9E3779B9L) & mask;
+    }
+
+    private static long storedKey(final long keyHash)
+    {
+        return keyHash == EMPTY_KEY || keyHash == REMOVED_KEY ? keyHash + 2 : keyHash;
+    }
+}
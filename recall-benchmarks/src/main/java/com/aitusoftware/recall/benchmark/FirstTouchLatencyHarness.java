@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import com.aitusoftware.recall.map.CharSequenceMap;
+import com.aitusoftware.recall.store.ByteBufferOps;
+import com.aitusoftware.recall.store.MappedBufferFactory;
+import com.aitusoftware.recall.store.PreTouchingBufferFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the latency of inserts into a {@link com.aitusoftware.recall.store.BufferStore} and a
+ * {@link CharSequenceMap}, starting from a small initial size, so that every growth step allocates fresh memory.
+ * <p>
+ * Usage: <code>FirstTouchLatencyHarness [recordCount] [hugetlbfsDirectory]</code>
+ */
+public final class FirstTouchLatencyHarness
+{
+    private static final int MAX_RECORD_LENGTH = 128;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int INITIAL_SIZE = 16;
+    private static final int ITERATIONS = 5;
+
+    public static void main(final String[] args)
+    {
+        final int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        final ByteBufferOps bufferOps = new ByteBufferOps();
+        final String[] keys = new String[recordCount];
+        for (int i = 0; i < recordCount; i++)
+        {
+            keys[i] = "SYM_" + i;
+        }
+
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            measure("default", ByteBuffer::allocateDirect, keys);
+            measure("pre-touch", new PreTouchingBufferFactory<>(ByteBuffer::allocateDirect, bufferOps), keys);
+            if (args.length > 1)
+            {
+                measure("hugetlbfs", new MappedBufferFactory(
+                    Paths.get(args[1]), MappedBufferFactory.DEFAULT_HUGE_PAGE_SIZE, true), keys);
+            }
+        }
+    }
+
+    private static void measure(final String label, final IntFunction<ByteBuffer> bufferFactory, final String[] keys)
+    {
+        final BufferStoreFixture<ByteBuffer> store =
+            BufferStoreFixture.forByteBuffer(new ByteBufferOps(), bufferFactory, MAX_RECORD_LENGTH, INITIAL_SIZE);
+        final CharSequenceMap map = new CharSequenceMap(MAX_KEY_LENGTH, INITIAL_SIZE, Long.MIN_VALUE, bufferFactory);
+        final long[] storeLatencies = new long[keys.length];
+        final long[] mapLatencies = new long[keys.length];
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            final long start = System.nanoTime();
+            store.store(i);
+            final long stored = System.nanoTime();
+            map.put(keys[i], i);
+            final long mapped = System.nanoTime();
+            storeLatencies[i] = stored - start;
+            mapLatencies[i] = mapped - stored;
+        }
+
+        report(label + " store", storeLatencies);
+        report(label + " map", mapLatencies);
+    }
+
+    private static void report(final String label, final long[] latencies)
+    {
+        Arrays.sort(latencies);
+        System.out.printf("%-20s p50: %7dns, p99: %7dns, p99.9: %7dns, p99.99: %9dns, max: %10dns%n",
+            label,
+            percentile(latencies, 0.5),
+            percentile(latencies, 0.99),
+            percentile(latencies, 0.999),
+            percentile(latencies, 0.9999),
+            latencies[latencies.length - 1]);
+    }
+
+    private static long percentile(final long[] sortedLatencies, final double percentile)
+    {
+        return sortedLatencies[(int)(percentile * (sortedLatencies.length - 1))];
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import com.aitusoftware.recall.store.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures insert latency while a {@link com.aitusoftware.recall.store.BufferStore} or a sequence map grows
+ * from a small initial size, so that each run crosses many growth and rehash boundaries.
+ * <p>
+ * Inserts are issued at a constant rate, and latency is measured from the time at which each insert was
+ * scheduled, rather than the time at which it started. This corrects for coordinated omission: when a resize
+ * stalls the caller, the inserts that should have been issued during the stall are charged with the time
+ * they spent waiting, as they would be in a system receiving requests at that rate. Uncorrected service times
+ * are reported alongside, together with the slowest inserts and the size of the store or map at the time.
+ * <p>
+ * Usage: <code>GrowthLatencyHarness [recordCount] [operationsPerSecond] [iterations]</code>
+ */
+public final class GrowthLatencyHarness
+{
+    private static final int INITIAL_SIZE = 16;
+    private static final int RECORD_LENGTH = 64;
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int SLOWEST_OPERATION_COUNT = 8;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 99.999, 100};
+    private static final MapType[] MAP_TYPES =
+        {MapType.CHAR_SEQUENCE_MAP, MapType.BYTE_SEQUENCE_MAP, MapType.OBJECT2LONG_HASH_MAP};
+
+    private final int recordCount;
+    private final long intervalNanos;
+    private final String[] keys;
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    private final LatencyHistogram uncorrected = new LatencyHistogram();
+    private final long[] slowestServiceTimes = new long[SLOWEST_OPERATION_COUNT];
+    private final int[] slowestOperations = new int[SLOWEST_OPERATION_COUNT];
+
+    GrowthLatencyHarness(final int recordCount, final long operationsPerSecond)
+    {
+        if (recordCount <= 0 || operationsPerSecond <= 0 || operationsPerSecond > 1_000_000_000L)
+        {
+            throw new IllegalArgumentException("Record count and rate must be positive, with a rate of at most 1e9/s");
+        }
+        this.recordCount = recordCount;
+        this.intervalNanos = 1_000_000_000L / operationsPerSecond;
+        keys = new String[recordCount];
+        for (int i = 0; i < recordCount; i++)
+        {
+            keys[i] = "key-" + i;
+        }
+    }
+
+    public static void main(final String[] args)
+    {
+        final int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        final long operationsPerSecond = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000L;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final GrowthLatencyHarness harness = new GrowthLatencyHarness(recordCount, operationsPerSecond);
+
+        System.out.printf("%d inserts per run from an initial size of %d, at %d/s%n",
+            recordCount, INITIAL_SIZE, operationsPerSecond);
+        for (int i = 0; i < iterations; i++)
+        {
+            System.out.printf("%n--- iteration %d ---%n", i);
+            for (final BufferType bufferType : BufferType.values())
+            {
+                final BufferStoreFixture<?> fixture =
+                    BufferStoreFixture.create(bufferType, RECORD_LENGTH, INITIAL_SIZE);
+                harness.run(fixture::store);
+                harness.report("store " + bufferType);
+            }
+            for (final MapType mapType : MAP_TYPES)
+            {
+                final MapFixture fixture = MapFixture.create(mapType, harness.keys, MAX_KEY_LENGTH, INITIAL_SIZE);
+                harness.run(keyIndex -> fixture.put(keyIndex, keyIndex));
+                harness.report("put " + mapType);
+            }
+        }
+    }
+
+    void run(final IntConsumer insert)
+    {
+        corrected.reset();
+        uncorrected.reset();
+        Arrays.fill(slowestServiceTimes, -1L);
+        Arrays.fill(slowestOperations, -1);
+
+        final long runStartNanos = System.nanoTime();
+        for (int i = 0; i < recordCount; i++)
+        {
+            final long scheduledNanos = runStartNanos + i * intervalNanos;
+            long startNanos = System.nanoTime();
+            while (startNanos < scheduledNanos)
+            {
+                startNanos = System.nanoTime();
+            }
+
+            insert.accept(i);
+
+            final long endNanos = System.nanoTime();
+            corrected.record(endNanos - scheduledNanos);
+            uncorrected.record(endNanos - startNanos);
+            recordServiceTime(i, endNanos - startNanos);
+        }
+    }
+
+    private void recordServiceTime(final int operation, final long serviceTime)
+    {
+        int fastestIndex = 0;
+        for (int i = 1; i < SLOWEST_OPERATION_COUNT; i++)
+        {
+            if (slowestServiceTimes[i] < slowestServiceTimes[fastestIndex])
+            {
+                fastestIndex = i;
+            }
+        }
+        if (serviceTime > slowestServiceTimes[fastestIndex])
+        {
+            slowestServiceTimes[fastestIndex] = serviceTime;
+            slowestOperations[fastestIndex] = operation;
+        }
+    }
+
+    private void report(final String label)
+    {
+        System.out.printf("%n%s (mean: %.0fns corrected, %.0fns uncorrected)%n",
+            label, corrected.mean(), uncorrected.mean());
+        System.out.printf("%12s %16s %16s%n", "percentile", "corrected(ns)", "uncorrected(ns)");
+        for (final double percentile : PERCENTILES)
+        {
+            System.out.printf("%12.3f %16d %16d%n",
+                percentile, corrected.valueAtPercentile(percentile), uncorrected.valueAtPercentile(percentile));
+        }
+
+        System.out.print("slowest inserts (size before insert: service time):");
+        int previousOperation = -1;
+        for (int i = 0; i < SLOWEST_OPERATION_COUNT; i++)
+        {
+            int nextIndex = -1;
+            for (int j = 0; j < SLOWEST_OPERATION_COUNT; j++)
+            {
+                if (slowestOperations[j] > previousOperation &&
+                    (nextIndex == -1 || slowestOperations[j] < slowestOperations[nextIndex]))
+                {
+                    nextIndex = j;
+                }
+            }
+            if (nextIndex == -1)
+            {
+                break;
+            }
+            previousOperation = slowestOperations[nextIndex];
+            System.out.printf(" %d: %dns", previousOperation, slowestServiceTimes[nextIndex]);
+        }
+        System.out.println();
+    }
+}
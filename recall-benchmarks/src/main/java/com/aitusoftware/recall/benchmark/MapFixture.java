@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import com.aitusoftware.recall.map.ByteSequenceMap;
+import com.aitusoftware.recall.map.CharSequenceMap;
+import org.agrona.collections.Object2LongHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Common interface to the map implementations compared by {@link SequenceMapBenchmark}.
+ * <p>
+ * Each implementation is given the same keys, as a {@code String} for heap maps, and in the encoding
+ * natural to each off-heap map.
+ */
+abstract class MapFixture
+{
+    static final long MISSING_VALUE = Long.MIN_VALUE;
+    static final float LOAD_FACTOR = 0.7f;
+
+    final String[] keys;
+
+    MapFixture(final String[] keys)
+    {
+        this.keys = keys;
+    }
+
+    static MapFixture create(final MapType mapType, final String[] keys, final int keyLength, final int capacity)
+    {
+        switch (mapType)
+        {
+            case CHAR_SEQUENCE_MAP:
+                return new CharSequenceMapFixture(keys, new CharSequenceMap(
+                    keyLength, capacity, MISSING_VALUE, ByteBuffer::allocateDirect));
+            case CHAR_SEQUENCE_MAP_HEAP:
+                return new CharSequenceMapFixture(keys, new CharSequenceMap(
+                    keyLength, capacity, MISSING_VALUE, ByteBuffer::allocate));
+            case BYTE_SEQUENCE_MAP:
+                return new ByteSequenceMapFixture(keys, new ByteSequenceMap(keyLength, capacity, MISSING_VALUE));
+            case HASH_MAP:
+                return new HashMapFixture(keys, new HashMap<>(capacity, LOAD_FACTOR));
+            case OBJECT2LONG_HASH_MAP:
+                return new Object2LongHashMapFixture(
+                    keys, new Object2LongHashMap<>(capacity, LOAD_FACTOR, MISSING_VALUE));
+            case DIRECT_BUFFER_BASELINE:
+                return new DirectBufferBaselineFixture(keys, new DirectBufferBaselineMap(capacity, MISSING_VALUE));
+            default:
+                throw new IllegalArgumentException("Unknown map type: " + mapType);
+        }
+    }
+
+    abstract void put(int keyIndex, long value);
+
+    abstract long get(int keyIndex);
+
+    abstract long remove(int keyIndex);
+
+    abstract void rehash();
+
+    private static final class CharSequenceMapFixture extends MapFixture
+    {
+        private final CharSequenceMap map;
+
+        CharSequenceMapFixture(final String[] keys, final CharSequenceMap map)
+        {
+            super(keys);
+            this.map = map;
+        }
+
+        @Override
+        void put(final int keyIndex, final long value)
+        {
+            map.put(keys[keyIndex], value);
+        }
+
+        @Override
+        long get(final int keyIndex)
+        {
+            return map.get(keys[keyIndex]);
+        }
+
+        @Override
+        long remove(final int keyIndex)
+        {
+            return map.remove(keys[keyIndex]);
+        }
+
+        @Override
+        void rehash()
+        {
+            map.rehash();
+        }
+    }
+
+    private static final class ByteSequenceMapFixture extends MapFixture
+    {
+        private final ByteSequenceMap map;
+        private final ByteBuffer[] keyBuffers;
+
+        ByteSequenceMapFixture(final String[] keys, final ByteSequenceMap map)
+        {
+            super(keys);
+            this.map = map;
+            keyBuffers = new ByteBuffer[keys.length];
+            for (int i = 0; i < keys.length; i++)
+            {
+                keyBuffers[i] = ByteBuffer.allocateDirect(keys[i].length());
+                for (int j = 0; j < keys[i].length(); j++)
+                {
+                    keyBuffers[i].put(j, (byte)keys[i].charAt(j));
+                }
+            }
+        }
+
+        @Override
+        void put(final int keyIndex, final long value)
+        {
+            map.put(keyBuffers[keyIndex], value);
+        }
+
+        @Override
+        long get(final int keyIndex)
+        {
+            return map.get(keyBuffers[keyIndex]);
+        }
+
+        @Override
+        long remove(final int keyIndex)
+        {
+            return map.remove(keyBuffers[keyIndex]);
+        }
+
+        @Override
+        void rehash()
+        {
+            map.rehash();
+        }
+    }
+
+    private static final class HashMapFixture extends MapFixture
+    {
+        private HashMap<String, Long> map;
+
+        HashMapFixture(final String[] keys, final HashMap<String, Long> map)
+        {
+            super(keys);
+            this.map = map;
+        }
+
+        @Override
+        void put(final int keyIndex, final long value)
+        {
+            map.put(keys[keyIndex], value);
+        }
+
+        @Override
+        long get(final int keyIndex)
+        {
+            final Long value = map.get(keys[keyIndex]);
+            return value == null ? MISSING_VALUE : value;
+        }
+
+        @Override
+        long remove(final int keyIndex)
+        {
+            final Long value = map.remove(keys[keyIndex]);
+            return value == null ? MISSING_VALUE : value;
+        }
+
+        @Override
+        void rehash()
+        {
+            final HashMap<String, Long> rehashed = new HashMap<>(map.size() * 2, LOAD_FACTOR);
+            for (final Map.Entry<String, Long> entry : map.entrySet())
+            {
+                rehashed.put(entry.getKey(), entry.getValue());
+            }
+            map = rehashed;
+        }
+    }
+
+    private static final class Object2LongHashMapFixture extends MapFixture
+    {
+        private final Object2LongHashMap<String> map;
+
+        Object2LongHashMapFixture(final String[] keys, final Object2LongHashMap<String> map)
+        {
+            super(keys);
+            this.map = map;
+        }
+
+        @Override
+        void put(final int keyIndex, final long value)
+        {
+            map.put(keys[keyIndex], value);
+        }
+
+        @Override
+        long get(final int keyIndex)
+        {
+            return map.getValue(keys[keyIndex]);
+        }
+
+        @Override
+        long remove(final int keyIndex)
+        {
+            return map.removeKey(keys[keyIndex]);
+        }
+
+        @Override
+        void rehash()
+        {
+            map.compact();
+        }
+    }
+
+    private static final class DirectBufferBaselineFixture extends MapFixture
+    {
+        private final DirectBufferBaselineMap map;
+
+        DirectBufferBaselineFixture(final String[] keys, final DirectBufferBaselineMap map)
+        {
+            super(keys);
+            this.map = map;
+        }
+
+        @Override
+        void put(final int keyIndex, final long value)
+        {
+            map.put(hash(keys[keyIndex]), value);
+        }
+
+        @Override
+        long get(final int keyIndex)
+        {
+            return map.get(hash(keys[keyIndex]));
+        }
+
+        @Override
+        long remove(final int keyIndex)
+        {
+            return map.remove(hash(keys[keyIndex]));
+        }
+
+        @Override
+        void rehash()
+        {
+            map.rehash();
+        }
+
+        private static long hash(final CharSequence key)
+        {
+            long hash = 0;
+            for (int i = 0; i < key.length(); i++)
+            {
+                hash = (hash * 0x100000001B3L) ^ key.charAt(i);
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+/**
+ * Map implementations compared by {@link SequenceMapBenchmark}.
+ */
+public enum MapType
+{
+    /**
+     * {@link com.aitusoftware.recall.map.CharSequenceMap} backed by a direct {@link java.nio.ByteBuffer}.
+     */
+    CHAR_SEQUENCE_MAP,
+    /**
+     * {@link com.aitusoftware.recall.map.CharSequenceMap} backed by a heap {@link java.nio.ByteBuffer}.
+     */
+    CHAR_SEQUENCE_MAP_HEAP,
+    /**
+     * {@link com.aitusoftware.recall.map.ByteSequenceMap} backed by a direct {@link java.nio.ByteBuffer}.
+     */
+    BYTE_SEQUENCE_MAP,
+    /**
+     * {@link java.util.HashMap} of {@code String} to {@code Long}.
+     */
+    HASH_MAP,
+    /**
+     * Agrona {@link org.agrona.collections.Object2LongHashMap} of {@code String} to <code>long</code>.
+     */
+    OBJECT2LONG_HASH_MAP,
+    /**
+     * Open-addressed table of 64-bit key hash to <code>long</code> in a direct {@link java.nio.ByteBuffer},
+     * without key storage or comparison; a lower bound for the cost of an off-heap lookup.
+     */
+    DIRECT_BUFFER_BASELINE
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link com.aitusoftware.recall.store.BufferStore#writeTo(FileChannel)} and
+ * {@link com.aitusoftware.recall.store.BufferStore#loadFrom(FileChannel,
+ * com.aitusoftware.recall.store.BufferOps, java.util.function.IntFunction)}.
+ * <p>
+ * The primary score is the number of stores written or loaded per second, the reciprocal of which is the
+ * time taken to persist a store, or the time from opening a file to serving the first read. The secondary
+ * <code>bytes</code> score is the transfer rate in bytes per second.
+ * <p>
+ * Files are created in the directory named by the <code>recall.benchmark.dir</code> system property, defaulting
+ * to <code>java.io.tmpdir</code>, which should be on a local disk. Loads are measured with a warm page cache, and
+ * with the page cache dropped before each load; dropping the page cache writes to
+ * <code>/proc/sys/vm/drop_caches</code>, so requires Linux and root privileges.
+ * <p>
+ * Store sizes are limited to less than 2GB, since records are addressed using <code>int</code> offsets.
+ * <p>
+ * <code>snapshotWriters</code> sets the number of threads used to write large snapshots; it has no effect
+ * on loads, so can be restricted to a single value (e.g. <code>-p snapshotWriters=1</code>) when only
+ * measuring load times.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:MaxDirectMemorySize=6g"})
+@State(Scope.Thread)
+public class PersistenceBenchmark
+{
+    private static final int RECORD_LENGTH = 1024 - Long.BYTES;
+    private static final int BYTES_PER_MEGABYTE = 1 << 20;
+    private static final Path DROP_CACHES = Paths.get("/proc/sys/vm/drop_caches");
+
+    @Param({"BYTE_BUFFER", "UNSAFE_BUFFER"})
+    public BufferType bufferType;
+
+    @Param({"100", "1000"})
+    public int storeSizeMegabytes;
+
+    @Param({"1", "4"})
+    public int snapshotWriters;
+
+    private ExecutorService snapshotExecutor;
+    private BufferStoreFixture<?> fixture;
+    private Path file;
+    private FileChannel channel;
+    private long fileLength;
+    private long probeId;
+
+    /**
+     * Page cache state prior to loading a store.
+     */
+    public enum PageCache
+    {
+        /**
+         * File contents are cached from the previous load.
+         */
+        WARM,
+        /**
+         * Page cache is dropped before each load.
+         */
+        DROPPED
+    }
+
+    /**
+     * Page cache state for load benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class LoadState
+    {
+        @Param({"WARM", "DROPPED"})
+        public PageCache pageCache;
+
+        /**
+         * Drops the page cache, if required, before each load.
+         */
+        @Setup(Level.Invocation)
+        public void prepare()
+        {
+            if (pageCache == PageCache.DROPPED)
+            {
+                dropPageCache();
+            }
+        }
+
+        /**
+         * Releases memory allocated by the previous load, outside of the measured operation.
+         */
+        @TearDown(Level.Invocation)
+        public void releaseLoadedStore()
+        {
+            System.gc();
+        }
+    }
+
+    /**
+     * Bytes transferred, reported as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfer
+    {
+        public long bytes;
+
+        /**
+         * Resets the count at the start of each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Creates and populates the store, and writes it to a file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException
+    {
+        final int recordCount = (int)((long)storeSizeMegabytes * BYTES_PER_MEGABYTE / (RECORD_LENGTH + Long.BYTES));
+        snapshotExecutor = Executors.newFixedThreadPool(snapshotWriters);
+        fixture = BufferStoreFixture.create(bufferType, RECORD_LENGTH, recordCount, snapshotExecutor, snapshotWriters)
+            .populate(recordCount);
+        probeId = recordCount - 1;
+
+        final Path directory =
+            Paths.get(System.getProperty("recall.benchmark.dir", System.getProperty("java.io.tmpdir")));
+        file = Files.createTempFile(directory, "recall-persistence", ".dat");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fixture.writeTo(channel);
+        channel.force(true);
+        fileLength = channel.size();
+    }
+
+    /**
+     * Closes and deletes the file, and stops the snapshot writer threads.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        snapshotExecutor.shutdown();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Rewinds the file before each operation.
+     *
+     * @throws IOException if the file cannot be repositioned
+     */
+    @Setup(Level.Invocation)
+    public void rewind() throws IOException
+    {
+        channel.position(0);
+    }
+
+    /**
+     * Writes the store to the file, without forcing it to storage.
+     *
+     * @param transfer bytes transferred
+     */
+    @Benchmark
+    public void writeTo(final Transfer transfer)
+    {
+        fixture.writeTo(channel);
+        transfer.bytes += fileLength;
+    }
+
+    /**
+     * Writes the store to the file, and forces the content to storage.
+     *
+     * @param transfer bytes transferred
+     * @throws IOException if the file cannot be forced
+     */
+    @Benchmark
+    public void writeToAndForce(final Transfer transfer) throws IOException
+    {
+        fixture.writeTo(channel);
+        channel.force(false);
+        transfer.bytes += fileLength;
+    }
+
+    /**
+     * Loads a copy of the store from the file, and reads a record from it.
+     *
+     * @param loadState page cache state, prepared before each load
+     * @param transfer  bytes transferred
+     * @return checksum of the record read
+     */
+    @Benchmark
+    public long loadFrom(final LoadState loadState, final Transfer transfer)
+    {
+        final long checksum = fixture.loadFrom(channel, probeId);
+        transfer.bytes += fileLength;
+        return checksum;
+    }
+
+    private static void dropPageCache()
+    {
+        try
+        {
+            Files.write(DROP_CACHES, "1".getBytes(StandardCharsets.US_ASCII));
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException("Dropping the page cache requires Linux and root privileges", e);
+        }
+    }
+}
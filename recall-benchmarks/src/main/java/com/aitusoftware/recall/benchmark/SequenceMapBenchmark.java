@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link com.aitusoftware.recall.map.CharSequenceMap} and
+ * {@link com.aitusoftware.recall.map.ByteSequenceMap} with heap maps and an off-heap baseline
+ * (see {@link MapType}).
+ * <p>
+ * Each map has a capacity of {@value #CAPACITY} entries, and is populated to the specified fill ratio, so
+ * that no resize occurs during the benchmark. A proportion of the entries (the delete ratio) is then removed,
+ * since removal changes the probing behaviour of some maps. Operations on present keys select from the
+ * remaining entries, while lookups of absent keys ({@code getMissing}) select from keys that were never inserted.
+ * <p>
+ * Heap maps are given pre-built {@code String} keys, with cached hash codes; this is their best case.
+ * Run with {@code -prof gc} to report allocation rates alongside latency:
+ * <pre>
+ * ./gradlew :recall-benchmarks:jmh -Pjmh.includes=SequenceMapBenchmark -Pjmh.args="-prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class SequenceMapBenchmark
+{
+    private static final int CAPACITY = 1 << 16;
+    private static final int KEY_SEQUENCE_LENGTH = 1 << 16;
+    private static final int MISSING_KEY_COUNT = 1024;
+    private static final char[] KEY_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    @Param({"CHAR_SEQUENCE_MAP", "CHAR_SEQUENCE_MAP_HEAP", "BYTE_SEQUENCE_MAP",
+        "HASH_MAP", "OBJECT2LONG_HASH_MAP", "DIRECT_BUFFER_BASELINE"})
+    public MapType mapType;
+
+    @Param({"0.25", "0.5", "0.65"})
+    public double fillRatio;
+
+    @Param({"8", "32"})
+    public int keyLength;
+
+    @Param({"0.0", "0.1"})
+    public double deleteRatio;
+
+    private final int[] presentKeys = new int[KEY_SEQUENCE_LENGTH];
+    private final int[] missingKeys = new int[KEY_SEQUENCE_LENGTH];
+    private MapFixture fixture;
+    private int keyIndex;
+
+    /**
+     * Creates and populates the map.
+     */
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(17L);
+        final int entryCount = (int)(CAPACITY * fillRatio);
+        final int deletedCount = (int)(entryCount * deleteRatio);
+        final String[] keys = new String[entryCount + MISSING_KEY_COUNT];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = randomKey(random, i);
+        }
+
+        fixture = MapFixture.create(mapType, keys, keyLength, CAPACITY);
+        for (int i = 0; i < entryCount; i++)
+        {
+            fixture.put(i, i);
+        }
+        for (int i = 0; i < deletedCount; i++)
+        {
+            fixture.remove(i);
+        }
+
+        for (int i = 0; i < KEY_SEQUENCE_LENGTH; i++)
+        {
+            presentKeys[i] = deletedCount + random.nextInt(entryCount - deletedCount);
+            missingKeys[i] = entryCount + random.nextInt(MISSING_KEY_COUNT);
+        }
+    }
+
+    /**
+     * Looks up a present key.
+     *
+     * @return the value associated with the key
+     */
+    @Benchmark
+    public long get()
+    {
+        return fixture.get(presentKeys[nextKeyIndex()]);
+    }
+
+    /**
+     * Looks up an absent key.
+     *
+     * @return the missing value
+     */
+    @Benchmark
+    public long getMissing()
+    {
+        return fixture.get(missingKeys[nextKeyIndex()]);
+    }
+
+    /**
+     * Replaces the value associated with a present key.
+     */
+    @Benchmark
+    public void put()
+    {
+        final int key = presentKeys[nextKeyIndex()];
+        fixture.put(key, key);
+    }
+
+    /**
+     * Removes a present key, then inserts it again so that the map size is unchanged.
+     *
+     * @return the removed value
+     */
+    @Benchmark
+    public long removeAndPut()
+    {
+        final int key = presentKeys[nextKeyIndex()];
+        final long value = fixture.remove(key);
+        fixture.put(key, key);
+        return value;
+    }
+
+    /**
+     * Copies all entries of the map to a new table.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void rehash()
+    {
+        fixture.rehash();
+    }
+
+    private int nextKeyIndex()
+    {
+        final int index = keyIndex;
+        keyIndex = (keyIndex + 1) & (KEY_SEQUENCE_LENGTH - 1);
+        return index;
+    }
+
+    private String randomKey(final Random random, final int index)
+    {
+        final char[] key = new char[keyLength];
+        int uniqueSuffix = index;
+        for (int i = keyLength - 1; i >= 0; i--)
+        {
+            if (uniqueSuffix != 0 || i >= keyLength - 4)
+            {
+                key[i] = KEY_CHARACTERS[uniqueSuffix % KEY_CHARACTERS.length];
+                uniqueSuffix /= KEY_CHARACTERS.length;
+            }
+            else
+            {
+                key[i] = KEY_CHARACTERS[random.nextInt(KEY_CHARACTERS.length)];
+            }
+        }
+        return new String(key);
+    }
+}
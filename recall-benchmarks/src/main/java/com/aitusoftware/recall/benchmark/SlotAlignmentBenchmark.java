@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.store.AlignedBufferFactory;
+import com.aitusoftware.recall.store.BufferStore;
+import com.aitusoftware.recall.store.SlotMode;
+import com.aitusoftware.recall.store.UnsafeBufferOps;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of random loads from a {@link BufferStore} for common record sizes, with slots aligned
+ * to a <code>long</code> (<code>8</code>) or to a cache line (<code>64</code>).
+ * <p>
+ * Both configurations use an {@link AlignedBufferFactory}, so that the first slot starts on a cache line and
+ * only the slot alignment differs. Record lengths that are not a multiple of the slot alignment leave some
+ * records spanning an extra cache line when slots are aligned to a <code>long</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class SlotAlignmentBenchmark
+{
+    private static final int CACHE_LINE_LENGTH = 64;
+    private static final int ID_SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"24", "40", "56", "100", "120", "248"})
+    public int recordLength;
+
+    @Param({"8", "64"})
+    public int slotAlignment;
+
+    @Param({"16384", "1048576"})
+    public int recordCount;
+
+    private final long[] ids = new long[ID_SEQUENCE_LENGTH];
+    private final long[] container = new long[1];
+    private BufferStore<UnsafeBuffer> store;
+    private Decoder<UnsafeBuffer, long[]> decoder;
+    private int idIndex;
+
+    /**
+     * Creates and populates the store.
+     */
+    @Setup
+    public void setUp()
+    {
+        final int longsPerRecord = recordLength / Long.BYTES;
+        final AlignedBufferFactory bufferFactory = new AlignedBufferFactory(CACHE_LINE_LENGTH);
+        store = new BufferStore<>(recordLength, recordCount, length -> new UnsafeBuffer(bufferFactory.apply(length)),
+            new UnsafeBufferOps(), SlotMode.COMPACT, slotAlignment);
+        final Encoder<UnsafeBuffer, long[]> encoder = (buffer, offset, value) ->
+        {
+            for (int i = 0; i < longsPerRecord; i++)
+            {
+                buffer.putLong(offset + (i * Long.BYTES), value[0] + i);
+            }
+        };
+        decoder = (buffer, offset, value) ->
+        {
+            long sum = 0;
+            for (int i = 0; i < longsPerRecord; i++)
+            {
+                sum += buffer.getLong(offset + (i * Long.BYTES));
+            }
+            value[0] = sum;
+        };
+
+        final long[] value = new long[1];
+        for (int i = 0; i < recordCount; i++)
+        {
+            value[0] = i;
+            store.store(encoder, value, v -> v[0]);
+        }
+        final Random random = new Random(17L);
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = random.nextInt(recordCount);
+        }
+    }
+
+    /**
+     * Loads an existing record.
+     *
+     * @return sum of the fields of the loaded record
+     */
+    @Benchmark
+    public long load()
+    {
+        store.load(nextId(), decoder, container);
+        return container[0];
+    }
+
+    private long nextId()
+    {
+        final long id = ids[idIndex];
+        idIndex = (idIndex + 1) & (ID_SEQUENCE_LENGTH - 1);
+        return id;
+    }
+}
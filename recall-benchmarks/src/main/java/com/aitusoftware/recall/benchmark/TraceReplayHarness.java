@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.benchmark;
+
+import com.aitusoftware.recall.store.LatencyHistogram;
+import com.aitusoftware.recall.trace.TraceOperation;
+import com.aitusoftware.recall.trace.TraceReader;
+import org.agrona.collections.Long2LongHashMap;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a trace recorded by a {@link com.aitusoftware.recall.trace.RecordingStore} and/or a
+ * {@link com.aitusoftware.recall.trace.RecordingSequenceMap} against a store and map configuration,
+ * reporting throughput and the latency distribution of each operation type.
+ * <p>
+ * Store operations are replayed using the recorded ids. Map keys are recorded as hashes, so each distinct hash is
+ * replaced with a distinct synthetic key of the recorded length (or longer, if there are more distinct keys than
+ * can be represented in that length). Field updates ({@code update}, {@code getAndAddLong} and
+ * {@code compareAndSetLong}) are replayed as in-place updates.
+ * <p>
+ * With a speed of zero, operations are replayed as fast as possible. Otherwise operations are issued at the
+ * recorded rate multiplied by the speed, and latency is measured from the time at which each operation was
+ * scheduled, so that stalls are not hidden by coordinated omission.
+ * <p>
+ * Usage: <code>TraceReplayHarness traceFile [bufferType] [mapType] [recordLength] [initialSize] [speed]
+ * [iterations]</code>
+ */
+public final class TraceReplayHarness
+{
+    private static final char[] KEY_CHARACTERS =
+        "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+
+    private final TraceOperation[] operations;
+    private final long[] keys;
+    private final long[] timestamps;
+    private final String[] mapKeys;
+    private final int maxKeyLength;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[TraceOperation.values().length];
+
+    TraceReplayHarness(final TraceReader reader)
+    {
+        final int recordCount = reader.recordCount();
+        operations = new TraceOperation[recordCount];
+        keys = new long[recordCount];
+        timestamps = new long[recordCount];
+        final Long2LongHashMap keyIndexByHash = new Long2LongHashMap(-1L);
+        final List<String> distinctKeys = new ArrayList<>();
+        final int[] longestKey = new int[1];
+        final int[] index = new int[1];
+
+        reader.forEach((operation, key, keyLength, timestampNanos) ->
+        {
+            final int i = index[0]++;
+            operations[i] = operation;
+            timestamps[i] = timestampNanos;
+            if (operation.isMapOperation())
+            {
+                long keyIndex = keyIndexByHash.get(key);
+                if (keyIndex == -1L)
+                {
+                    keyIndex = distinctKeys.size();
+                    keyIndexByHash.put(key, keyIndex);
+                    final String syntheticKey = syntheticKey((int)keyIndex, keyLength);
+                    distinctKeys.add(syntheticKey);
+                    longestKey[0] = Math.max(longestKey[0], syntheticKey.length());
+                }
+                keys[i] = keyIndex;
+            }
+            else
+            {
+                keys[i] = key;
+            }
+        }, recordCount);
+        mapKeys = distinctKeys.toArray(new String[0]);
+        maxKeyLength = Math.max(1, longestKey[0]);
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public static void main(final String[] args)
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: TraceReplayHarness traceFile [bufferType] [mapType] [recordLength] " +
+                "[initialSize] [speed] [iterations]");
+            System.exit(1);
+        }
+        final BufferType bufferType = args.length > 1 ? BufferType.valueOf(args[1]) : BufferType.UNSAFE_BUFFER;
+        final MapType mapType = args.length > 2 ? MapType.valueOf(args[2]) : MapType.CHAR_SEQUENCE_MAP;
+        final int recordLength = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        final int initialSize = args.length > 4 ? Integer.parseInt(args[4]) : 1024;
+        final double speed = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+        final int iterations = args.length > 6 ? Integer.parseInt(args[6]) : 5;
+
+        final TraceReplayHarness harness;
+        try (TraceReader reader = TraceReader.open(Paths.get(args[0])))
+        {
+            harness = new TraceReplayHarness(reader);
+        }
+        System.out.printf("%d operations, %d distinct map keys, replaying against %s/%s, " +
+            "record length %d, initial size %d, speed %s%n",
+            harness.operations.length, harness.mapKeys.length, bufferType, mapType, recordLength, initialSize,
+            speed == 0 ? "unpaced" : speed + "x");
+
+        for (int i = 0; i < iterations; i++)
+        {
+            final BufferStoreFixture<?> store = BufferStoreFixture.create(bufferType, recordLength, initialSize);
+            final MapFixture map = MapFixture.create(mapType, harness.mapKeys, harness.maxKeyLength, initialSize);
+            final long elapsedNanos = harness.replay(store, map, speed);
+            harness.report(i, elapsedNanos);
+        }
+    }
+
+    long replay(final BufferStoreFixture<?> store, final MapFixture map, final double speed)
+    {
+        for (final LatencyHistogram histogram : histograms)
+        {
+            histogram.reset();
+        }
+        final boolean paced = speed > 0 && operations.length != 0;
+        final long firstTimestamp = paced ? timestamps[0] : 0;
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < operations.length; i++)
+        {
+            long nowNanos = System.nanoTime();
+            final long scheduledNanos = paced ?
+                startNanos + (long)((timestamps[i] - firstTimestamp) / speed) : nowNanos;
+            while (nowNanos < scheduledNanos)
+            {
+                nowNanos = System.nanoTime();
+            }
+
+            final TraceOperation operation = operations[i];
+            execute(operation, keys[i], store, map);
+            histograms[operation.ordinal()].record(System.nanoTime() - scheduledNanos);
+        }
+        return System.nanoTime() - startNanos;
+    }
+
+    private static void execute(
+        final TraceOperation operation, final long key, final BufferStoreFixture<?> store, final MapFixture map)
+    {
+        switch (operation)
+        {
+            case LOAD:
+                store.load(key);
+                break;
+            case STORE:
+                store.store(key);
+                break;
+            case UPDATE:
+            case GET_AND_ADD:
+            case COMPARE_AND_SET:
+                store.update(key);
+                break;
+            case REMOVE:
+                store.remove(key);
+                break;
+            case MAP_PUT:
+                map.put((int)key, key);
+                break;
+            case MAP_GET:
+                map.get((int)key);
+                break;
+            case MAP_REMOVE:
+                map.remove((int)key);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private void report(final int iteration, final long elapsedNanos)
+    {
+        System.out.printf("%niteration %d: %.0f ops/s%n", iteration, operations.length * 1e9 / elapsedNanos);
+        System.out.printf("%-16s %10s %10s", "operation", "count", "mean(ns)");
+        for (final double percentile : PERCENTILES)
+        {
+            System.out.printf(" %10s", "p" + percentile);
+        }
+        System.out.println();
+
+        for (final TraceOperation operation : TraceOperation.values())
+        {
+            final LatencyHistogram histogram = histograms[operation.ordinal()];
+            if (histogram.count() == 0)
+            {
+                continue;
+            }
+            System.out.printf("%-16s %10d %10.0f", operation, histogram.count(), histogram.mean());
+            for (final double percentile : PERCENTILES)
+            {
+                System.out.printf(" %10d", histogram.valueAtPercentile(percentile));
+            }
+            System.out.println();
+        }
+    }
+
+    static String syntheticKey(final int keyIndex, final int keyLength)
+    {
+        final StringBuilder key = new StringBuilder(keyLength);
+        int remaining = keyIndex;
+        do
+        {
+            key.append(KEY_CHARACTERS[remaining % KEY_CHARACTERS.length]);
+            remaining /= KEY_CHARACTERS.length;
+        }
+        while (remaining != 0);
+        while (key.length() < keyLength)
+        {
+            key.append('_');
+        }
+        return key.toString();
+    }
+}
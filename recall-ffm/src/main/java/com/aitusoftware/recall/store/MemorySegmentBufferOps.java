@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+/**
+ * Utility class for performing operations on a {@link MemorySegment}, using the Foreign Function and Memory API
+ * rather than <code>sun.misc.Unsafe</code>.
+ * <p>
+ * Segments should be allocated using {@link #allocate(int)}, which can be passed to a store as its buffer factory.
+ * Each segment is allocated in its own shared {@link Arena}, so that the native memory of a segment is freed as
+ * soon as a store has finished with it (e.g. when the store grows), rather than when it is garbage collected.
+ * Closing the instance frees any segments still allocated, and unmaps any read-only mappings; stores using those
+ * segments must not be used afterwards.
+ * <p>
+ * Data is stored in native byte order. Atomic operations ({@link BufferStore#getAndAddLong(long, int, long)} and
+ * {@link BufferStore#compareAndSetLong(long, int, long, long)}) require the field to be 8-byte aligned, which can
+ * be ensured by using a slot alignment of at least 8 bytes.
+ * <p>
+ * Allocation and release are not thread-safe, and should be performed by the thread that owns the store.
+ */
+public final class MemorySegmentBufferOps extends BufferOps<MemorySegment> implements AutoCloseable
+{
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+    private static final VarHandle ATOMIC_LONG = ValueLayout.JAVA_LONG.varHandle();
+
+    private final Long2ObjectHashMap<Arena> arenaByAddress = new Long2ObjectHashMap<>();
+
+    /**
+     * Constructor for an instance that writes snapshots using the calling thread.
+     */
+    public MemorySegmentBufferOps()
+    {
+    }
+
+    /**
+     * Constructor for an instance that writes large snapshots in several ranges concurrently. The calling
+     * thread writes the first range, and the others are written by tasks submitted to
+     * <code>snapshotExecutor</code>, which remains owned by the caller.
+     *
+     * @param snapshotExecutor    executor used to write all but the first range of a snapshot
+     * @param snapshotWriterCount the maximum number of ranges written concurrently
+     */
+    public MemorySegmentBufferOps(final Executor snapshotExecutor, final int snapshotWriterCount)
+    {
+        super(snapshotExecutor, snapshotWriterCount);
+    }
+
+    /**
+     * Allocates a zeroed, 8-byte aligned segment of native memory.
+     *
+     * @param length length of the segment in bytes
+     * @return the segment
+     */
+    public MemorySegment allocate(final int length)
+    {
+        final Arena arena = Arena.ofShared();
+        final MemorySegment segment = arena.allocate(length, Long.BYTES);
+        arenaByAddress.put(segment.address(), arena);
+        return segment;
+    }
+
+    /**
+     * Returns the number of segments allocated, and not yet freed.
+     *
+     * @return the number of allocated segments
+     */
+    public int allocatedSegmentCount()
+    {
+        return arenaByAddress.size();
+    }
+
+    /**
+     * Frees all segments allocated by this instance.
+     */
+    @Override
+    public void close()
+    {
+        arenaByAddress.values().forEach(Arena::close);
+        arenaByAddress.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void release(final MemorySegment buffer)
+    {
+        final Arena arena = arenaByAddress.remove(buffer.address());
+        if (arena != null)
+        {
+            arena.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MemorySegment createFrom(final FileChannel fileChannel, final int offset, final int length)
+    {
+        final MemorySegment segment = allocate(length);
+        readFrom(fileChannel, offset, segment, 0, length);
+        return segment;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MemorySegment mapReadOnly(final FileChannel fileChannel, final long offset, final int length)
+    {
+        final Arena arena = Arena.ofShared();
+        try
+        {
+            final MemorySegment segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, length, arena);
+            arenaByAddress.put(segment.address(), arena);
+            return segment;
+        }
+        catch (final IOException e)
+        {
+            arena.close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void readFrom(
+        final FileChannel fileChannel, final long filePosition,
+        final MemorySegment buffer, final int bufferOffset, final int length)
+    {
+        final ByteBuffer target = buffer.asSlice(bufferOffset, length).asByteBuffer();
+        try
+        {
+            fileChannel.position(filePosition);
+            while (target.remaining() != 0)
+            {
+                if (fileChannel.read(target) < 0)
+                {
+                    throw new EOFException("Unexpected end of file at " + (filePosition + target.position()));
+                }
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void storeTo(final FileChannel fileChannel, final MemorySegment buffer, final int length)
+    {
+        writeSnapshot(fileChannel, buffer.asSlice(0, length).asByteBuffer());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void writeLong(final MemorySegment buffer, final int offset, final long value)
+    {
+        buffer.set(LONG, offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    long readLong(final MemorySegment buffer, final int offset)
+    {
+        return buffer.get(LONG, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    long getAndAddLong(final MemorySegment buffer, final int offset, final long delta)
+    {
+        return (long)ATOMIC_LONG.getAndAdd(buffer, (long)offset, delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean compareAndSetLong(
+        final MemorySegment buffer, final int offset, final long expectedValue, final long updateValue)
+    {
+        return ATOMIC_LONG.compareAndSet(buffer, (long)offset, expectedValue, updateValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void writeInt(final MemorySegment buffer, final int offset, final int value)
+    {
+        buffer.set(INT, offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int readInt(final MemorySegment buffer, final int offset)
+    {
+        return buffer.get(INT, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void writeByte(final MemorySegment buffer, final int offset, final byte value)
+    {
+        buffer.set(BYTE, offset, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    byte readByte(final MemorySegment buffer, final int offset)
+    {
+        return buffer.get(BYTE, offset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void copyBytes(
+        final MemorySegment source, final MemorySegment target, final int sourceOffset,
+        final int targetOffset, final int length)
+    {
+        MemorySegment.copy(source, sourceOffset, target, targetOffset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void copyTo(
+        final MemorySegment source, final int sourceOffset,
+        final MutableDirectBuffer target, final int targetOffset, final int length)
+    {
+        final byte[] array = target.byteArray();
+        if (array != null)
+        {
+            target.boundsCheck(targetOffset, length);
+            MemorySegment.copy(source, BYTE, sourceOffset, array, target.wrapAdjustment() + targetOffset, length);
+            return;
+        }
+
+        final int longCount = length >> 3;
+        for (int i = 0; i < longCount; i++)
+        {
+            final int subOffset = i << 3;
+            target.putLong(targetOffset + subOffset, source.get(LONG, sourceOffset + subOffset));
+        }
+        for (int i = longCount << 3; i < length; i++)
+        {
+            target.putByte(targetOffset + i, source.get(BYTE, sourceOffset + i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void copyFrom(
+        final DirectBuffer source, final int sourceOffset,
+        final MemorySegment target, final int targetOffset, final int length)
+    {
+        final byte[] array = source.byteArray();
+        if (array != null)
+        {
+            source.boundsCheck(sourceOffset, length);
+            MemorySegment.copy(array, source.wrapAdjustment() + sourceOffset, target, BYTE, targetOffset, length);
+            return;
+        }
+
+        final int longCount = length >> 3;
+        for (int i = 0; i < longCount; i++)
+        {
+            final int subOffset = i << 3;
+            target.set(LONG, targetOffset + subOffset, source.getLong(sourceOffset + subOffset));
+        }
+        for (int i = longCount << 3; i < length; i++)
+        {
+            target.set(BYTE, targetOffset + i, source.getByte(sourceOffset + i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    ByteOrder byteOrder()
+    {
+        return ByteOrder.nativeOrder();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class MemorySegmentBufferOpsTest
+{
+    private static final int RECORD_LENGTH = 2 * Long.BYTES;
+    private static final int VALUE_OFFSET = Long.BYTES;
+    private final MemorySegmentBufferOps ops = new MemorySegmentBufferOps();
+    private final Encoder<MemorySegment, long[]> encoder = (buffer, offset, value) ->
+    {
+        ops.writeLong(buffer, offset, value[0]);
+        ops.writeLong(buffer, offset + VALUE_OFFSET, value[1]);
+    };
+    private final Decoder<MemorySegment, long[]> decoder = (buffer, offset, container) ->
+    {
+        container[0] = ops.readLong(buffer, offset);
+        container[1] = ops.readLong(buffer, offset + VALUE_OFFSET);
+    };
+
+    @AfterEach
+    void tearDown()
+    {
+        ops.close();
+    }
+
+    @Test
+    void shouldCopyBytes()
+    {
+        final byte[] data = "0123456789ABCDE".getBytes(StandardCharsets.UTF_8);
+        final MemorySegment source = ops.allocate(data.length);
+        ops.copyFrom(new UnsafeBuffer(data), 0, source, 0, data.length);
+        final MemorySegment target = ops.allocate(32);
+
+        ops.copyBytes(source, target, 0, 7, data.length);
+
+        final UnsafeBuffer heapCopy = new UnsafeBuffer(new byte[32]);
+        ops.copyTo(target, 0, heapCopy, 0, 32);
+        final UnsafeBuffer directCopy = new UnsafeBuffer(ByteBuffer.allocateDirect(32));
+        ops.copyTo(target, 0, directCopy, 0, 32);
+        final byte[] expected = new byte[32];
+        System.arraycopy(data, 0, expected, 7, data.length);
+        assertThat(Arrays.equals(heapCopy.byteArray(), expected)).isTrue();
+        final byte[] directBytes = new byte[32];
+        directCopy.getBytes(0, directBytes);
+        assertThat(Arrays.equals(directBytes, expected)).isTrue();
+    }
+
+    @Test
+    void shouldFreeReplacedSegmentsWhenStoreGrows()
+    {
+        final BufferStore<MemorySegment> store = new BufferStore<>(
+            RECORD_LENGTH, 4, ops::allocate, ops, SlotMode.COMPACT, Long.BYTES);
+        for (long id = 0; id < 100; id++)
+        {
+            store.store(encoder, new long[]{id, id * 3}, value -> value[0]);
+        }
+
+        assertThat(ops.allocatedSegmentCount()).isEqualTo(1);
+        final long[] container = new long[2];
+        for (long id = 0; id < 100; id++)
+        {
+            assertThat(store.load(id, decoder, container)).isTrue();
+            assertThat(container[1]).isEqualTo(id * 3);
+        }
+    }
+
+    @Test
+    void shouldUpdateFieldsAtomically()
+    {
+        final BufferStore<MemorySegment> store = new BufferStore<>(
+            RECORD_LENGTH, 4, ops::allocate, ops, SlotMode.COMPACT, Long.BYTES);
+        store.store(encoder, new long[]{7L, 100L}, value -> value[0]);
+
+        assertThat(store.getAndAddLong(7L, VALUE_OFFSET, 5L)).isEqualTo(100L);
+        assertThat(store.compareAndSetLong(7L, VALUE_OFFSET, 105L, 200L)).isTrue();
+        assertThat(store.compareAndSetLong(7L, VALUE_OFFSET, 105L, 300L)).isFalse();
+
+        final long[] container = new long[2];
+        assertThat(store.load(7L, decoder, container)).isTrue();
+        assertThat(container[1]).isEqualTo(200L);
+    }
+
+    @Test
+    void shouldWriteAndLoadStore() throws IOException
+    {
+        final BufferStore<MemorySegment> store = new BufferStore<>(RECORD_LENGTH, 16, ops::allocate, ops);
+        for (long id = 1; id <= 10; id++)
+        {
+            store.store(encoder, new long[]{id, -id}, value -> value[0]);
+        }
+
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            store.writeTo(channel);
+            final BufferStore<MemorySegment> loaded = BufferStore.loadFrom(channel, ops, ops::allocate);
+
+            assertThat(loaded.size()).isEqualTo(10);
+            final long[] container = new long[2];
+            assertThat(loaded.load(4L, decoder, container)).isTrue();
+            assertThat(container[1]).isEqualTo(-4L);
+        }
+        finally
+        {
+            Files.delete(storeFile);
+        }
+        assertThat(ops.allocatedSegmentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldMapStoreReadOnly() throws IOException
+    {
+        final BufferStore<MemorySegment> store = new BufferStore<>(RECORD_LENGTH, 16, ops::allocate, ops);
+        for (long id = 1; id <= 10; id++)
+        {
+            store.store(encoder, new long[]{id, -id}, value -> value[0]);
+        }
+
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+            {
+                store.writeTo(channel);
+            }
+            final BufferStore<MemorySegment> mapped = BufferStore.openReadOnly(storeFile, ops);
+
+            assertThat(mapped.size()).isEqualTo(10);
+            final long[] container = new long[2];
+            assertThat(mapped.load(7L, decoder, container)).isTrue();
+            assertThat(container[1]).isEqualTo(-7L);
+            assertThat(ops.allocatedSegmentCount()).isEqualTo(2);
+        }
+        finally
+        {
+            ops.close();
+            Files.delete(storeFile);
+        }
+    }
+
+    @Test
+    void shouldFreeAllSegmentsOnClose()
+    {
+        final MemorySegment segment = ops.allocate(64);
+        ops.allocate(128);
+
+        ops.close();
+
+        assertThat(ops.allocatedSegmentCount()).isEqualTo(0);
+        assertThat(segment.scope().isAlive()).isFalse();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.sbe;
+
+import com.aitusoftware.recall.sbe.example.BooleanType;
+import com.aitusoftware.recall.sbe.example.CarDecoder;
+import com.aitusoftware.recall.sbe.example.CarEncoder;
+import com.aitusoftware.recall.sbe.example.MessageHeaderEncoder;
+import com.aitusoftware.recall.sbe.example.Model;
+import com.aitusoftware.recall.store.AllocationMeasurement;
+import com.aitusoftware.recall.store.SingleTypeStore;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class SbeStoreAllocationTest
+{
+    private static final int RECORDS = 1024;
+    private static final int MAX_RECORD_LENGTH = 256;
+    private final SingleTypeStore<UnsafeBuffer, CarDecoder> store = SbeMessageStoreFactory.forSbeMessage(
+        new CarDecoder(), MAX_RECORD_LENGTH, RECORDS * 2,
+        len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len)), CarDecoder::id);
+    private final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+    private final CarEncoder encoder = new CarEncoder();
+    private final CarDecoder decoder = new CarDecoder();
+    private final CarDecoder container = new CarDecoder();
+    private AllocationMeasurement measurement;
+
+    @BeforeEach
+    void setUp()
+    {
+        measurement = AllocationMeasurement.forCurrentThread();
+        encoder.wrapAndApplyHeader(buffer, 0, new MessageHeaderEncoder())
+            .id(0L).available(BooleanType.T).code(Model.A)
+            .modelYear(1979)
+            .manufacturer("Mitsubishi")
+            .model("Mirage")
+            .activationCode("ACTIVATION_CODE");
+        decoder.wrap(buffer, MessageHeaderEncoder.ENCODED_LENGTH, encoder.encodedLength(), encoder.sbeSchemaVersion());
+        for (int i = 0; i < RECORDS; i++)
+        {
+            encoder.id(i);
+            store.store(decoder);
+        }
+    }
+
+    @Test
+    void shouldNotAllocateOnLoad()
+    {
+        assertThat(measurement.allocatedBytes(RECORDS, i -> store.load(i, container))).isEqualTo(0L);
+        assertThat(container.id()).isLessThan((long)RECORDS);
+    }
+
+    @Test
+    void shouldNotAllocateOnStore()
+    {
+        assertThat(measurement.allocatedBytes(RECORDS, i ->
+        {
+            encoder.id(i);
+            store.store(decoder);
+        })).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldNotAllocateOnRemoveAndStore()
+    {
+        assertThat(measurement.allocatedBytes(RECORDS, i ->
+        {
+            encoder.id(i);
+            store.remove(i);
+            store.store(decoder);
+        })).isEqualTo(0L);
+    }
+}
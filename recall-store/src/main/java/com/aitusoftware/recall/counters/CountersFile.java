@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.counters;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A memory-mapped file containing Agrona counters, allowing the counters of a process to be read by
+ * other processes (e.g. by {@link RecallStat}).
+ * <p>
+ * The file consists of a header, followed by the counter meta-data, followed by the counter values.
+ */
+public final class CountersFile implements AutoCloseable
+{
+    /**
+     * Version of the file layout.
+     */
+    public static final int VERSION = 1;
+    private static final int VERSION_OFFSET = 0;
+    private static final int META_DATA_LENGTH_OFFSET = Integer.BYTES;
+    private static final int VALUES_LENGTH_OFFSET = 2 * Integer.BYTES;
+    private static final int HEADER_LENGTH = CountersReader.COUNTER_LENGTH;
+
+    private final MappedByteBuffer mappedFile;
+    private final UnsafeBuffer metaDataBuffer;
+    private final UnsafeBuffer valuesBuffer;
+    private CountersManager countersManager;
+
+    private CountersFile(final MappedByteBuffer mappedFile)
+    {
+        this.mappedFile = mappedFile;
+        final UnsafeBuffer headerBuffer = new UnsafeBuffer(mappedFile, 0, HEADER_LENGTH);
+        final int version = headerBuffer.getIntVolatile(VERSION_OFFSET);
+        if (version != VERSION)
+        {
+            IoUtil.unmap(mappedFile);
+            throw new IllegalArgumentException("Unsupported counters file version: " + version);
+        }
+        final int metaDataLength = headerBuffer.getInt(META_DATA_LENGTH_OFFSET);
+        final int valuesLength = headerBuffer.getInt(VALUES_LENGTH_OFFSET);
+        metaDataBuffer = new UnsafeBuffer(mappedFile, HEADER_LENGTH, metaDataLength);
+        valuesBuffer = new UnsafeBuffer(mappedFile, HEADER_LENGTH + metaDataLength, valuesLength);
+    }
+
+    /**
+     * Creates a new counters file, replacing any existing file.
+     * <p>
+     * An existing file is deleted rather than truncated, so that a reader still mapping it is not faulted.
+     *
+     * @param file        the file to create
+     * @param maxCounters the maximum number of counters that can be allocated
+     * @return the counters file
+     */
+    public static CountersFile create(final Path file, final int maxCounters)
+    {
+        if (maxCounters < 1)
+        {
+            throw new IllegalArgumentException("maxCounters must be positive: " + maxCounters);
+        }
+        final long valuesLength = (long)maxCounters * CountersReader.COUNTER_LENGTH;
+        final long metaDataLength = (long)maxCounters * CountersReader.METADATA_LENGTH;
+        final long fileLength = HEADER_LENGTH + metaDataLength + valuesLength;
+        if (fileLength > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Too many counters: " + maxCounters);
+        }
+
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        final MappedByteBuffer mappedFile = IoUtil.mapNewFile(file.toFile(), fileLength);
+        final UnsafeBuffer headerBuffer = new UnsafeBuffer(mappedFile, 0, HEADER_LENGTH);
+        headerBuffer.putInt(META_DATA_LENGTH_OFFSET, (int)metaDataLength);
+        headerBuffer.putInt(VALUES_LENGTH_OFFSET, (int)valuesLength);
+        headerBuffer.putIntOrdered(VERSION_OFFSET, VERSION);
+
+        final CountersFile countersFile = new CountersFile(mappedFile);
+        countersFile.countersManager = new CountersManager(countersFile.metaDataBuffer, countersFile.valuesBuffer);
+        return countersFile;
+    }
+
+    /**
+     * Opens an existing counters file for reading.
+     *
+     * @param file the file to open
+     * @return the counters file
+     */
+    public static CountersFile open(final Path file)
+    {
+        return new CountersFile(IoUtil.mapExistingFile(file.toFile(), "counters"));
+    }
+
+    /**
+     * Returns the manager used to allocate counters in a file created by this process.
+     *
+     * @return the counters manager
+     * @throws IllegalStateException if the file was opened for reading
+     */
+    public CountersManager countersManager()
+    {
+        if (countersManager == null)
+        {
+            throw new IllegalStateException("Counters file was opened for reading");
+        }
+        return countersManager;
+    }
+
+    /**
+     * Returns a reader for the counters in the file.
+     *
+     * @return the counters reader
+     */
+    public CountersReader countersReader()
+    {
+        return countersManager != null ? countersManager : new CountersReader(metaDataBuffer, valuesBuffer);
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close()
+    {
+        IoUtil.unmap(mappedFile);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.counters;
+
+import org.agrona.concurrent.status.CountersReader;
+
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command-line tool for printing the counters in a {@link CountersFile}.
+ * <p>
+ * Usage: {@code RecallStat <file> [<interval-seconds>]}
+ * <p>
+ * If an interval is specified, counters are printed repeatedly until the process is terminated.
+ */
+public final class RecallStat
+{
+    private RecallStat()
+    {
+    }
+
+    /**
+     * Entry point for the command-line tool.
+     *
+     * @param args program arguments
+     * @throws InterruptedException if interrupted while waiting to print counters
+     */
+    public static void main(final String[] args) throws InterruptedException
+    {
+        if (args.length == 0)
+        {
+            System.err.println("Usage: RecallStat <file> [<interval-seconds>]");
+            System.exit(2);
+        }
+
+        final long intervalSeconds = args.length > 1 ? Long.parseLong(args[1]) : 0L;
+        try (CountersFile countersFile = CountersFile.open(Paths.get(args[0])))
+        {
+            final CountersReader countersReader = countersFile.countersReader();
+            do
+            {
+                print(countersReader, System.out);
+                TimeUnit.SECONDS.sleep(intervalSeconds);
+            }
+            while (intervalSeconds > 0);
+        }
+    }
+
+    /**
+     * Prints the current value of all allocated counters.
+     *
+     * @param countersReader the source of counters
+     * @param out            destination for the counters
+     */
+    public static void print(final CountersReader countersReader, final PrintStream out)
+    {
+        out.printf("%tT - counters%n", System.currentTimeMillis());
+        countersReader.forEach((value, counterId, label) ->
+            out.printf("%3d: %,20d - %s%n", counterId, value, label));
+    }
+}
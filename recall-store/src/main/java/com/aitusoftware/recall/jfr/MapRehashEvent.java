@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted when the entries of a map are copied to a new buffer.
+ */
+@Name(RecallEvents.EVENT_NAME_PREFIX + "MapRehash")
+@Label("Map Rehash")
+@Category(RecallEvents.CATEGORY)
+@Description("The entries of a map were copied to a new buffer, which may be larger than the previous buffer")
+public final class MapRehashEvent extends jdk.jfr.Event
+{
+    @Label("Map Type")
+    String mapType;
+
+    @Label("Entry Count")
+    int entryCount;
+
+    @Label("Resized")
+    boolean resized;
+
+    @Label("Previous Capacity")
+    @DataAmount
+    long previousCapacity;
+
+    @Label("New Capacity")
+    @DataAmount
+    long newCapacity;
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.jfr;
+
+/**
+ * Entry point for emitting JDK Flight Recorder events for maintenance operations of stores and maps.
+ * <p>
+ * Each operation calls a {@code begin} method before starting work, and passes the returned event to the
+ * corresponding {@code commit} method once complete. If Flight Recorder is not present in the runtime
+ * (i.e. Java 8 prior to update 262), or the event is not enabled in the current recording, the {@code begin}
+ * method returns {@code null}, and the {@code commit} method does nothing.
+ * <p>
+ * Event classes are only loaded when Flight Recorder is present.
+ */
+public final class RecallEvents
+{
+    /**
+     * Prefix of the names of all events.
+     */
+    public static final String EVENT_NAME_PREFIX = "com.aitusoftware.recall.";
+    /**
+     * Category of all events.
+     */
+    public static final String CATEGORY = "Recall";
+
+    private static final boolean FLIGHT_RECORDER_PRESENT = isFlightRecorderPresent();
+
+    private RecallEvents()
+    {
+    }
+
+    /**
+     * Starts timing a buffer resize.
+     *
+     * @return the event, or {@code null} if the event is not enabled
+     */
+    public static BufferResizeEvent beginBufferResize()
+    {
+        if (FLIGHT_RECORDER_PRESENT)
+        {
+            final BufferResizeEvent event = new BufferResizeEvent();
+            if (event.isEnabled())
+            {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a completed buffer resize.
+     *
+     * @param event            the event returned from {@link #beginBufferResize()}
+     * @param storeType        the type of the store
+     * @param previousCapacity capacity of the previous buffer in bytes
+     * @param newCapacity      capacity of the new buffer in bytes
+     * @param bytesCopied      number of bytes copied to the new buffer
+     */
+    public static void commitBufferResize(
+        final BufferResizeEvent event, final String storeType,
+        final long previousCapacity, final long newCapacity, final long bytesCopied)
+    {
+        if (event != null)
+        {
+            event.storeType = storeType;
+            event.previousCapacity = previousCapacity;
+            event.newCapacity = newCapacity;
+            event.bytesCopied = bytesCopied;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a map rehash.
+     *
+     * @return the event, or {@code null} if the event is not enabled
+     */
+    public static MapRehashEvent beginMapRehash()
+    {
+        if (FLIGHT_RECORDER_PRESENT)
+        {
+            final MapRehashEvent event = new MapRehashEvent();
+            if (event.isEnabled())
+            {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a completed map rehash.
+     *
+     * @param event            the event returned from {@link #beginMapRehash()}
+     * @param mapType          the type of the map
+     * @param entryCount       the number of entries in the map
+     * @param resized          indicates whether the map was resized
+     * @param previousCapacity capacity of the previous buffer in bytes
+     * @param newCapacity      capacity of the new buffer in bytes
+     */
+    public static void commitMapRehash(
+        final MapRehashEvent event, final String mapType, final int entryCount, final boolean resized,
+        final long previousCapacity, final long newCapacity)
+    {
+        if (event != null)
+        {
+            event.mapType = mapType;
+            event.entryCount = entryCount;
+            event.resized = resized;
+            event.previousCapacity = previousCapacity;
+            event.newCapacity = newCapacity;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a snapshot write.
+     *
+     * @return the event, or {@code null} if the event is not enabled
+     */
+    public static SnapshotWriteEvent beginSnapshotWrite()
+    {
+        if (FLIGHT_RECORDER_PRESENT)
+        {
+            final SnapshotWriteEvent event = new SnapshotWriteEvent();
+            if (event.isEnabled())
+            {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a completed snapshot write.
+     *
+     * @param event        the event returned from {@link #beginSnapshotWrite()}
+     * @param storeType    the type of the store
+     * @param recordCount  the number of records in the store
+     * @param bytesWritten the number of bytes written
+     */
+    public static void commitSnapshotWrite(
+        final SnapshotWriteEvent event, final String storeType, final int recordCount, final long bytesWritten)
+    {
+        if (event != null)
+        {
+            event.storeType = storeType;
+            event.recordCount = recordCount;
+            event.bytesWritten = bytesWritten;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a snapshot load.
+     *
+     * @return the event, or {@code null} if the event is not enabled
+     */
+    public static SnapshotLoadEvent beginSnapshotLoad()
+    {
+        if (FLIGHT_RECORDER_PRESENT)
+        {
+            final SnapshotLoadEvent event = new SnapshotLoadEvent();
+            if (event.isEnabled())
+            {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a completed snapshot load.
+     *
+     * @param event       the event returned from {@link #beginSnapshotLoad()}
+     * @param storeType   the type of the store
+     * @param fileVersion the format version of the file
+     * @param recordCount the number of records in the loaded store
+     * @param bytesRead   the number of bytes read
+     */
+    public static void commitSnapshotLoad(
+        final SnapshotLoadEvent event, final String storeType, final int fileVersion,
+        final int recordCount, final long bytesRead)
+    {
+        if (event != null)
+        {
+            event.storeType = storeType;
+            event.fileVersion = fileVersion;
+            event.recordCount = recordCount;
+            event.bytesRead = bytesRead;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a compaction.
+     *
+     * @return the event, or {@code null} if the event is not enabled
+     */
+    public static CompactionEvent beginCompaction()
+    {
+        if (FLIGHT_RECORDER_PRESENT)
+        {
+            final CompactionEvent event = new CompactionEvent();
+            if (event.isEnabled())
+            {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a completed compaction.
+     *
+     * @param event       the event returned from {@link #beginCompaction()}
+     * @param storeType   the type of the store
+     * @param recordCount the number of records in the store
+     * @param bytesMoved  the number of bytes moved
+     */
+    public static void commitCompaction(
+        final CompactionEvent event, final String storeType, final int recordCount, final long bytesMoved)
+    {
+        if (event != null)
+        {
+            event.storeType = storeType;
+            event.recordCount = recordCount;
+            event.bytesMoved = bytesMoved;
+            event.commit();
+        }
+    }
+
+    private static boolean isFlightRecorderPresent()
+    {
+        try
+        {
+            Class.forName("jdk.jfr.Event", false, RecallEvents.class.getClassLoader());
+            return true;
+        }
+        catch (final ClassNotFoundException | LinkageError e)
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted when a store is loaded from a file.
+ */
+@Name(RecallEvents.EVENT_NAME_PREFIX + "SnapshotLoad")
+@Label("Snapshot Load")
+@Category(RecallEvents.CATEGORY)
+@Description("A store was loaded from a file")
+public final class SnapshotLoadEvent extends jdk.jfr.Event
+{
+    @Label("Store Type")
+    String storeType;
+
+    @Label("File Version")
+    int fileVersion;
+
+    @Label("Record Count")
+    int recordCount;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted when the content of a store is written to a file.
+ */
+@Name(RecallEvents.EVENT_NAME_PREFIX + "SnapshotWrite")
+@Label("Snapshot Write")
+@Category(RecallEvents.CATEGORY)
+@Description("The content of a store was written to a file")
+public final class SnapshotWriteEvent extends jdk.jfr.Event
+{
+    @Label("Store Type")
+    String storeType;
+
+    @Label("Record Count")
+    int recordCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
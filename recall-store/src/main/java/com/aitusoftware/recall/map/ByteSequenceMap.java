@@ -17,6 +17,8 @@
  */
 package com.aitusoftware.recall.map;
 
+import com.aitusoftware.recall.jfr.MapRehashEvent;
+import com.aitusoftware.recall.jfr.RecallEvents;
 import org.agrona.BitUtil;
 
 import java.nio.ByteBuffer;
@@ -29,6 +31,7 @@ import java.util.function.ToIntFunction;
 public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
 {
     private static final int ID_OFFSET = Integer.BYTES;
+    private static final String MAP_TYPE = "ByteSequenceMap";
     private static final int KEY_OFFSET = Integer.BYTES * 4;
     private static final int HASH_OFFSET = Integer.BYTES * 3;
     private final ToIntFunction<ByteBuffer> hash;
@@ -45,6 +48,7 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
     private int entryMask;
     private int entrySizeInBytes;
     private boolean noDeletes = true;
+    private MapCounters counters;
 
     /**
      * Constructor for the map.
@@ -106,36 +110,11 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
         {
             throw new IllegalArgumentException("Key too long");
         }
-        if (liveEntryCount > entryCountToTriggerRehash)
-        {
-            rehash(true);
-        }
-        final int hashValue = hash.applyAsInt(value);
-        final int entryIndex = (hashValue & entryMask);
-        final boolean existingEntryAt = isExistingEntryAt(value, entryIndex, hashValue);
-        if (!isValuePresent(entryIndex, dataBuffer) || existingEntryAt)
-        {
-            insertEntry(value, id, entryIndex, !existingEntryAt, hashValue);
-        }
-        else
+        if (counters != null)
         {
-            for (int i = 1; i < totalEntryCount; i++)
-            {
-                int candidateIndex = (entryIndex + (i));
-                if (candidateIndex >= totalEntryCount)
-                {
-                    candidateIndex -= totalEntryCount;
-                }
-                final boolean innerExistingEntryAt = isExistingEntryAt(value, candidateIndex, hashValue);
-                if (!isValuePresent(candidateIndex, dataBuffer) || innerExistingEntryAt)
-                {
-                    insertEntry(value, id, candidateIndex, !innerExistingEntryAt, hashValue);
-                    return;
-                }
-            }
-
-            put(value, id);
+            counters.onPut();
         }
+        insert(value, id);
     }
 
     /**
@@ -143,7 +122,19 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
      */
     public long get(final ByteBuffer value)
     {
-        return search(value, getEntryHandler);
+        final long id = search(value, getEntryHandler);
+        if (counters != null)
+        {
+            if (id == missingValue)
+            {
+                counters.onMiss();
+            }
+            else
+            {
+                counters.onHit();
+            }
+        }
+        return id;
     }
 
     /**
@@ -170,6 +161,50 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
         rehash(false);
     }
 
+    /**
+     * Registers counters to be updated by subsequent operations on this map.
+     *
+     * @param counters the counters, or {@code null} to remove existing counters
+     */
+    public void counters(final MapCounters counters)
+    {
+        this.counters = counters;
+    }
+
+    private void insert(final ByteBuffer value, final long id)
+    {
+        if (liveEntryCount > entryCountToTriggerRehash)
+        {
+            rehash(true);
+        }
+        final int hashValue = hash.applyAsInt(value);
+        final int entryIndex = (hashValue & entryMask);
+        final boolean existingEntryAt = isExistingEntryAt(value, entryIndex, hashValue);
+        if (!isValuePresent(entryIndex, dataBuffer) || existingEntryAt)
+        {
+            insertEntry(value, id, entryIndex, !existingEntryAt, hashValue);
+        }
+        else
+        {
+            for (int i = 1; i < totalEntryCount; i++)
+            {
+                int candidateIndex = (entryIndex + (i));
+                if (candidateIndex >= totalEntryCount)
+                {
+                    candidateIndex -= totalEntryCount;
+                }
+                final boolean innerExistingEntryAt = isExistingEntryAt(value, candidateIndex, hashValue);
+                if (!isValuePresent(candidateIndex, dataBuffer) || innerExistingEntryAt)
+                {
+                    insertEntry(value, id, candidateIndex, !innerExistingEntryAt, hashValue);
+                    return;
+                }
+            }
+
+            insert(value, id);
+        }
+    }
+
     private long search(final ByteBuffer value, final EntryHandler entryHandler)
     {
         final int hashValue = hash.applyAsInt(value);
@@ -203,6 +238,18 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
 
     private void rehash(final boolean shouldResize)
     {
+        final MapRehashEvent rehashEvent = RecallEvents.beginMapRehash();
+        if (counters != null)
+        {
+            if (shouldResize)
+            {
+                counters.onResize();
+            }
+            else
+            {
+                counters.onRehash();
+            }
+        }
         final ByteBuffer oldBuffer = dataBuffer;
         final int oldEntryCount = totalEntryCount;
         final int newSize = oldBuffer.capacity() * 2;
@@ -237,10 +284,12 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
                 final int valueLength = getValueLength(i, oldBuffer);
                 final int endPosition = sourceOffset + valueLength;
                 oldBuffer.limit(endPosition).position(sourceOffset);
-                put(oldBuffer, id);
+                insert(oldBuffer, id);
                 oldBuffer.limit(oldBuffer.capacity()).position(0);
             }
         }
+        RecallEvents.commitMapRehash(
+            rehashEvent, MAP_TYPE, liveEntryCount, shouldResize, oldBuffer.capacity(), dataBuffer.capacity());
     }
 
     private void insertEntry(
@@ -359,6 +408,10 @@ public final class ByteSequenceMap implements SequenceMap<ByteBuffer>
                 buffer.put(byteOffset++, (byte)0);
             }
             liveEntryCount--;
+            if (counters != null)
+            {
+                counters.onRemove();
+            }
             noDeletes = false;
         }
     }
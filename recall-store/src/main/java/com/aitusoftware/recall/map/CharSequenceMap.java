@@ -17,6 +17,8 @@
  */
 package com.aitusoftware.recall.map;
 
+import com.aitusoftware.recall.jfr.MapRehashEvent;
+import com.aitusoftware.recall.jfr.RecallEvents;
 import org.agrona.BitUtil;
 
 import java.nio.ByteBuffer;
@@ -31,6 +33,7 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
     private static final int KEY_OFFSET = Integer.BYTES * 4;
     private static final int HASH_OFFSET = Integer.BYTES * 3;
     private static final int ID_OFFSET = Integer.BYTES;
+    private static final String MAP_TYPE = "CharSequenceMap";
     private final ToIntFunction<CharSequence> hash;
     private final CharArrayCharSequence charBuffer = new CharArrayCharSequence();
     private final float loadFactor = 0.7f;
@@ -46,6 +49,7 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
     private int entryCountToTriggerRehash;
     private int entryMask;
     private boolean noDeletes = true;
+    private MapCounters counters;
 
     /**
      * Constructor for the map.
@@ -111,38 +115,11 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
         {
             throw new IllegalArgumentException("Key too long");
         }
-        if (liveEntryCount > entryCountToTriggerRehash)
+        if (counters != null)
         {
-            rehash(true);
-        }
-        final int hashValue = hash.applyAsInt(value);
-        final int entryIndex = (hashValue & entryMask);
-
-        final boolean existingEntryAt = isExistingEntryAt(value, entryIndex, hashValue);
-        if (isEmptyEntrySlot(entryIndex) || existingEntryAt)
-        {
-            insertEntry(value, id, entryIndex, !existingEntryAt, hashValue);
-        }
-        else
-        {
-            for (int i = 1; i < totalEntryCount; i++)
-            {
-                int candidateIndex = (entryIndex + (i));
-
-                if (candidateIndex >= totalEntryCount)
-                {
-                    candidateIndex -= totalEntryCount;
-                }
-                final boolean innerExistingEntryAt = isExistingEntryAt(value, candidateIndex, hashValue);
-                if (isEmptyEntrySlot(candidateIndex) || innerExistingEntryAt)
-                {
-                    insertEntry(value, id, candidateIndex, !innerExistingEntryAt, hashValue);
-                    return;
-                }
-            }
-
-            put(value, id);
+            counters.onPut();
         }
+        insert(value, id);
     }
 
     /**
@@ -150,7 +127,19 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
      */
     public long get(final CharSequence value)
     {
-        return search(value, searchEntryHandler);
+        final long id = search(value, searchEntryHandler);
+        if (counters != null)
+        {
+            if (id == missingValue)
+            {
+                counters.onMiss();
+            }
+            else
+            {
+                counters.onHit();
+            }
+        }
+        return id;
     }
 
     /**
@@ -177,6 +166,52 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
         rehash(false);
     }
 
+    /**
+     * Registers counters to be updated by subsequent operations on this map.
+     *
+     * @param counters the counters, or {@code null} to remove existing counters
+     */
+    public void counters(final MapCounters counters)
+    {
+        this.counters = counters;
+    }
+
+    private void insert(final CharSequence value, final long id)
+    {
+        if (liveEntryCount > entryCountToTriggerRehash)
+        {
+            rehash(true);
+        }
+        final int hashValue = hash.applyAsInt(value);
+        final int entryIndex = (hashValue & entryMask);
+
+        final boolean existingEntryAt = isExistingEntryAt(value, entryIndex, hashValue);
+        if (isEmptyEntrySlot(entryIndex) || existingEntryAt)
+        {
+            insertEntry(value, id, entryIndex, !existingEntryAt, hashValue);
+        }
+        else
+        {
+            for (int i = 1; i < totalEntryCount; i++)
+            {
+                int candidateIndex = (entryIndex + (i));
+
+                if (candidateIndex >= totalEntryCount)
+                {
+                    candidateIndex -= totalEntryCount;
+                }
+                final boolean innerExistingEntryAt = isExistingEntryAt(value, candidateIndex, hashValue);
+                if (isEmptyEntrySlot(candidateIndex) || innerExistingEntryAt)
+                {
+                    insertEntry(value, id, candidateIndex, !innerExistingEntryAt, hashValue);
+                    return;
+                }
+            }
+
+            insert(value, id);
+        }
+    }
+
     private void insertEntry(
         final CharSequence value, final long id,
         final int entryIndex, final boolean isInsert, final int hashValue)
@@ -202,6 +237,18 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
 
     private void rehash(final boolean shouldResize)
     {
+        final MapRehashEvent rehashEvent = RecallEvents.beginMapRehash();
+        if (counters != null)
+        {
+            if (shouldResize)
+            {
+                counters.onResize();
+            }
+            else
+            {
+                counters.onRehash();
+            }
+        }
         final ByteBuffer oldBuffer = dataBuffer;
         final int oldEntryCount = totalEntryCount;
 
@@ -234,9 +281,11 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
                 final long id = getId(i, oldBuffer);
 
                 charBuffer.reset(oldBuffer, keyOffset(i), getValueLength(i, oldBuffer));
-                put(charBuffer, id);
+                insert(charBuffer, id);
             }
         }
+        RecallEvents.commitMapRehash(
+            rehashEvent, MAP_TYPE, liveEntryCount, shouldResize, oldBuffer.capacity(), dataBuffer.capacity());
     }
 
     private long search(final CharSequence value, final EntryHandler entryHandler)
@@ -412,6 +461,10 @@ public final class CharSequenceMap implements SequenceMap<CharSequence>
                 buffer.put(byteOffset++, (byte)0);
             }
             liveEntryCount--;
+            if (counters != null)
+            {
+                counters.onRemove();
+            }
             noDeletes = false;
         }
     }
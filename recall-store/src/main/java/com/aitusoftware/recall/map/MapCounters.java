@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.map;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+/**
+ * Counters describing the operations performed on a {@link CharSequenceMap} or {@link ByteSequenceMap}.
+ * <p>
+ * Counters are allocated from an Agrona {@link CountersManager}, so that they can be observed by external
+ * processes when the manager is backed by a memory-mapped file (see
+ * {@link com.aitusoftware.recall.counters.CountersFile}). Updates are ordered writes by the single thread
+ * that owns the map, and do not allocate.
+ */
+public final class MapCounters implements AutoCloseable
+{
+    /**
+     * Type id of the counter of successful lookups.
+     */
+    public static final int HITS_TYPE_ID = 1200;
+    /**
+     * Type id of the counter of lookups of absent keys.
+     */
+    public static final int MISSES_TYPE_ID = 1201;
+    /**
+     * Type id of the counter of inserted or updated entries.
+     */
+    public static final int PUTS_TYPE_ID = 1202;
+    /**
+     * Type id of the counter of removed entries.
+     */
+    public static final int REMOVES_TYPE_ID = 1203;
+    /**
+     * Type id of the counter of resizes of the map.
+     */
+    public static final int RESIZES_TYPE_ID = 1204;
+    /**
+     * Type id of the counter of in-place rehashes of the map.
+     */
+    public static final int REHASHES_TYPE_ID = 1205;
+
+    private final AtomicCounter hits;
+    private final AtomicCounter misses;
+    private final AtomicCounter puts;
+    private final AtomicCounter removes;
+    private final AtomicCounter resizes;
+    private final AtomicCounter rehashes;
+
+    /**
+     * Constructor for the counters.
+     *
+     * @param countersManager the manager from which to allocate counters
+     * @param mapName         name of the map, used to label the counters
+     */
+    public MapCounters(final CountersManager countersManager, final String mapName)
+    {
+        hits = countersManager.newCounter(mapName + ": hits", HITS_TYPE_ID);
+        misses = countersManager.newCounter(mapName + ": misses", MISSES_TYPE_ID);
+        puts = countersManager.newCounter(mapName + ": puts", PUTS_TYPE_ID);
+        removes = countersManager.newCounter(mapName + ": removes", REMOVES_TYPE_ID);
+        resizes = countersManager.newCounter(mapName + ": resizes", RESIZES_TYPE_ID);
+        rehashes = countersManager.newCounter(mapName + ": rehashes", REHASHES_TYPE_ID);
+    }
+
+    /**
+     * Returns the number of successful lookups.
+     *
+     * @return the number of hits
+     */
+    public long hits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups of keys that were not present.
+     *
+     * @return the number of misses
+     */
+    public long misses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries inserted, including updates of existing entries.
+     *
+     * @return the number of puts
+     */
+    public long puts()
+    {
+        return puts.get();
+    }
+
+    /**
+     * Returns the number of removed entries.
+     *
+     * @return the number of removes
+     */
+    public long removes()
+    {
+        return removes.get();
+    }
+
+    /**
+     * Returns the number of times that the map has been resized.
+     *
+     * @return the number of resizes
+     */
+    public long resizes()
+    {
+        return resizes.get();
+    }
+
+    /**
+     * Returns the number of times that the map has been rehashed without being resized.
+     *
+     * @return the number of rehashes
+     */
+    public long rehashes()
+    {
+        return rehashes.get();
+    }
+
+    /**
+     * Frees the counters, so that they can be reused by the {@code CountersManager}.
+     */
+    @Override
+    public void close()
+    {
+        hits.close();
+        misses.close();
+        puts.close();
+        removes.close();
+        resizes.close();
+        rehashes.close();
+    }
+
+    void onHit()
+    {
+        hits.incrementOrdered();
+    }
+
+    void onMiss()
+    {
+        misses.incrementOrdered();
+    }
+
+    void onPut()
+    {
+        puts.incrementOrdered();
+    }
+
+    void onRemove()
+    {
+        removes.incrementOrdered();
+    }
+
+    void onResize()
+    {
+        resizes.incrementOrdered();
+    }
+
+    void onRehash()
+    {
+        rehashes.incrementOrdered();
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.persistence;
+
+/**
+ * Function to modify an encoded record in place, to be used with a {@code Store}.
+ *
+ * @param <B> type of the buffer
+ */
+@FunctionalInterface
+public interface RecordUpdater<B>
+{
+    /**
+     * Updates the encoded value at the specified offset.
+     *
+     * @param buffer buffer containing the encoded value
+     * @param offset offset of the encoded value in the buffer
+     */
+    void update(B buffer, int offset);
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.BitUtil;
+import org.agrona.BufferUtil;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Buffer factory that creates direct buffers in which the first record slot of a {@link BufferStore}
+ * is aligned to the specified boundary.
+ * <p>
+ * For use with an {@link UnsafeBufferOps} store, wrap the created buffers:
+ * <pre>
+ * final AlignedBufferFactory alignedBufferFactory = new AlignedBufferFactory(64);
+ * final IntFunction&lt;UnsafeBuffer&gt; bufferFactory = len -&gt; new UnsafeBuffer(alignedBufferFactory.apply(len));
+ * </pre>
+ */
+public final class AlignedBufferFactory implements IntFunction<ByteBuffer>
+{
+    private final int alignment;
+
+    /**
+     * Constructor for the factory.
+     *
+     * @param alignment alignment of the first record slot, which must be a power of two
+     */
+    public AlignedBufferFactory(final int alignment)
+    {
+        if (!BitUtil.isPowerOfTwo(alignment))
+        {
+            throw new IllegalArgumentException("Alignment must be a power of two: " + alignment);
+        }
+        this.alignment = alignment;
+    }
+
+    /**
+     * Creates a direct buffer.
+     *
+     * @param length the length of the buffer
+     * @return a buffer with a capacity of <code>length</code>
+     */
+    @Override
+    public ByteBuffer apply(final int length)
+    {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(length + alignment);
+        final long dataAddress = BufferUtil.address(buffer) + Header.LENGTH;
+        final int padding = (int)(((dataAddress + alignment - 1) & -alignment) - dataAddress);
+        buffer.limit(padding + length);
+        buffer.position(padding);
+
+        return buffer.slice();
+    }
+}
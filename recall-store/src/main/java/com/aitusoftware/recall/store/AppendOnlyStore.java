@@ -0,0 +1,459 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.jfr.BufferResizeEvent;
+import com.aitusoftware.recall.jfr.CompactionEvent;
+import com.aitusoftware.recall.jfr.RecallEvents;
+import com.aitusoftware.recall.jfr.SnapshotLoadEvent;
+import com.aitusoftware.recall.jfr.SnapshotWriteEvent;
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.BitUtil;
+
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Implementation of {@link Store} for records whose identifiers are stored in increasing order,
+ * such as journal entries.
+ * <p>
+ * Records are appended in identifier order and located by searching the slots, so no index is required.
+ * Records can only be removed from the head of the store.
+ * <p>
+ * The persisted format is the same as that of {@link BufferStore}.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public final class AppendOnlyStore<B> implements Store<B>
+{
+    /**
+     * Value returned from {@link #firstId()} and {@link #lastId()} when the store is empty.
+     */
+    public static final long NO_ID = Long.MIN_VALUE;
+
+    private static final int NOT_FOUND = -1;
+    private static final int DATA_OFFSET = Header.LENGTH;
+    private static final int HEADER_OFFSET = 0;
+    private static final String STORE_TYPE = "AppendOnlyStore";
+    private final int maxRecordLength;
+    private final int internalRecordLength;
+    private final BufferOps<B> bufferOps;
+    private final IntFunction<B> bufferFactory;
+    private final Header header;
+    private int bufferCapacity;
+    private B buffer;
+    private int headOffset;
+    private int nextWriteOffset;
+
+    /**
+     * Constructor for the AppendOnlyStore.
+     * <p>
+     * Each slot, comprising the record and its identifier, is padded to a multiple of 8 bytes.
+     *
+     * @param maxRecordLength max length of any record
+     * @param initialSize     initial number of records that need to be stored
+     * @param bufferFactory   provider for the underlying buffer type
+     * @param bufferOps       provider of operations on the underlying buffer type
+     */
+    public AppendOnlyStore(
+        final int maxRecordLength, final int initialSize,
+        final IntFunction<B> bufferFactory,
+        final BufferOps<B> bufferOps)
+    {
+        this.maxRecordLength = maxRecordLength;
+        internalRecordLength = BitUtil.align(maxRecordLength + Long.BYTES, Long.BYTES);
+        bufferCapacity = internalRecordLength * initialSize;
+        this.bufferOps = bufferOps;
+        this.bufferFactory = bufferFactory;
+        buffer = this.bufferFactory.apply(bufferCapacity + DATA_OFFSET);
+        headOffset = DATA_OFFSET;
+        nextWriteOffset = DATA_OFFSET;
+        header = new Header();
+        header.maxRecordLength(maxRecordLength).version(Version.TWO).slotAlignment(Long.BYTES)
+            .byteOrder(bufferOps.byteOrder()).storeKind(StoreKind.APPEND_ONLY)
+            .storeLength(bufferCapacity).nextWriteOffset(nextWriteOffset);
+        header.writeTo(buffer, bufferOps, HEADER_OFFSET);
+    }
+
+    private AppendOnlyStore(
+        final IntFunction<B> bufferFactory, final BufferOps<B> bufferOps,
+        final B existingBuffer, final Header header)
+    {
+        maxRecordLength = header.maxRecordLength();
+        internalRecordLength = header.slotLength();
+        bufferCapacity = header.storeLength();
+        this.bufferOps = bufferOps;
+        this.bufferFactory = bufferFactory;
+        this.header = header;
+        buffer = existingBuffer;
+        headOffset = DATA_OFFSET;
+        nextWriteOffset = header.nextWriteOffset();
+    }
+
+    /**
+     * Loads a store previously written using {@link #writeTo(FileChannel)}.
+     * Files written by a {@link BufferStore} or {@link DirectIndexStore} are rejected.
+     *
+     * @param input         the file to read from
+     * @param bufferOps     provider of operations on the underlying buffer type
+     * @param bufferFactory provider for the underlying buffer type
+     * @param <B>           type of the underlying buffer
+     * @return the loaded store
+     */
+    public static <B> AppendOnlyStore<B> loadFrom(
+        final FileChannel input, final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory)
+    {
+        final SnapshotLoadEvent loadEvent = RecallEvents.beginSnapshotLoad();
+        final Header header = Header.readFrom(input).verifyStoreKind(StoreKind.APPEND_ONLY);
+        final int fileVersion = header.version().getVersionNumber();
+        final long bytesRead = (long)header.headerLength() + header.storeLength();
+        final B buffer = header.readStoreData(input, bufferOps, bufferFactory);
+
+        final AppendOnlyStore<B> store = new AppendOnlyStore<>(bufferFactory, bufferOps, buffer, header);
+        RecallEvents.commitSnapshotLoad(loadEvent, STORE_TYPE, fileVersion, store.size(), bytesRead);
+        return store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> boolean load(final long id, final Decoder<B, T> decoder, final T container)
+    {
+        final int slotOffset = find(id);
+        if (slotOffset == NOT_FOUND)
+        {
+            return false;
+        }
+        decoder.load(buffer, slotOffset + Long.BYTES, container);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the value is not already present, and its identifier is
+     *                                  not greater than that of the last record in the store
+     */
+    @Override
+    public <T> void store(final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        final long valueId = idAccessor.getId(value);
+        final int recordWriteOffset;
+        if (nextWriteOffset != headOffset && valueId <= lastId())
+        {
+            final int slotOffset = find(valueId);
+            if (slotOffset == NOT_FOUND)
+            {
+                throw new IllegalArgumentException(String.format(
+                    "Id %d is not greater than last id %d", valueId, lastId()));
+            }
+            recordWriteOffset = slotOffset + Long.BYTES;
+        }
+        else
+        {
+            if (nextWriteOffset == bufferCapacity + DATA_OFFSET)
+            {
+                ensureCapacity();
+            }
+            bufferOps.writeLong(buffer, nextWriteOffset, valueId);
+            recordWriteOffset = nextWriteOffset + Long.BYTES;
+            nextWriteOffset += internalRecordLength;
+        }
+        try
+        {
+            encoder.store(buffer, recordWriteOffset, value);
+        }
+        catch (final IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException(String.format("Failed to store value with id %d at offset %d",
+                valueId, recordWriteOffset), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        final int slotOffset = find(id);
+        if (slotOffset == NOT_FOUND)
+        {
+            return false;
+        }
+        updater.update(buffer, slotOffset + Long.BYTES);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        return bufferOps.getAndAddLong(buffer, fieldWriteOffset(id, fieldOffset), delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        return bufferOps.compareAndSetLong(buffer, fieldWriteOffset(id, fieldOffset), expectedValue, updateValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the identifier is present, but does not belong to the first record
+     */
+    @Override
+    public boolean remove(final long id)
+    {
+        if (nextWriteOffset == headOffset)
+        {
+            return false;
+        }
+        if (id == firstId())
+        {
+            headOffset += internalRecordLength;
+            return true;
+        }
+        if (find(id) != NOT_FOUND)
+        {
+            throw new IllegalArgumentException("Only the first record can be removed, requested: " + id);
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes all records with an identifier less than the specified value.
+     *
+     * @param id the identifier of the first record to retain
+     * @return the number of records removed
+     */
+    public int truncateTo(final long id)
+    {
+        final int sizeBeforeTruncate = size();
+        headOffset = ceilingOffset(id);
+
+        return sizeBeforeTruncate - size();
+    }
+
+    /**
+     * Returns the identifier of the first record in the store.
+     *
+     * @return the first identifier, or {@link #NO_ID} if the store is empty
+     */
+    public long firstId()
+    {
+        return nextWriteOffset == headOffset ? NO_ID : bufferOps.readLong(buffer, headOffset);
+    }
+
+    /**
+     * Returns the identifier of the last record in the store.
+     *
+     * @return the last identifier, or {@link #NO_ID} if the store is empty
+     */
+    public long lastId()
+    {
+        return nextWriteOffset == headOffset ? NO_ID :
+            bufferOps.readLong(buffer, nextWriteOffset - internalRecordLength);
+    }
+
+    /**
+     * Decodes, in identifier order, each record with an identifier greater than or equal to the specified value.
+     *
+     * @param fromId    the identifier from which to start
+     * @param decoder   the decoder for deserialising
+     * @param container the container to populate with data for each record
+     * @param consumer  the consumer to be passed the container for each record
+     * @param <T>       the type of the container
+     * @return the number of records visited
+     */
+    public <T> int forEach(
+        final long fromId, final Decoder<B, T> decoder, final T container, final Consumer<? super T> consumer)
+    {
+        int count = 0;
+        for (int slotOffset = ceilingOffset(fromId); slotOffset < nextWriteOffset; slotOffset += internalRecordLength)
+        {
+            decoder.load(buffer, slotOffset + Long.BYTES, container);
+            consumer.accept(container);
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Moves records to the start of the buffer, reclaiming space freed by removals.
+     */
+    @Override
+    public void compact()
+    {
+        if (headOffset != DATA_OFFSET)
+        {
+            final CompactionEvent compactionEvent = RecallEvents.beginCompaction();
+            final int length = nextWriteOffset - headOffset;
+            bufferOps.copyBytes(buffer, buffer, headOffset, DATA_OFFSET, length);
+            headOffset = DATA_OFFSET;
+            nextWriteOffset = DATA_OFFSET + length;
+            RecallEvents.commitCompaction(compactionEvent, STORE_TYPE, size(), length);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sync()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Records are moved to the start of the buffer before being written.
+     */
+    @Override
+    public void writeTo(final FileChannel output)
+    {
+        final SnapshotWriteEvent writeEvent = RecallEvents.beginSnapshotWrite();
+        compact();
+        header.nextWriteOffset(nextWriteOffset).recordCount(size()).writeTo(buffer, bufferOps, HEADER_OFFSET);
+
+        bufferOps.storeTo(output, buffer, bufferCapacity + Header.LENGTH);
+        RecallEvents.commitSnapshotWrite(writeEvent, STORE_TYPE, size(), bufferCapacity + Header.LENGTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float utilisation()
+    {
+        return (nextWriteOffset - headOffset) / (float)bufferCapacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return (nextWriteOffset - headOffset) / internalRecordLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        headOffset = DATA_OFFSET;
+        nextWriteOffset = DATA_OFFSET;
+    }
+
+    private int find(final long id)
+    {
+        final int slotCount = size();
+        if (slotCount == 0)
+        {
+            return NOT_FOUND;
+        }
+        final long firstId = firstId();
+        final long slotGuess = id - firstId;
+        if (slotGuess >= 0 && slotGuess < slotCount)
+        {
+            final int guessOffset = headOffset + ((int)slotGuess * internalRecordLength);
+            if (bufferOps.readLong(buffer, guessOffset) == id)
+            {
+                return guessOffset;
+            }
+        }
+        final int slotOffset = ceilingOffset(id);
+
+        return slotOffset < nextWriteOffset && bufferOps.readLong(buffer, slotOffset) == id ? slotOffset : NOT_FOUND;
+    }
+
+    private int ceilingOffset(final long id)
+    {
+        int low = 0;
+        int high = size();
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (bufferOps.readLong(buffer, headOffset + (mid * internalRecordLength)) < id)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        return headOffset + (low * internalRecordLength);
+    }
+
+    private int fieldWriteOffset(final long id, final int fieldOffset)
+    {
+        if (fieldOffset < 0 || fieldOffset > maxRecordLength - Long.BYTES)
+        {
+            throw new IllegalArgumentException("Field offset outside of record: " + fieldOffset);
+        }
+        final int slotOffset = find(id);
+        if (slotOffset == NOT_FOUND)
+        {
+            throw new IllegalArgumentException("Unknown id: " + id);
+        }
+
+        return slotOffset + Long.BYTES + fieldOffset;
+    }
+
+    private void ensureCapacity()
+    {
+        if ((headOffset - DATA_OFFSET) >= bufferCapacity >> 1)
+        {
+            compact();
+            return;
+        }
+        final BufferResizeEvent resizeEvent = RecallEvents.beginBufferResize();
+        final int length = nextWriteOffset - headOffset;
+        final B expandedBuffer = bufferFactory.apply((bufferCapacity << 1) + Header.LENGTH);
+        bufferOps.copyBytes(buffer, expandedBuffer, headOffset, DATA_OFFSET, length);
+        nextWriteOffset = DATA_OFFSET + (nextWriteOffset - headOffset);
+        headOffset = DATA_OFFSET;
+        bufferOps.release(buffer);
+        buffer = expandedBuffer;
+        bufferCapacity <<= 1;
+        header.storeLength(bufferCapacity).writeTo(buffer, bufferOps, HEADER_OFFSET);
+        RecallEvents.commitBufferResize(resizeEvent, STORE_TYPE, bufferCapacity >> 1, bufferCapacity, length);
+    }
+}
@@ -17,8 +17,13 @@
  */
 package com.aitusoftware.recall.store;
 
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
 
 /**
  * Utility class for performing operations on a buffer.
@@ -27,6 +32,19 @@ import java.nio.channels.FileChannel;
  */
 public abstract class BufferOps<T>
 {
+    private final SnapshotWriter snapshotWriter;
+
+    BufferOps()
+    {
+        this(Runnable::run, 1);
+    }
+
+    BufferOps(final Executor snapshotExecutor, final int snapshotWriterCount)
+    {
+        snapshotWriter = new SnapshotWriter(
+            snapshotExecutor, snapshotWriterCount, SnapshotWriter.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
     /**
      * Create a buffer populated with the contents of the supplied file.
      *
@@ -38,7 +56,32 @@ public abstract class BufferOps<T>
     abstract T createFrom(FileChannel fileChannel, int offset, int length);
 
     /**
-     * Store a buffer to the supplied file.
+     * Map a region of the supplied file as a read-only buffer, without copying its contents.
+     * <p>
+     * The mapping remains valid after the file is closed, and shares the page cache with any other
+     * process mapping the same file.
+     *
+     * @param fileChannel input file
+     * @param offset      offset of the region to map
+     * @param length      length of the region
+     * @return a read-only view of the file region
+     */
+    abstract T mapReadOnly(FileChannel fileChannel, long offset, int length);
+
+    /**
+     * Read a region of the supplied file into an existing buffer.
+     *
+     * @param fileChannel  input file
+     * @param filePosition position in the file to start reading from
+     * @param buffer       target buffer
+     * @param bufferOffset offset in the buffer to write to
+     * @param length       length of data
+     */
+    abstract void readFrom(FileChannel fileChannel, long filePosition, T buffer, int bufferOffset, int length);
+
+    /**
+     * Store a buffer to the supplied file, starting at its current position, and leave the file positioned
+     * after the written data.
      *
      * @param fileChannel output file
      * @param buffer      data
@@ -64,6 +107,27 @@ public abstract class BufferOps<T>
      */
     abstract long readLong(T buffer, int offset);
 
+    /**
+     * Atomically add a delta to a long in the specified buffer.
+     *
+     * @param buffer the target buffer
+     * @param offset the offset into the buffer
+     * @param delta  the value to add
+     * @return the value at the specified offset prior to the addition
+     */
+    abstract long getAndAddLong(T buffer, int offset, long delta);
+
+    /**
+     * Atomically set a long in the specified buffer if it holds the expected value.
+     *
+     * @param buffer        the target buffer
+     * @param offset        the offset into the buffer
+     * @param expectedValue the expected current value
+     * @param updateValue   the value to write
+     * @return indicates whether the value was updated
+     */
+    abstract boolean compareAndSetLong(T buffer, int offset, long expectedValue, long updateValue);
+
     /**
      * Write an int to the specified buffer.
      *
@@ -107,6 +171,51 @@ public abstract class BufferOps<T>
      */
     abstract ByteOrder byteOrder();
 
+    /**
+     * Copy bytes from a buffer to an Agrona buffer.
+     *
+     * @param source       source buffer
+     * @param sourceOffset offset in source buffer
+     * @param target       target buffer
+     * @param targetOffset offset in target buffer
+     * @param length       length of data to be copied
+     */
+    abstract void copyTo(T source, int sourceOffset, MutableDirectBuffer target, int targetOffset, int length);
+
+    /**
+     * Copy bytes from an Agrona buffer to a buffer.
+     *
+     * @param source       source buffer
+     * @param sourceOffset offset in source buffer
+     * @param target       target buffer
+     * @param targetOffset offset in target buffer
+     * @param length       length of data to be copied
+     */
+    abstract void copyFrom(DirectBuffer source, int sourceOffset, T target, int targetOffset, int length);
+
+    /**
+     * Write the remaining bytes of a view of a store buffer to the start of the supplied file, without copying.
+     * Large snapshots are written by several threads, according to the writer count of this instance.
+     *
+     * @param fileChannel output file
+     * @param source      view of the data to write
+     */
+    void writeSnapshot(final FileChannel fileChannel, final ByteBuffer source)
+    {
+        snapshotWriter.write(fileChannel, source);
+    }
+
+    /**
+     * Called when a store no longer references a buffer, for example after copying its contents to a larger
+     * buffer. Implementations that own the memory of their buffers may free it; by default, the buffer is left
+     * to the garbage collector.
+     *
+     * @param buffer the buffer that is no longer in use
+     */
+    void release(final T buffer)
+    {
+    }
+
     /**
      * Copy bytes between buffers.
      *
@@ -135,4 +244,13 @@ public abstract class BufferOps<T>
                 readByte(source, sourceOffset + singleByteOffset + j));
         }
     }
-}
\ No newline at end of file
+
+    static void verifyLongAligned(final long address, final int offset)
+    {
+        if ((address & (Long.BYTES - 1)) != 0)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Atomic access to offset %d is not %d-byte aligned", offset, Long.BYTES));
+        }
+    }
+}
@@ -17,37 +17,72 @@
  */
 package com.aitusoftware.recall.store;
 
+import com.aitusoftware.recall.jfr.BufferResizeEvent;
+import com.aitusoftware.recall.jfr.RecallEvents;
+import com.aitusoftware.recall.jfr.SnapshotLoadEvent;
+import com.aitusoftware.recall.jfr.SnapshotWriteEvent;
 import com.aitusoftware.recall.persistence.Decoder;
 import com.aitusoftware.recall.persistence.Encoder;
 import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.BitUtil;
 import org.agrona.collections.Hashing;
 import org.agrona.collections.Long2LongHashMap;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 
 /**
  * Implementation of {@link Store} that serialises data to a buffer of type <code>B</code>.
+ * <p>
+ * The identifier {@link Long#MIN_VALUE} is reserved to mark free slots, and cannot be stored.
+ * <p>
+ * Records can also be accessed by a handle, returned from {@link #storeWithHandle(Encoder, Object, IdAccessor)},
+ * which identifies the record's slot along with a generation that is incremented whenever the slot is vacated.
+ * Access by handle does not require an index lookup, and a handle to a record that has since been removed, or
+ * moved by a {@link SlotMode#COMPACT} store, is rejected. Handles are only valid for the issuing instance.
+ * <p>
+ * A store opened using {@link #openReadOnly(Path, BufferOps)} reads records directly from a read-only mapping
+ * of a snapshot file, and throws {@link UnsupportedOperationException} from any operation that would modify it.
  *
  * @param <B> type of the underlying buffer
  */
 public final class BufferStore<B> implements Store<B>
 {
+    /**
+     * Handle value that never refers to a record.
+     */
+    public static final long INVALID_HANDLE = -1L;
+
     private static final long NOT_IN_MAP = Long.MIN_VALUE;
+    static final long FREE_SLOT_ID = Long.MIN_VALUE;
+    private static final int NO_FREE_SLOT = -1;
+    private static final int NO_SLOT = -1;
+    private static final String STORE_TYPE = "BufferStore";
     private static final int DATA_OFFSET = Header.LENGTH;
     private static final int HEADER_OFFSET = 0;
     private final Long2LongHashMap index;
+    private final int maxRecordLength;
     private final int internalRecordLength;
     private final BufferOps<B> bufferOps;
     private final IntFunction<B> bufferFactory;
     private final Header header;
+    private final SlotMode slotMode;
+    private final boolean readOnly;
+    private MutationListener<B> mutationListener;
+    private StoreCounters counters;
     private int bufferCapacity;
     private B buffer;
     private int nextWriteOffset;
     private int size;
+    private int freeSlotHead = NO_FREE_SLOT;
+    private int[] generations;
 
     /**
      * Constructor for the BufferStore.
@@ -62,14 +97,71 @@ public final class BufferStore<B> implements Store<B>
         final IntFunction<B> bufferFactory,
         final BufferOps<B> bufferOps)
     {
-        internalRecordLength = maxRecordLength + Long.BYTES;
+        this(maxRecordLength, initialSize, bufferFactory, bufferOps, SlotMode.COMPACT);
+    }
+
+    /**
+     * Constructor for the BufferStore.
+     *
+     * @param maxRecordLength max length of any record
+     * @param initialSize     initial number of records that need to be stored
+     * @param bufferFactory   provider for the underlying buffer type
+     * @param bufferOps       provider of operations on the underlying buffer type
+     * @param slotMode        determines how space used by removed records is reclaimed
+     */
+    public BufferStore(
+        final int maxRecordLength, final int initialSize,
+        final IntFunction<B> bufferFactory,
+        final BufferOps<B> bufferOps,
+        final SlotMode slotMode)
+    {
+        this(maxRecordLength, initialSize, bufferFactory, bufferOps, slotMode, 1);
+    }
+
+    /**
+     * Constructor for the BufferStore.
+     * <p>
+     * The length of each slot, comprising the record and its identifier, is rounded up to a multiple of
+     * <code>slotAlignment</code>, and always to a multiple of 8 so that every <code>long</code> field at an
+     * 8-byte aligned offset within a record can be updated atomically. When used with a buffer factory that
+     * aligns the first slot, such as an {@link AlignedBufferFactory}, an alignment of 64 ensures that records do not needlessly span cache lines.
+     *
+     * @param maxRecordLength max length of any record
+     * @param initialSize     initial number of records that need to be stored
+     * @param bufferFactory   provider for the underlying buffer type
+     * @param bufferOps       provider of operations on the underlying buffer type
+     * @param slotMode        determines how space used by removed records is reclaimed
+     * @param slotAlignment   alignment of record slots, which must be a power of two
+     */
+    public BufferStore(
+        final int maxRecordLength, final int initialSize,
+        final IntFunction<B> bufferFactory,
+        final BufferOps<B> bufferOps,
+        final SlotMode slotMode,
+        final int slotAlignment)
+    {
+        if (!BitUtil.isPowerOfTwo(slotAlignment))
+        {
+            throw new IllegalArgumentException("Slot alignment must be a power of two: " + slotAlignment);
+        }
+        if (slotMode == SlotMode.STABLE && maxRecordLength < Integer.BYTES)
+        {
+            throw new IllegalArgumentException("Stable slots require a record length of at least " + Integer.BYTES);
+        }
+        this.slotMode = slotMode;
+        readOnly = false;
+        final int effectiveSlotAlignment = Math.max(slotAlignment, Long.BYTES);
+        this.maxRecordLength = maxRecordLength;
+        internalRecordLength = BitUtil.align(maxRecordLength + Long.BYTES, effectiveSlotAlignment);
         bufferCapacity = internalRecordLength * initialSize;
         this.bufferOps = bufferOps;
         this.bufferFactory = bufferFactory;
         buffer = this.bufferFactory.apply(bufferCapacity + DATA_OFFSET);
+        generations = new int[initialSize];
         nextWriteOffset = DATA_OFFSET;
         header = new Header();
-        header.maxRecordLength(maxRecordLength).version(Version.ONE)
+        header.maxRecordLength(maxRecordLength).version(Version.TWO)
+            .slotAlignment(effectiveSlotAlignment).byteOrder(bufferOps.byteOrder())
             .storeLength(bufferCapacity).nextWriteOffset(nextWriteOffset);
         header.writeTo(buffer, bufferOps, HEADER_OFFSET);
         index = new Long2LongHashMap(initialSize, Hashing.DEFAULT_LOAD_FACTOR, NOT_IN_MAP);
@@ -77,47 +169,129 @@ public final class BufferStore<B> implements Store<B>
 
     private BufferStore(
         final IntFunction<B> bufferFactory, final BufferOps<B> bufferOps,
-        final B existingBuffer, final Header header)
+        final B existingBuffer, final Header header, final SlotMode slotMode, final boolean readOnly)
     {
-        internalRecordLength = header.maxRecordLength() + Long.BYTES;
+        this.slotMode = slotMode;
+        this.readOnly = readOnly;
+        maxRecordLength = header.maxRecordLength();
+        internalRecordLength = header.slotLength();
         bufferCapacity = header.storeLength();
         this.bufferOps = bufferOps;
         this.bufferFactory = bufferFactory;
         buffer = existingBuffer;
+        generations = new int[bufferCapacity / internalRecordLength];
         this.nextWriteOffset = header.nextWriteOffset();
         this.header = header;
-        final int numberOfRecords = nextWriteOffset / internalRecordLength;
-        index = new Long2LongHashMap(numberOfRecords, Hashing.DEFAULT_LOAD_FACTOR, NOT_IN_MAP);
-        for (int i = 0; i < numberOfRecords; i++)
+        final int numberOfSlots = (nextWriteOffset - DATA_OFFSET) / internalRecordLength;
+        final int recordCount = header.recordCount();
+        index = new Long2LongHashMap(
+            recordCount == Header.UNKNOWN_RECORD_COUNT ? numberOfSlots : recordCount,
+            Hashing.DEFAULT_LOAD_FACTOR, NOT_IN_MAP);
+        if (recordCount == numberOfSlots)
+        {
+            for (int entryOffset = DATA_OFFSET; entryOffset < nextWriteOffset; entryOffset += internalRecordLength)
+            {
+                index.put(bufferOps.readLong(buffer, entryOffset), entryOffset);
+            }
+            size = recordCount;
+            return;
+        }
+        int entryOffset = DATA_OFFSET;
+        while (entryOffset < this.nextWriteOffset)
         {
-            final int entryOffset = (i * internalRecordLength) + DATA_OFFSET;
             final long id = bufferOps.readLong(buffer, entryOffset);
-            index.put(id, entryOffset);
+            if (id != FREE_SLOT_ID)
+            {
+                index.put(id, entryOffset);
+                entryOffset += internalRecordLength;
+            }
+            else if (readOnly)
+            {
+                entryOffset += internalRecordLength;
+            }
+            else if (slotMode == SlotMode.STABLE)
+            {
+                releaseSlot(entryOffset);
+                entryOffset += internalRecordLength;
+            }
+            else
+            {
+                this.nextWriteOffset -= internalRecordLength;
+                if (entryOffset != this.nextWriteOffset)
+                {
+                    moveRecord(entryOffset, this.nextWriteOffset);
+                }
+            }
         }
+        size = index.size();
     }
 
     public static <B> BufferStore<B> loadFrom(
         final FileChannel input, final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory)
     {
-        final ByteBuffer headerBuffer = ByteBuffer.allocateDirect(Header.LENGTH);
-        try
+        return loadFrom(input, bufferOps, bufferFactory, SlotMode.COMPACT);
+    }
+
+    /**
+     * Loads a store previously written using {@link #writeTo(FileChannel)}.
+     * <p>
+     * Free slots in the persisted data are reused by a store using {@link SlotMode#STABLE},
+     * and are filled by moving records when using {@link SlotMode#COMPACT}.
+     * Files written by an {@link AppendOnlyStore} or {@link DirectIndexStore} are rejected.
+     *
+     * @param input         the file to read from
+     * @param bufferOps     provider of operations on the underlying buffer type
+     * @param bufferFactory provider for the underlying buffer type
+     * @param slotMode      determines how space used by removed records is reclaimed
+     * @param <B>           type of the underlying buffer
+     * @return the loaded store
+     */
+    public static <B> BufferStore<B> loadFrom(
+        final FileChannel input, final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory,
+        final SlotMode slotMode)
+    {
+        final SnapshotLoadEvent loadEvent = RecallEvents.beginSnapshotLoad();
+        final Header header = Header.readFrom(input).verifyStoreKind(StoreKind.SLOTTED);
+        final int fileVersion = header.version().getVersionNumber();
+        final long bytesRead = (long)header.headerLength() + header.storeLength();
+
+        final B buffer = header.readStoreData(input, bufferOps, bufferFactory);
+        final BufferStore<B> store = new BufferStore<>(bufferFactory, bufferOps, buffer, header, slotMode, false);
+        RecallEvents.commitSnapshotLoad(loadEvent, STORE_TYPE, fileVersion, store.size, bytesRead);
+        return store;
+    }
+
+    /**
+     * Opens a store previously written using {@link #writeTo(FileChannel)}, without copying its data.
+     * <p>
+     * The file is mapped read-only, so records are paged in on first access, and the page cache is shared
+     * between all processes that open the same file. The returned store cannot be modified; only the index
+     * of record identifiers is built on the heap.
+     * <p>
+     * The file must have been written in the byte order of <code>bufferOps</code>, with a version two header;
+     * older files can be upgraded using {@link StoreMigrator}. The file must not be modified while it is open.
+     *
+     * @param path      the file to map
+     * @param bufferOps provider of operations on the underlying buffer type
+     * @param <B>       type of the underlying buffer
+     * @return a read-only view of the stored records
+     */
+    public static <B> BufferStore<B> openReadOnly(final Path path, final BufferOps<B> bufferOps)
+    {
+        final SnapshotLoadEvent loadEvent = RecallEvents.beginSnapshotLoad();
+        try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ))
         {
-            input.position(0);
-            while (headerBuffer.remaining() != 0)
-            {
-                input.read(headerBuffer);
-            }
+            final Header header = Header.readFrom(input).verifyStoreKind(StoreKind.SLOTTED);
+            final B buffer = header.mapStoreData(input, bufferOps);
+            final BufferStore<B> store = new BufferStore<>(null, bufferOps, buffer, header, SlotMode.STABLE, true);
+            RecallEvents.commitSnapshotLoad(loadEvent, STORE_TYPE, header.version().getVersionNumber(), store.size,
+                (long)Header.LENGTH + header.storeLength());
+            return store;
         }
         catch (final IOException e)
         {
             throw new UncheckedIOException(e);
         }
-        headerBuffer.flip();
-        final Header header = new Header();
-        header.readFrom(headerBuffer);
-
-        final B buffer = bufferOps.createFrom(input, 0, header.storeLength() + Header.LENGTH);
-        return new BufferStore<>(bufferFactory, bufferOps, buffer, header);
     }
 
     /**
@@ -130,8 +304,16 @@ public final class BufferStore<B> implements Store<B>
         final long recordOffset = index.get(id);
         if (recordOffset == NOT_IN_MAP)
         {
+            if (counters != null)
+            {
+                counters.onMiss();
+            }
             return false;
         }
+        if (counters != null)
+        {
+            counters.onHit();
+        }
         final long storedId = bufferOps.readLong(buffer, (int)recordOffset);
         assert storedId == id : String.format("stored: %d, requested: %d, at %d", storedId, id, recordOffset);
         decoder.load(buffer, (int)recordOffset + Long.BYTES, container);
@@ -146,31 +328,102 @@ public final class BufferStore<B> implements Store<B>
     public <T> void store(
         final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
     {
-        final long valueId = idAccessor.getId(value);
+        storeRecord(encoder, value, idAccessor);
+    }
 
-        if (nextWriteOffset == bufferCapacity + DATA_OFFSET)
+    /**
+     * Stores a value, returning a handle that can be used to access the stored record.
+     *
+     * @param encoder    the encoder to use for serialisation
+     * @param value      the value to store
+     * @param idAccessor the accessor for the value's identifier
+     * @param <T>        the type of the value
+     * @return a handle to the stored record
+     */
+    public <T> long storeWithHandle(
+        final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        return handleAt(storeRecord(encoder, value, idAccessor));
+    }
+
+    /**
+     * Returns a handle to the record belonging to the specified identifier.
+     *
+     * @param id the identifier of the record
+     * @return a handle to the record, or {@link #INVALID_HANDLE} if the identifier is not present
+     */
+    public long handleOf(final long id)
+    {
+        final long recordOffset = index.get(id);
+        return recordOffset == NOT_IN_MAP ? INVALID_HANDLE : handleAt((int)recordOffset);
+    }
+
+    /**
+     * Loads the record referred to by the specified handle.
+     *
+     * @param handle    a handle returned from this store
+     * @param decoder   the decoder to use for deserialisation
+     * @param container the container to populate with data
+     * @param <T>       the type of the container
+     * @return indicates whether the handle refers to a record
+     */
+    public <T> boolean loadByHandle(final long handle, final Decoder<B, T> decoder, final T container)
+    {
+        final int recordOffset = offsetOf(handle);
+        if (recordOffset == NO_SLOT)
         {
-            final B expandedBuffer = bufferFactory.apply((bufferCapacity << 1) + Header.LENGTH);
-            bufferOps.copyBytes(buffer, expandedBuffer, DATA_OFFSET, DATA_OFFSET, bufferCapacity);
-            buffer = expandedBuffer;
-            bufferCapacity <<= 1;
-            header.storeLength(bufferCapacity).writeTo(buffer, bufferOps, HEADER_OFFSET);
+            if (counters != null)
+            {
+                counters.onMiss();
+            }
+            return false;
+        }
+        if (counters != null)
+        {
+            counters.onHit();
+        }
+        decoder.load(buffer, recordOffset + Long.BYTES, container);
+
+        return true;
+    }
+
+    /**
+     * Removes the record referred to by the specified handle.
+     *
+     * @param handle a handle returned from this store
+     * @return indicates whether the handle referred to a record
+     */
+    public boolean removeByHandle(final long handle)
+    {
+        checkWritable();
+        final int recordOffset = offsetOf(handle);
+        return recordOffset != NO_SLOT && remove(bufferOps.readLong(buffer, recordOffset));
+    }
+
+    private <T> int storeRecord(
+        final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        checkWritable();
+        final long valueId = idAccessor.getId(value);
+        if (valueId == FREE_SLOT_ID)
+        {
+            throw new IllegalArgumentException("Reserved id: " + valueId);
         }
 
         final long existingPosition = index.get(valueId);
-        final int recordWriteOffset;
+        final int slotOffset;
         if (existingPosition != NOT_IN_MAP)
         {
-            recordWriteOffset = (int)existingPosition + Long.BYTES;
+            slotOffset = (int)existingPosition;
         }
         else
         {
-            index.put(valueId, nextWriteOffset);
-            bufferOps.writeLong(buffer, nextWriteOffset, valueId);
-            recordWriteOffset = nextWriteOffset + Long.BYTES;
-            nextWriteOffset += internalRecordLength;
+            slotOffset = claimSlot();
+            index.put(valueId, slotOffset);
+            bufferOps.writeLong(buffer, slotOffset, valueId);
             size++;
         }
+        final int recordWriteOffset = slotOffset + Long.BYTES;
         try
         {
             encoder.store(this.buffer, recordWriteOffset, value);
@@ -180,6 +433,121 @@ public final class BufferStore<B> implements Store<B>
             throw new IllegalArgumentException(String.format("Failed to store value with id %d at offset %d",
                 valueId, recordWriteOffset), e);
         }
+
+        if (mutationListener != null)
+        {
+            mutationListener.onStore(valueId, buffer, recordWriteOffset, maxRecordLength);
+        }
+        if (counters != null)
+        {
+            counters.onStore();
+        }
+        return slotOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Since the modified region of the record is unknown, the whole record is published to a
+     * {@link MutationListener}; use {@link #update(long, int, int, RecordUpdater)} to publish only the change.
+     */
+    @Override
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        checkWritable();
+        final long recordOffset = index.get(id);
+        if (recordOffset == NOT_IN_MAP)
+        {
+            return false;
+        }
+        final int recordWriteOffset = (int)recordOffset + Long.BYTES;
+        updater.update(buffer, recordWriteOffset);
+
+        if (mutationListener != null)
+        {
+            mutationListener.onStore(id, buffer, recordWriteOffset, maxRecordLength);
+        }
+        return true;
+    }
+
+    /**
+     * Modifies a region of the stored value belonging to the specified identifier in place.
+     * <p>
+     * The updater is passed the offset of the whole record, and must only modify the bytes between
+     * <code>fieldOffset</code> and <code>fieldOffset + length</code>. Only that region is published to a
+     * {@link MutationListener}, so the cost of replicating an update matches the size of the change.
+     *
+     * @param id          the identifier of the value to update
+     * @param fieldOffset the offset of the modified region within the encoded value
+     * @param length      the length of the modified region
+     * @param updater     the function that will modify the encoded value
+     * @return indicates whether the identifier was found in the store
+     * @throws IllegalArgumentException if the region is outside the record
+     */
+    public boolean update(final long id, final int fieldOffset, final int length, final RecordUpdater<B> updater)
+    {
+        checkWritable();
+        if (fieldOffset < 0 || length < 0 || fieldOffset > maxRecordLength - length)
+        {
+            throw new IllegalArgumentException(
+                String.format("Region outside of record: offset %d, length %d", fieldOffset, length));
+        }
+        final long recordOffset = index.get(id);
+        if (recordOffset == NOT_IN_MAP)
+        {
+            return false;
+        }
+        final int recordWriteOffset = (int)recordOffset + Long.BYTES;
+        updater.update(buffer, recordWriteOffset);
+
+        if (mutationListener != null)
+        {
+            mutationListener.onUpdate(id, buffer, recordWriteOffset + fieldOffset, fieldOffset, length);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Atomic operations may be performed concurrently with each other and with loads, but not
+     * with any other mutation of the store. Each addition is reported to a {@link MutationListener} as an
+     * update of the field; since listeners are not thread-safe, atomic operations must be confined to a
+     * single thread while a listener is registered.
+     */
+    @Override
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        checkWritable();
+        final int fieldWriteOffset = fieldWriteOffset(id, fieldOffset);
+        final long previousValue = bufferOps.getAndAddLong(buffer, fieldWriteOffset, delta);
+        if (mutationListener != null)
+        {
+            mutationListener.onUpdate(id, buffer, fieldWriteOffset, fieldOffset, Long.BYTES);
+        }
+        return previousValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Atomic operations may be performed concurrently with each other and with loads, but not
+     * with any other mutation of the store. A successful update is reported to a {@link MutationListener};
+     * since listeners are not thread-safe, atomic operations must be confined to a single thread while a
+     * listener is registered.
+     */
+    @Override
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        checkWritable();
+        final int fieldWriteOffset = fieldWriteOffset(id, fieldOffset);
+        final boolean updated = bufferOps.compareAndSetLong(buffer, fieldWriteOffset, expectedValue, updateValue);
+        if (updated && mutationListener != null)
+        {
+            mutationListener.onUpdate(id, buffer, fieldWriteOffset, fieldOffset, Long.BYTES);
+        }
+        return updated;
     }
 
     /**
@@ -188,12 +556,29 @@ public final class BufferStore<B> implements Store<B>
     @Override
     public boolean remove(final long id)
     {
+        checkWritable();
         final long writeOffset = index.remove(id);
         final boolean wasRemoved = writeOffset != NOT_IN_MAP;
         if (wasRemoved)
         {
-            moveLastWrittenEntryTo(id, writeOffset);
+            generations[slotIndex((int)writeOffset)]++;
+            if (slotMode == SlotMode.STABLE)
+            {
+                releaseSlot((int)writeOffset);
+            }
+            else
+            {
+                moveLastWrittenEntryTo(id, writeOffset);
+            }
             size--;
+            if (mutationListener != null)
+            {
+                mutationListener.onRemove(id);
+            }
+            if (counters != null)
+            {
+                counters.onRemove();
+            }
         }
         return wasRemoved;
     }
@@ -222,9 +607,14 @@ public final class BufferStore<B> implements Store<B>
     @Override
     public void writeTo(final FileChannel output)
     {
-        header.nextWriteOffset(nextWriteOffset).writeTo(buffer, bufferOps, HEADER_OFFSET);
+        final SnapshotWriteEvent writeEvent = RecallEvents.beginSnapshotWrite();
+        if (!readOnly)
+        {
+            header.nextWriteOffset(nextWriteOffset).recordCount(size).writeTo(buffer, bufferOps, HEADER_OFFSET);
+        }
 
         bufferOps.storeTo(output, buffer, bufferCapacity + Header.LENGTH);
+        RecallEvents.commitSnapshotWrite(writeEvent, STORE_TYPE, size, bufferCapacity + Header.LENGTH);
     }
 
     /**
@@ -233,7 +623,7 @@ public final class BufferStore<B> implements Store<B>
     @Override
     public float utilisation()
     {
-        return (nextWriteOffset - Header.LENGTH) / (float)bufferCapacity;
+        return (size * (long)internalRecordLength) / (float)bufferCapacity;
     }
 
     /**
@@ -251,9 +641,39 @@ public final class BufferStore<B> implements Store<B>
     @Override
     public void clear()
     {
+        checkWritable();
+        for (int i = slotIndex(nextWriteOffset) - 1; i >= 0; i--)
+        {
+            generations[i]++;
+        }
         nextWriteOffset = DATA_OFFSET;
+        freeSlotHead = NO_FREE_SLOT;
         index.clear();
         size = 0;
+        if (mutationListener != null)
+        {
+            mutationListener.onClear();
+        }
+    }
+
+    /**
+     * Registers a listener to be notified of every subsequent mutation of this store.
+     *
+     * @param mutationListener the listener, or {@code null} to remove an existing listener
+     */
+    public void mutationListener(final MutationListener<B> mutationListener)
+    {
+        this.mutationListener = mutationListener;
+    }
+
+    /**
+     * Registers counters to be updated by subsequent operations on this store.
+     *
+     * @param counters the counters, or {@code null} to remove existing counters
+     */
+    public void counters(final StoreCounters counters)
+    {
+        this.counters = counters;
     }
 
     int nextWriteOffset()
@@ -261,6 +681,76 @@ public final class BufferStore<B> implements Store<B>
         return nextWriteOffset;
     }
 
+    void forEachId(final LongConsumer consumer)
+    {
+        final Long2LongHashMap.KeyIterator iterator = index.keySet().iterator();
+        while (iterator.hasNext())
+        {
+            consumer.accept(iterator.nextValue());
+        }
+    }
+
+    private void checkWritable()
+    {
+        if (readOnly)
+        {
+            throw new UnsupportedOperationException("Store is read-only");
+        }
+    }
+
+    private int fieldWriteOffset(final long id, final int fieldOffset)
+    {
+        if (fieldOffset < 0 || fieldOffset > maxRecordLength - Long.BYTES)
+        {
+            throw new IllegalArgumentException("Field offset outside of record: " + fieldOffset);
+        }
+        final long recordOffset = index.get(id);
+        if (recordOffset == NOT_IN_MAP)
+        {
+            throw new IllegalArgumentException("Unknown id: " + id);
+        }
+
+        return (int)recordOffset + Long.BYTES + fieldOffset;
+    }
+
+    private int claimSlot()
+    {
+        if (freeSlotHead != NO_FREE_SLOT)
+        {
+            final int slotOffset = freeSlotHead;
+            freeSlotHead = bufferOps.readInt(buffer, slotOffset + Long.BYTES);
+            return slotOffset;
+        }
+
+        if (nextWriteOffset == bufferCapacity + DATA_OFFSET)
+        {
+            final BufferResizeEvent resizeEvent = RecallEvents.beginBufferResize();
+            final B expandedBuffer = bufferFactory.apply((bufferCapacity << 1) + Header.LENGTH);
+            bufferOps.copyBytes(buffer, expandedBuffer, DATA_OFFSET, DATA_OFFSET, bufferCapacity);
+            bufferOps.release(buffer);
+            buffer = expandedBuffer;
+            bufferCapacity <<= 1;
+            header.storeLength(bufferCapacity).writeTo(buffer, bufferOps, HEADER_OFFSET);
+            generations = Arrays.copyOf(generations, bufferCapacity / internalRecordLength);
+            RecallEvents.commitBufferResize(
+                resizeEvent, STORE_TYPE, bufferCapacity >> 1, bufferCapacity, bufferCapacity >> 1);
+            if (counters != null)
+            {
+                counters.onResize();
+            }
+        }
+        final int slotOffset = nextWriteOffset;
+        nextWriteOffset += internalRecordLength;
+        return slotOffset;
+    }
+
+    private void releaseSlot(final int slotOffset)
+    {
+        bufferOps.writeLong(buffer, slotOffset, FREE_SLOT_ID);
+        bufferOps.writeInt(buffer, slotOffset + Long.BYTES, freeSlotHead);
+        freeSlotHead = slotOffset;
+    }
+
     private void moveLastWrittenEntryTo(final long id, final long writeOffset)
     {
         final int sourcePosition = nextWriteOffset - internalRecordLength;
@@ -269,11 +759,33 @@ public final class BufferStore<B> implements Store<B>
         {
             moveRecord((int)writeOffset, sourcePosition);
             index.put(retrievedId, writeOffset);
+            generations[slotIndex(sourcePosition)]++;
         }
 
         nextWriteOffset -= internalRecordLength;
     }
 
+    private long handleAt(final int slotOffset)
+    {
+        final int slotIndex = slotIndex(slotOffset);
+        return ((long)generations[slotIndex] << 32) | slotIndex;
+    }
+
+    private int offsetOf(final long handle)
+    {
+        final int slotIndex = (int)handle;
+        if (slotIndex < 0 || slotIndex >= slotIndex(nextWriteOffset) || generations[slotIndex] != (int)(handle >>> 32))
+        {
+            return NO_SLOT;
+        }
+        return DATA_OFFSET + (slotIndex * internalRecordLength);
+    }
+
+    private int slotIndex(final int slotOffset)
+    {
+        return (slotOffset - DATA_OFFSET) / internalRecordLength;
+    }
+
     private void moveRecord(final int targetPosition, final int sourcePosition)
     {
         bufferOps.copyBytes(buffer, buffer, sourcePosition, targetPosition, internalRecordLength);
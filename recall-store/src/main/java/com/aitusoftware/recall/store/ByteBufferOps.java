@@ -17,17 +17,47 @@
  */
 package com.aitusoftware.recall.store;
 
+import org.agrona.BufferUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
 
 /**
  * Utility class for performing operations on an {@link ByteBuffer}.
  */
 public final class ByteBufferOps extends BufferOps<ByteBuffer>
 {
+    private static final boolean NATIVE_BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    /**
+     * Constructor for an instance that writes snapshots using the calling thread.
+     */
+    public ByteBufferOps()
+    {
+    }
+
+    /**
+     * Constructor for an instance that writes large snapshots in several ranges concurrently. The calling
+     * thread writes the first range, and the others are written by tasks submitted to
+     * <code>snapshotExecutor</code>, which remains owned by the caller.
+     *
+     * @param snapshotExecutor    executor used to write all but the first range of a snapshot
+     * @param snapshotWriterCount the maximum number of ranges written concurrently
+     */
+    public ByteBufferOps(final Executor snapshotExecutor, final int snapshotWriterCount)
+    {
+        super(snapshotExecutor, snapshotWriterCount);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -55,21 +85,57 @@ public final class ByteBufferOps extends BufferOps<ByteBuffer>
      * {@inheritDoc}
      */
     @Override
-    void storeTo(final FileChannel fileChannel, final ByteBuffer buffer, final int length)
+    ByteBuffer mapReadOnly(final FileChannel fileChannel, final long offset, final int length)
     {
-        int lengthRemaining = length;
-        buffer.position(0).limit(length);
-        while (lengthRemaining != 0)
+        try
         {
-            try
-            {
-                lengthRemaining -= fileChannel.write(buffer);
-            }
-            catch (final IOException e)
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void readFrom(
+        final FileChannel fileChannel, final long filePosition,
+        final ByteBuffer buffer, final int bufferOffset, final int length)
+    {
+        final ByteBuffer target = buffer.duplicate();
+        target.limit(bufferOffset + length);
+        target.position(bufferOffset);
+        try
+        {
+            fileChannel.position(filePosition);
+            while (target.remaining() != 0)
             {
-                throw new UncheckedIOException(e);
+                if (fileChannel.read(target) < 0)
+                {
+                    throw new EOFException(
+                        "Unexpected end of file at " + (filePosition + target.position() - bufferOffset));
+                }
             }
         }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void storeTo(final FileChannel fileChannel, final ByteBuffer buffer, final int length)
+    {
+        final ByteBuffer source = buffer.duplicate();
+        source.limit(length);
+        source.position(0);
+        writeSnapshot(fileChannel, source);
     }
 
     /**
@@ -90,6 +156,47 @@ public final class ByteBufferOps extends BufferOps<ByteBuffer>
         return buffer.getLong(offset);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    long getAndAddLong(final ByteBuffer buffer, final int offset, final long delta)
+    {
+        long value;
+        do
+        {
+            value = buffer.getLong(offset);
+        }
+        while (!compareAndSetLong(buffer, offset, value, value + delta));
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean compareAndSetLong(
+        final ByteBuffer buffer, final int offset, final long expectedValue, final long updateValue)
+    {
+        BufferUtil.boundsCheck(buffer, offset, Long.BYTES);
+        final Object base;
+        final long address;
+        if (buffer.isDirect())
+        {
+            base = null;
+            address = BufferUtil.address(buffer) + offset;
+        }
+        else
+        {
+            base = buffer.array();
+            address = BufferUtil.ARRAY_BASE_OFFSET + buffer.arrayOffset() + offset;
+        }
+        verifyLongAligned(address, offset);
+
+        return UNSAFE.compareAndSwapLong(base, address, toNativeOrder(expectedValue), toNativeOrder(updateValue));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -126,6 +233,28 @@ public final class ByteBufferOps extends BufferOps<ByteBuffer>
         return buffer.get(offset);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void copyTo(
+        final ByteBuffer source, final int sourceOffset,
+        final MutableDirectBuffer target, final int targetOffset, final int length)
+    {
+        target.putBytes(targetOffset, source, sourceOffset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void copyFrom(
+        final DirectBuffer source, final int sourceOffset,
+        final ByteBuffer target, final int targetOffset, final int length)
+    {
+        source.getBytes(sourceOffset, target, targetOffset, length);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -134,4 +263,9 @@ public final class ByteBufferOps extends BufferOps<ByteBuffer>
     {
         return ByteOrder.BIG_ENDIAN;
     }
+
+    private static long toNativeOrder(final long bigEndianValue)
+    {
+        return NATIVE_BIG_ENDIAN ? bigEndianValue : Long.reverseBytes(bigEndianValue);
+    }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.BitUtil;
+
+import java.nio.channels.FileChannel;
+import java.util.function.IntFunction;
+
+/**
+ * Implementation of {@link Store} for identifiers in a fixed, dense range.
+ * <p>
+ * The record with identifier <code>id</code> is held in slot <code>id - baseId</code>, and membership
+ * is tracked in a presence bitmap held in the same buffer, so no index is required either when
+ * reading a record, or when loading a store from a file.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public final class DirectIndexStore<B> implements Store<B>
+{
+    private static final int HEADER_OFFSET = 0;
+    private static final int BASE_ID_OFFSET = Header.LENGTH;
+    private static final int SLOT_COUNT_OFFSET = BASE_ID_OFFSET + Long.BYTES;
+    private static final int BITMAP_OFFSET = SLOT_COUNT_OFFSET + Long.BYTES;
+    private final BufferOps<B> bufferOps;
+    private final Header header;
+    private final B buffer;
+    private final long baseId;
+    private final int slotCount;
+    private final int maxRecordLength;
+    private final int slotLength;
+    private final int dataOffset;
+    private int size;
+
+    /**
+     * Constructor for the DirectIndexStore.
+     * <p>
+     * Records are held in slots of <code>maxRecordLength</code> rounded up to a multiple of 8 bytes.
+     *
+     * @param baseId          the lowest identifier that can be stored
+     * @param slotCount       the number of identifiers, starting at <code>baseId</code>, that can be stored
+     * @param maxRecordLength max length of any record
+     * @param bufferFactory   provider for the underlying buffer type
+     * @param bufferOps       provider of operations on the underlying buffer type
+     */
+    public DirectIndexStore(
+        final long baseId, final int slotCount, final int maxRecordLength,
+        final IntFunction<B> bufferFactory, final BufferOps<B> bufferOps)
+    {
+        if (slotCount <= 0)
+        {
+            throw new IllegalArgumentException("Slot count must be positive: " + slotCount);
+        }
+        this.bufferOps = bufferOps;
+        this.baseId = baseId;
+        this.slotCount = slotCount;
+        this.maxRecordLength = maxRecordLength;
+        slotLength = BitUtil.align(maxRecordLength, Long.BYTES);
+        dataOffset = BITMAP_OFFSET + bitmapLength(slotCount);
+        final long storeLength = (long)slotCount * slotLength + dataOffset;
+        if (storeLength > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Store length exceeds maximum buffer size: " + storeLength);
+        }
+        buffer = bufferFactory.apply((int)storeLength);
+        header = new Header();
+        header.maxRecordLength(maxRecordLength).version(Version.TWO).slotAlignment(Long.BYTES)
+            .byteOrder(bufferOps.byteOrder())
+            .storeKind(StoreKind.DIRECT_INDEX).storeLength((int)storeLength - Header.LENGTH)
+            .nextWriteOffset((int)storeLength);
+        header.writeTo(buffer, bufferOps, HEADER_OFFSET);
+        bufferOps.writeLong(buffer, BASE_ID_OFFSET, baseId);
+        bufferOps.writeInt(buffer, SLOT_COUNT_OFFSET, slotCount);
+        clearBitmap();
+    }
+
+    private DirectIndexStore(final BufferOps<B> bufferOps, final B existingBuffer, final Header header)
+    {
+        this.bufferOps = bufferOps;
+        this.header = header;
+        buffer = existingBuffer;
+        maxRecordLength = header.maxRecordLength();
+        slotLength = BitUtil.align(maxRecordLength, header.slotAlignment());
+        baseId = bufferOps.readLong(buffer, BASE_ID_OFFSET);
+        slotCount = bufferOps.readInt(buffer, SLOT_COUNT_OFFSET);
+        size = header.recordCount();
+        dataOffset = BITMAP_OFFSET + bitmapLength(slotCount);
+    }
+
+    /**
+     * Loads a store previously written using {@link #writeTo(FileChannel)}.
+     * Files written by a {@link BufferStore} or {@link AppendOnlyStore} are rejected.
+     *
+     * @param input         the file to read from
+     * @param bufferOps     provider of operations on the underlying buffer type
+     * @param bufferFactory provider for the underlying buffer type
+     * @param <B>           type of the underlying buffer
+     * @return the loaded store
+     */
+    public static <B> DirectIndexStore<B> loadFrom(
+        final FileChannel input, final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory)
+    {
+        final Header header = Header.readFrom(input).verifyStoreKind(StoreKind.DIRECT_INDEX);
+        final B buffer = header.readStoreData(input, bufferOps, bufferFactory);
+
+        return new DirectIndexStore<>(bufferOps, buffer, header);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> boolean load(final long id, final Decoder<B, T> decoder, final T container)
+    {
+        final long slot = id - baseId;
+        if (!isInRange(slot) || !isPresent((int)slot))
+        {
+            return false;
+        }
+        decoder.load(buffer, recordOffset((int)slot), container);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the identifier is outside of the range of this store
+     */
+    @Override
+    public <T> void store(final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        final long valueId = idAccessor.getId(value);
+        final long slot = valueId - baseId;
+        if (!isInRange(slot))
+        {
+            throw new IllegalArgumentException("Id outside of store range: " + valueId);
+        }
+        final int recordWriteOffset = recordOffset((int)slot);
+        try
+        {
+            encoder.store(buffer, recordWriteOffset, value);
+        }
+        catch (final IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException(String.format("Failed to store value with id %d at offset %d",
+                valueId, recordWriteOffset), e);
+        }
+        if (!isPresent((int)slot))
+        {
+            setPresent((int)slot, true);
+            size++;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        final long slot = id - baseId;
+        if (!isInRange(slot) || !isPresent((int)slot))
+        {
+            return false;
+        }
+        updater.update(buffer, recordOffset((int)slot));
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        return bufferOps.getAndAddLong(buffer, fieldWriteOffset(id, fieldOffset), delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        return bufferOps.compareAndSetLong(buffer, fieldWriteOffset(id, fieldOffset), expectedValue, updateValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final long id)
+    {
+        final long slot = id - baseId;
+        if (!isInRange(slot) || !isPresent((int)slot))
+        {
+            return false;
+        }
+        setPresent((int)slot, false);
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Has no effect, since slots are fixed.
+     */
+    @Override
+    public void compact()
+    {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sync()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(final FileChannel output)
+    {
+        header.recordCount(size).writeTo(buffer, bufferOps, HEADER_OFFSET);
+
+        bufferOps.storeTo(output, buffer, header.storeLength() + Header.LENGTH);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float utilisation()
+    {
+        return size / (float)slotCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        clearBitmap();
+        size = 0;
+    }
+
+    /**
+     * Returns the lowest identifier that can be stored.
+     *
+     * @return the lowest identifier
+     */
+    public long baseId()
+    {
+        return baseId;
+    }
+
+    /**
+     * Returns the number of identifiers that can be stored.
+     *
+     * @return the number of slots
+     */
+    public int slotCount()
+    {
+        return slotCount;
+    }
+
+    private boolean isInRange(final long slot)
+    {
+        return slot >= 0 && slot < slotCount;
+    }
+
+    private int recordOffset(final int slot)
+    {
+        return dataOffset + (slot * slotLength);
+    }
+
+    private int fieldWriteOffset(final long id, final int fieldOffset)
+    {
+        if (fieldOffset < 0 || fieldOffset > maxRecordLength - Long.BYTES)
+        {
+            throw new IllegalArgumentException("Field offset outside of record: " + fieldOffset);
+        }
+        final long slot = id - baseId;
+        if (!isInRange(slot) || !isPresent((int)slot))
+        {
+            throw new IllegalArgumentException("Unknown id: " + id);
+        }
+
+        return recordOffset((int)slot) + fieldOffset;
+    }
+
+    private boolean isPresent(final int slot)
+    {
+        return (bufferOps.readLong(buffer, bitmapWordOffset(slot)) & (1L << slot)) != 0;
+    }
+
+    private void setPresent(final int slot, final boolean present)
+    {
+        final int wordOffset = bitmapWordOffset(slot);
+        final long word = bufferOps.readLong(buffer, wordOffset);
+        bufferOps.writeLong(buffer, wordOffset, present ? word | (1L << slot) : word & ~(1L << slot));
+    }
+
+    private void clearBitmap()
+    {
+        for (int offset = BITMAP_OFFSET; offset < dataOffset; offset += Long.BYTES)
+        {
+            bufferOps.writeLong(buffer, offset, 0L);
+        }
+    }
+
+    private static int bitmapWordOffset(final int slot)
+    {
+        return BITMAP_OFFSET + ((slot >>> 6) << 3);
+    }
+
+    private static int bitmapLength(final int slotCount)
+    {
+        return (int)((slotCount + (long)Long.SIZE - 1) >>> 6) << 3;
+    }
+}
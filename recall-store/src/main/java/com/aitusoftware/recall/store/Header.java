@@ -17,22 +17,78 @@
  */
 package com.aitusoftware.recall.store;
 
+import org.agrona.BitUtil;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.function.IntFunction;
 
+/**
+ * Store header, in which all values are stored in little-endian order.
+ * <p>
+ * Version one comprises: version, store length, max record length, next write offset.
+ * <p>
+ * Version two appends: header length, slot alignment, record count, record byte order, store kind, followed
+ * by a reserved section, so that the header can be extended without changing the data offset.
+ * A store kind of zero denotes slotted data.
+ */
 final class Header
 {
-    static final int LENGTH = 4 * Integer.BYTES;
+    static final int LENGTH = 64;
+    static final int V1_LENGTH = 4 * Integer.BYTES;
+    static final int UNKNOWN_RECORD_COUNT = -1;
     private static final int VERSION_OFFSET = 0;
     private static final int STORE_LENGTH_OFFSET = Integer.BYTES;
     private static final int RECORD_LENGTH_OFFSET = 2 * Integer.BYTES;
     private static final int WRITE_OFFSET_OFFSET = 3 * Integer.BYTES;
+    private static final int HEADER_LENGTH_OFFSET = 4 * Integer.BYTES;
+    private static final int SLOT_ALIGNMENT_OFFSET = 5 * Integer.BYTES;
+    private static final int RECORD_COUNT_OFFSET = 6 * Integer.BYTES;
+    private static final int BYTE_ORDER_OFFSET = 7 * Integer.BYTES;
+    private static final int STORE_KIND_OFFSET = 8 * Integer.BYTES;
+    private static final int RESERVED_OFFSET = 10 * Integer.BYTES;
+    private static final int UNKNOWN_BYTE_ORDER = 0;
+    private static final int LITTLE_ENDIAN_BYTE_ORDER = 1;
+    private static final int BIG_ENDIAN_BYTE_ORDER = 2;
     private static final ByteOrder STORAGE_ORDER = ByteOrder.LITTLE_ENDIAN;
 
     private Version version;
     private int storeLength;
     private int maxRecordLength;
     private int nextWriteOffset;
+    private int headerLength = LENGTH;
+    private int slotAlignment = 1;
+    private int recordCount = UNKNOWN_RECORD_COUNT;
+    private ByteOrder byteOrder;
+    private StoreKind storeKind = StoreKind.SLOTTED;
+
+    static Header readFrom(final FileChannel input)
+    {
+        final ByteBuffer headerBuffer = ByteBuffer.allocateDirect(LENGTH);
+        headerBuffer.limit(V1_LENGTH);
+        try
+        {
+            input.position(0);
+            readFully(input, headerBuffer);
+            if (Version.from(headerBuffer.order(STORAGE_ORDER).getInt(VERSION_OFFSET)) != Version.ONE)
+            {
+                headerBuffer.limit(LENGTH);
+                readFully(input, headerBuffer);
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        headerBuffer.flip();
+        final Header header = new Header();
+        header.readFrom(headerBuffer);
+        return header;
+    }
 
     void readFrom(final ByteBuffer headerBuffer)
     {
@@ -40,6 +96,22 @@ final class Header
         storeLength = headerBuffer.order(STORAGE_ORDER).getInt(STORE_LENGTH_OFFSET);
         maxRecordLength = headerBuffer.order(STORAGE_ORDER).getInt(RECORD_LENGTH_OFFSET);
         nextWriteOffset = headerBuffer.order(STORAGE_ORDER).getInt(WRITE_OFFSET_OFFSET);
+        if (version == Version.ONE)
+        {
+            headerLength = V1_LENGTH;
+            slotAlignment = 1;
+            recordCount = UNKNOWN_RECORD_COUNT;
+            byteOrder = null;
+            storeKind = StoreKind.SLOTTED;
+        }
+        else
+        {
+            headerLength = headerBuffer.order(STORAGE_ORDER).getInt(HEADER_LENGTH_OFFSET);
+            slotAlignment = headerBuffer.order(STORAGE_ORDER).getInt(SLOT_ALIGNMENT_OFFSET);
+            recordCount = headerBuffer.order(STORAGE_ORDER).getInt(RECORD_COUNT_OFFSET);
+            byteOrder = fromByteOrderValue(headerBuffer.order(STORAGE_ORDER).getInt(BYTE_ORDER_OFFSET));
+            storeKind = StoreKind.from(headerBuffer.order(STORAGE_ORDER).getInt(STORE_KIND_OFFSET));
+        }
     }
 
     <B> void writeTo(final B input, final BufferOps<B> bufferOps, final int offset)
@@ -49,6 +121,70 @@ final class Header
         bufferOps.writeInt(input, offset + STORE_LENGTH_OFFSET, littleEndian(storeLength, bufferOrder));
         bufferOps.writeInt(input, offset + RECORD_LENGTH_OFFSET, littleEndian(maxRecordLength, bufferOrder));
         bufferOps.writeInt(input, offset + WRITE_OFFSET_OFFSET, littleEndian(nextWriteOffset, bufferOrder));
+        bufferOps.writeInt(input, offset + HEADER_LENGTH_OFFSET, littleEndian(headerLength, bufferOrder));
+        bufferOps.writeInt(input, offset + SLOT_ALIGNMENT_OFFSET, littleEndian(slotAlignment, bufferOrder));
+        bufferOps.writeInt(input, offset + RECORD_COUNT_OFFSET, littleEndian(recordCount, bufferOrder));
+        bufferOps.writeInt(input, offset + BYTE_ORDER_OFFSET, littleEndian(toByteOrderValue(byteOrder), bufferOrder));
+        bufferOps.writeInt(input, offset + STORE_KIND_OFFSET, littleEndian(storeKind.value(), bufferOrder));
+        bufferOps.writeInt(input, offset + STORE_KIND_OFFSET + Integer.BYTES, 0);
+        for (int i = RESERVED_OFFSET; i < LENGTH; i += Long.BYTES)
+        {
+            bufferOps.writeLong(input, offset + i, 0L);
+        }
+    }
+
+    /**
+     * Reads the data of a store described by this header into a new buffer, after a version two header.
+     * Data written after a header of a different length (e.g. from version one) is relocated,
+     * and this header is updated to the current version.
+     */
+    <B> B readStoreData(final FileChannel input, final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory)
+    {
+        verifyByteOrder(bufferOps);
+        final B buffer = bufferFactory.apply(storeLength + LENGTH);
+        bufferOps.readFrom(input, headerLength, buffer, LENGTH, storeLength);
+        byteOrder = bufferOps.byteOrder();
+        toCurrentVersion();
+        writeTo(buffer, bufferOps, 0);
+
+        return buffer;
+    }
+
+    /**
+     * Maps the header and data of a store described by this header as a single read-only buffer.
+     * Data cannot be relocated in place, so only stores written with a version two header can be mapped.
+     */
+    <B> B mapStoreData(final FileChannel input, final BufferOps<B> bufferOps)
+    {
+        verifyByteOrder(bufferOps);
+        if (headerLength != LENGTH)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Store written with header version %s cannot be mapped, migrate to version %s first",
+                version, Version.TWO));
+        }
+        final long mappingLength = (long)LENGTH + storeLength;
+        try
+        {
+            if (input.size() < mappingLength)
+            {
+                throw new EOFException("Store requires " + mappingLength + " bytes, file length is " + input.size());
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        return bufferOps.mapReadOnly(input, 0, (int)mappingLength);
+    }
+
+    Header toCurrentVersion()
+    {
+        nextWriteOffset = nextWriteOffset - headerLength + LENGTH;
+        headerLength = LENGTH;
+        version = Version.TWO;
+        return this;
     }
 
     Version version()
@@ -71,6 +207,36 @@ final class Header
         return nextWriteOffset;
     }
 
+    int headerLength()
+    {
+        return headerLength;
+    }
+
+    int slotAlignment()
+    {
+        return slotAlignment;
+    }
+
+    int slotLength()
+    {
+        return BitUtil.align(maxRecordLength + Long.BYTES, slotAlignment);
+    }
+
+    int recordCount()
+    {
+        return recordCount;
+    }
+
+    ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    StoreKind storeKind()
+    {
+        return storeKind;
+    }
+
     Header version(final Version version)
     {
         this.version = version;
@@ -95,8 +261,84 @@ final class Header
         return this;
     }
 
+    Header slotAlignment(final int slotAlignment)
+    {
+        this.slotAlignment = slotAlignment;
+        return this;
+    }
+
+    Header recordCount(final int recordCount)
+    {
+        this.recordCount = recordCount;
+        return this;
+    }
+
+    Header byteOrder(final ByteOrder byteOrder)
+    {
+        this.byteOrder = byteOrder;
+        return this;
+    }
+
+    Header storeKind(final StoreKind storeKind)
+    {
+        this.storeKind = storeKind;
+        return this;
+    }
+
+    Header verifyStoreKind(final StoreKind expectedStoreKind)
+    {
+        if (storeKind != expectedStoreKind)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Store was written with %s data, cannot be loaded as %s data", storeKind, expectedStoreKind));
+        }
+        return this;
+    }
+
+    private void verifyByteOrder(final BufferOps<?> bufferOps)
+    {
+        if (byteOrder != null && byteOrder != bufferOps.byteOrder())
+        {
+            throw new IllegalArgumentException(String.format(
+                "Store was written in %s order, cannot be read in %s order", byteOrder, bufferOps.byteOrder()));
+        }
+    }
+
+    private static void readFully(final FileChannel input, final ByteBuffer buffer) throws IOException
+    {
+        while (buffer.remaining() != 0)
+        {
+            if (input.read(buffer) < 0)
+            {
+                throw new EOFException("Unexpected end of file reading header");
+            }
+        }
+    }
+
+    private static int toByteOrderValue(final ByteOrder byteOrder)
+    {
+        if (byteOrder == null)
+        {
+            return UNKNOWN_BYTE_ORDER;
+        }
+        return byteOrder == ByteOrder.LITTLE_ENDIAN ? LITTLE_ENDIAN_BYTE_ORDER : BIG_ENDIAN_BYTE_ORDER;
+    }
+
+    private static ByteOrder fromByteOrderValue(final int byteOrderValue)
+    {
+        switch (byteOrderValue)
+        {
+            case LITTLE_ENDIAN_BYTE_ORDER:
+                return ByteOrder.LITTLE_ENDIAN;
+            case BIG_ENDIAN_BYTE_ORDER:
+                return ByteOrder.BIG_ENDIAN;
+            default:
+                return null;
+        }
+    }
+
     private static int littleEndian(final int value, final ByteOrder byteOrder)
     {
         return byteOrder == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.concurrent.NanoClock;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Decorator for a {@link Store} that records the latency of each load, store and remove operation into a
+ * {@link LatencyHistogram}.
+ * <p>
+ * Recording does not allocate. Histograms can be read, and an interval completed, using
+ * {@link #intervalSnapshot(LatencyHistogram, LatencyHistogram, LatencyHistogram)} or
+ * {@link #exportInterval(LatencyLogWriter, long)}; as with the store itself, these methods should be called
+ * by the thread that owns the store.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public final class InstrumentedStore<B> implements Store<B>
+{
+    /**
+     * Name of the load operation, as exported to a {@link LatencyLogWriter}.
+     */
+    public static final String LOAD_OPERATION = "load";
+    /**
+     * Name of the store operation, as exported to a {@link LatencyLogWriter}.
+     */
+    public static final String STORE_OPERATION = "store";
+    /**
+     * Name of the remove operation, as exported to a {@link LatencyLogWriter}.
+     */
+    public static final String REMOVE_OPERATION = "remove";
+
+    private final Store<B> delegate;
+    private final String name;
+    private final NanoClock nanoClock;
+    private final LatencyHistogram loadLatencies = new LatencyHistogram();
+    private final LatencyHistogram storeLatencies = new LatencyHistogram();
+    private final LatencyHistogram removeLatencies = new LatencyHistogram();
+
+    /**
+     * Constructor for the store.
+     *
+     * @param delegate the store to instrument
+     * @param name     name of the store, used when exporting latencies
+     */
+    public InstrumentedStore(final Store<B> delegate, final String name)
+    {
+        this(delegate, name, System::nanoTime);
+    }
+
+    /**
+     * Constructor for the store.
+     *
+     * @param delegate  the store to instrument
+     * @param name      name of the store, used when exporting latencies
+     * @param nanoClock source of time for measuring latencies
+     */
+    public InstrumentedStore(final Store<B> delegate, final String name, final NanoClock nanoClock)
+    {
+        this.delegate = delegate;
+        this.name = name;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> boolean load(final long id, final Decoder<B, T> decoder, final T container)
+    {
+        final long startNanos = nanoClock.nanoTime();
+        final boolean loaded = delegate.load(id, decoder, container);
+        loadLatencies.record(nanoClock.nanoTime() - startNanos);
+        return loaded;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void store(final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        final long startNanos = nanoClock.nanoTime();
+        delegate.store(encoder, value, idAccessor);
+        storeLatencies.record(nanoClock.nanoTime() - startNanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        return delegate.update(id, updater);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        return delegate.getAndAddLong(id, fieldOffset, delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        return delegate.compareAndSetLong(id, fieldOffset, expectedValue, updateValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final long id)
+    {
+        final long startNanos = nanoClock.nanoTime();
+        final boolean removed = delegate.remove(id);
+        removeLatencies.record(nanoClock.nanoTime() - startNanos);
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void compact()
+    {
+        delegate.compact();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sync()
+    {
+        delegate.sync();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(final FileChannel output)
+    {
+        delegate.writeTo(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float utilisation()
+    {
+        return delegate.utilisation();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        delegate.clear();
+    }
+
+    /**
+     * Returns the name of the store.
+     *
+     * @return the name of the store
+     */
+    public String name()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the latencies of load operations recorded in the current interval.
+     *
+     * @return the load latencies
+     */
+    public LatencyHistogram loadLatencies()
+    {
+        return loadLatencies;
+    }
+
+    /**
+     * Returns the latencies of store operations recorded in the current interval.
+     *
+     * @return the store latencies
+     */
+    public LatencyHistogram storeLatencies()
+    {
+        return storeLatencies;
+    }
+
+    /**
+     * Returns the latencies of remove operations recorded in the current interval.
+     *
+     * @return the remove latencies
+     */
+    public LatencyHistogram removeLatencies()
+    {
+        return removeLatencies;
+    }
+
+    /**
+     * Copies the latencies recorded in the current interval to the supplied histograms, and starts a new interval.
+     *
+     * @param loadTarget   histogram to receive load latencies
+     * @param storeTarget  histogram to receive store latencies
+     * @param removeTarget histogram to receive remove latencies
+     */
+    public void intervalSnapshot(
+        final LatencyHistogram loadTarget, final LatencyHistogram storeTarget, final LatencyHistogram removeTarget)
+    {
+        loadLatencies.copyTo(loadTarget);
+        storeLatencies.copyTo(storeTarget);
+        removeLatencies.copyTo(removeTarget);
+        resetLatencies();
+    }
+
+    /**
+     * Writes the latencies recorded in the current interval to the supplied writer, and starts a new interval.
+     *
+     * @param writer          destination for the latencies
+     * @param timestampMillis timestamp of the end of the interval
+     */
+    public void exportInterval(final LatencyLogWriter writer, final long timestampMillis)
+    {
+        writer.write(timestampMillis, name, LOAD_OPERATION, loadLatencies);
+        writer.write(timestampMillis, name, STORE_OPERATION, storeLatencies);
+        writer.write(timestampMillis, name, REMOVE_OPERATION, removeLatencies);
+        writer.flush();
+        resetLatencies();
+    }
+
+    private void resetLatencies()
+    {
+        loadLatencies.reset();
+        storeLatencies.reset();
+        removeLatencies.reset();
+    }
+}
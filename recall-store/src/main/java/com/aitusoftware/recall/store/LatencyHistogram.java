@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of latencies, recorded in nanoseconds.
+ * <p>
+ * Values are recorded in logarithmic buckets, each of which is divided into {@value #SUB_BUCKET_COUNT}
+ * linear sub-buckets, so that reported values are within ~3% of recorded values across the full range
+ * of a <code>long</code>. All memory is allocated on construction, and recording does not allocate.
+ * <p>
+ * Histograms are not thread-safe, and are intended to be recorded and read by the thread that owns
+ * the instrumented component.
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = Long.SIZE - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[BUCKET_COUNT * SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long totalValue;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+
+    /**
+     * Records a value.
+     *
+     * @param value the value to record, negative values are recorded as zero
+     */
+    public void record(final long value)
+    {
+        final long recordedValue = Math.max(0L, value);
+        counts[indexOf(recordedValue)]++;
+        totalCount++;
+        totalValue += recordedValue;
+        minValue = Math.min(minValue, recordedValue);
+        maxValue = Math.max(maxValue, recordedValue);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long count()
+    {
+        return totalCount;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return the smallest recorded value, or zero if no values have been recorded
+     */
+    public long min()
+    {
+        return totalCount == 0 ? 0L : minValue;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value, or zero if no values have been recorded
+     */
+    public long max()
+    {
+        return maxValue;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or zero if no values have been recorded
+     */
+    public double mean()
+    {
+        return totalCount == 0 ? 0d : totalValue / (double)totalCount;
+    }
+
+    /**
+     * Returns the value below which the specified percentage of recorded values fall.
+     * The reported value is the highest value in the bucket containing the percentile, and
+     * no greater than the largest recorded value.
+     *
+     * @param percentile the percentile, in the range {@code [0, 100]}
+     * @return the value at the percentile, or zero if no values have been recorded
+     */
+    public long valueAtPercentile(final double percentile)
+    {
+        if (percentile < 0d || percentile > 100d)
+        {
+            throw new IllegalArgumentException("Percentile must be in the range [0, 100]: " + percentile);
+        }
+        if (totalCount == 0)
+        {
+            return 0L;
+        }
+        final long targetCount = Math.max(1L, (long)Math.ceil((percentile / 100d) * totalCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= targetCount)
+            {
+                return Math.min(maxValue, highestValueAt(i));
+            }
+        }
+
+        return maxValue;
+    }
+
+    /**
+     * Adds the values recorded in another histogram to this histogram.
+     *
+     * @param other the histogram to add
+     */
+    public void add(final LatencyHistogram other)
+    {
+        for (int i = 0; i < counts.length; i++)
+        {
+            counts[i] += other.counts[i];
+        }
+        if (other.totalCount != 0)
+        {
+            minValue = Math.min(minValue, other.minValue);
+            maxValue = Math.max(maxValue, other.maxValue);
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+    }
+
+    /**
+     * Replaces the content of the target histogram with the content of this histogram.
+     *
+     * @param target the histogram to copy to
+     */
+    public void copyTo(final LatencyHistogram target)
+    {
+        System.arraycopy(counts, 0, target.counts, 0, counts.length);
+        target.totalCount = totalCount;
+        target.totalValue = totalValue;
+        target.minValue = minValue;
+        target.maxValue = maxValue;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset()
+    {
+        Arrays.fill(counts, 0L);
+        totalCount = 0;
+        totalValue = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+    }
+
+    static int indexOf(final long value)
+    {
+        final int highestBit = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value | SUB_BUCKET_COUNT);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int)(value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long highestValueAt(final int index)
+    {
+        if (index < 2 * SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        final int shift = (index >> SUB_BUCKET_BITS) - 1;
+        final long subBucket = SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
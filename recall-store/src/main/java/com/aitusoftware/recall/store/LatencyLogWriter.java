@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Writes interval snapshots of {@link LatencyHistogram}s to a CSV file.
+ * <p>
+ * Each line describes the latencies of one operation on one store during an interval. All latencies are
+ * reported in nanoseconds. If the file is empty when opened, a header line is written first; otherwise,
+ * lines are appended to the existing content.
+ */
+public final class LatencyLogWriter implements AutoCloseable
+{
+    /**
+     * Header line describing the CSV columns.
+     */
+    public static final String HEADER =
+        "timestamp_ms,store,operation,count,min,mean,p50,p90,p99,p99.9,p99.99,max";
+    private static final double[] PERCENTILES = {50d, 90d, 99d, 99.9d, 99.99d};
+
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * Constructor for the writer.
+     *
+     * @param file the file to write to
+     */
+    public LatencyLogWriter(final Path file)
+    {
+        try
+        {
+            writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (Files.size(file) == 0)
+            {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the content of a histogram.
+     *
+     * @param timestampMillis timestamp of the end of the interval
+     * @param storeName       name of the store
+     * @param operation       name of the operation
+     * @param histogram       the recorded latencies
+     */
+    public void write(
+        final long timestampMillis, final String storeName, final String operation, final LatencyHistogram histogram)
+    {
+        line.setLength(0);
+        line.append(timestampMillis).append(',').append(storeName).append(',').append(operation)
+            .append(',').append(histogram.count())
+            .append(',').append(histogram.min())
+            .append(',').append(String.format(Locale.ROOT, "%.1f", histogram.mean()));
+        for (final double percentile : PERCENTILES)
+        {
+            line.append(',').append(histogram.valueAtPercentile(percentile));
+        }
+        line.append(',').append(histogram.max());
+        try
+        {
+            writer.append(line);
+            writer.newLine();
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes written lines to the file.
+     */
+    public void flush()
+    {
+        try
+        {
+            writer.flush();
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the file.
+     */
+    @Override
+    public void close()
+    {
+        try
+        {
+            writer.close();
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
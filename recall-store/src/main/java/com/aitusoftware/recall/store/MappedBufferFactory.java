@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+/**
+ * Buffer factory that backs each buffer with a memory-mapped file, created in a specified directory.
+ * <p>
+ * When the directory is on a <code>hugetlbfs</code> mount (e.g. <code>/dev/hugepages</code>), buffers are
+ * backed by huge pages, reducing TLB misses when accessing large stores. In this case, the mapping
+ * alignment should be set to the huge page size, as mappings on <code>hugetlbfs</code> must be a multiple
+ * of the page size.
+ * <p>
+ * Each file is removed once mapped, so the memory is released when the buffer is garbage collected.
+ */
+public final class MappedBufferFactory implements IntFunction<ByteBuffer>
+{
+    /**
+     * Default huge page size on x86_64.
+     */
+    public static final int DEFAULT_HUGE_PAGE_SIZE = 2 * 1024 * 1024;
+
+    private final Path directory;
+    private final int mappingAlignment;
+    private final boolean preTouch;
+
+    /**
+     * Constructor for a factory that creates files in the specified directory.
+     *
+     * @param directory        the directory in which to create files
+     * @param mappingAlignment the size to which the length of each mapping is rounded up
+     * @param preTouch         whether to write to each page of a mapping when it is created
+     */
+    public MappedBufferFactory(final Path directory, final int mappingAlignment, final boolean preTouch)
+    {
+        if (mappingAlignment <= 0)
+        {
+            throw new IllegalArgumentException("Mapping alignment must be positive: " + mappingAlignment);
+        }
+        this.directory = directory;
+        this.mappingAlignment = mappingAlignment;
+        this.preTouch = preTouch;
+    }
+
+    /**
+     * Maps a new file of at least the specified length.
+     *
+     * @param length the length of the buffer
+     * @return a buffer with a capacity of <code>length</code>
+     */
+    @Override
+    public ByteBuffer apply(final int length)
+    {
+        final long mappingLength = ((length + (long)mappingAlignment - 1) / mappingAlignment) * mappingAlignment;
+        try
+        {
+            final Path file = Files.createTempFile(directory, "recall-", ".buffer");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                final MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappingLength);
+                if (preTouch)
+                {
+                    for (long offset = 0; offset < mappingLength; offset += PreTouchingBufferFactory.DEFAULT_PAGE_SIZE)
+                    {
+                        mapping.put((int)offset, (byte)0);
+                    }
+                }
+                mapping.limit(length);
+                return mapping.slice();
+            }
+            finally
+            {
+                Files.delete(file);
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
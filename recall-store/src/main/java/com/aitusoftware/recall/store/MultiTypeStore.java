@@ -0,0 +1,311 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.collections.LongArrayList;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * A store that holds records of many types in a single {@link BufferStore}.
+ * <p>
+ * Each type is registered with a type identifier, and is accessed through the {@link SingleTypeStore}
+ * returned from {@link #register(int, Decoder, Encoder, IdAccessor)}. Records are keyed in the
+ * underlying store by a composite of the type identifier and the record identifier, so that a single
+ * index and a single snapshot cover all types.
+ * <p>
+ * Record identifiers must be in the range <code>[0, 2^56)</code>.
+ *
+ * @param <B> the type of the underlying buffer
+ */
+public final class MultiTypeStore<B>
+{
+    /**
+     * The maximum type identifier that can be registered.
+     */
+    public static final int MAX_TYPE_ID = 127;
+
+    private static final int TYPE_ID_SHIFT = 56;
+    private static final long ID_MASK = (1L << TYPE_ID_SHIFT) - 1;
+
+    private final BufferStore<B> store;
+    private final int[] typeSizes = new int[MAX_TYPE_ID + 1];
+    private final boolean[] registeredTypes = new boolean[MAX_TYPE_ID + 1];
+
+    /**
+     * Constructor for the store.
+     *
+     * @param store the underlying {@link BufferStore}, which may already contain records
+     * @throws IllegalArgumentException if the store contains an identifier that is not a composite key
+     */
+    public MultiTypeStore(final BufferStore<B> store)
+    {
+        this.store = store;
+        store.forEachId(this::countExistingRecord);
+    }
+
+    /**
+     * Registers a type with this store.
+     *
+     * @param typeId     identifier of the type, in the range <code>[0, MAX_TYPE_ID]</code>
+     * @param decoder    the decoder for deserialising
+     * @param encoder    the encoder for serialising
+     * @param idAccessor the accessor for retrieving the type's ID
+     * @param <T>        the type that will be stored
+     * @return a store providing access to records of the registered type
+     */
+    public <T> SingleTypeStore<B, T> register(
+        final int typeId, final Decoder<B, T> decoder,
+        final Encoder<B, T> encoder, final IdAccessor<T> idAccessor)
+    {
+        if (typeId < 0 || typeId > MAX_TYPE_ID)
+        {
+            throw new IllegalArgumentException("Type id out of range: " + typeId);
+        }
+        if (registeredTypes[typeId])
+        {
+            throw new IllegalArgumentException("Type id already registered: " + typeId);
+        }
+        registeredTypes[typeId] = true;
+
+        return new SingleTypeStore<>(new TypeStore(typeId), decoder, encoder, idAccessor);
+    }
+
+    /**
+     * Returns the number of records of the specified type.
+     *
+     * @param typeId identifier of the type
+     * @return the number of records
+     */
+    public int size(final int typeId)
+    {
+        return typeSizes[typeId];
+    }
+
+    /**
+     * Returns the number of records of all types.
+     *
+     * @return the number of records
+     */
+    public int size()
+    {
+        return store.size();
+    }
+
+    /**
+     * Writes records of all types to the supplied {@code FileChannel}.
+     * The snapshot can be loaded using <code>BufferStore.loadFrom</code>, and passed to the constructor.
+     *
+     * @param output the file to write to
+     */
+    public void writeTo(final FileChannel output)
+    {
+        store.writeTo(output);
+    }
+
+    /**
+     * Delegates to the underlying {@link BufferStore}.
+     */
+    public void compact()
+    {
+        store.compact();
+    }
+
+    /**
+     * Delegates to the underlying {@link BufferStore}.
+     *
+     * @return store utilisation
+     */
+    public float utilisation()
+    {
+        return store.utilisation();
+    }
+
+    /**
+     * Removes records of all types.
+     */
+    public void clear()
+    {
+        store.clear();
+        for (int i = 0; i <= MAX_TYPE_ID; i++)
+        {
+            typeSizes[i] = 0;
+        }
+    }
+
+    /**
+     * Retrieve the underlying {@link BufferStore}.
+     *
+     * @return the underlying {@link BufferStore}
+     */
+    public BufferStore<B> store()
+    {
+        return store;
+    }
+
+    private void countExistingRecord(final long key)
+    {
+        if (key < 0)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Store contains id %d, which is not a key of type id [0, %d] and id [0, 2^56)", key, MAX_TYPE_ID));
+        }
+        typeSizes[typeIdOf(key)]++;
+    }
+
+    private static long key(final int typeId, final long id)
+    {
+        if ((id & ~ID_MASK) != 0)
+        {
+            throw new IllegalArgumentException("Id out of range: " + id);
+        }
+        return ((long)typeId << TYPE_ID_SHIFT) | id;
+    }
+
+    private static int typeIdOf(final long key)
+    {
+        return (int)(key >>> TYPE_ID_SHIFT);
+    }
+
+    private final class TypeStore implements Store<B>
+    {
+        private final int typeId;
+        private final TypedIdAccessor typedIdAccessor = new TypedIdAccessor();
+
+        TypeStore(final int typeId)
+        {
+            this.typeId = typeId;
+        }
+
+        @Override
+        public <T> boolean load(final long id, final Decoder<B, T> decoder, final T container)
+        {
+            return store.load(key(typeId, id), decoder, container);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> void store(final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+        {
+            final int sizeBeforeStore = store.size();
+            typedIdAccessor.delegate = (IdAccessor<Object>)idAccessor;
+            try
+            {
+                store.store(encoder, value, (IdAccessor<T>)typedIdAccessor);
+            }
+            finally
+            {
+                typedIdAccessor.delegate = null;
+            }
+            typeSizes[typeId] += store.size() - sizeBeforeStore;
+        }
+
+        @Override
+        public boolean update(final long id, final RecordUpdater<B> updater)
+        {
+            return store.update(key(typeId, id), updater);
+        }
+
+        @Override
+        public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+        {
+            return store.getAndAddLong(key(typeId, id), fieldOffset, delta);
+        }
+
+        @Override
+        public boolean compareAndSetLong(
+            final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+        {
+            return store.compareAndSetLong(key(typeId, id), fieldOffset, expectedValue, updateValue);
+        }
+
+        @Override
+        public boolean remove(final long id)
+        {
+            final boolean wasRemoved = store.remove(key(typeId, id));
+            if (wasRemoved)
+            {
+                typeSizes[typeId]--;
+            }
+            return wasRemoved;
+        }
+
+        @Override
+        public void compact()
+        {
+            store.compact();
+        }
+
+        @Override
+        public void sync()
+        {
+            store.sync();
+        }
+
+        @Override
+        public void writeTo(final FileChannel output)
+        {
+            store.writeTo(output);
+        }
+
+        @Override
+        public float utilisation()
+        {
+            return store.utilisation();
+        }
+
+        @Override
+        public int size()
+        {
+            return typeSizes[typeId];
+        }
+
+        @Override
+        public void clear()
+        {
+            final LongArrayList keys = new LongArrayList();
+            store.forEachId(key ->
+            {
+                if (typeIdOf(key) == typeId)
+                {
+                    keys.addLong(key);
+                }
+            });
+            for (int i = 0; i < keys.size(); i++)
+            {
+                store.remove(keys.getLong(i));
+            }
+            typeSizes[typeId] = 0;
+        }
+
+        private final class TypedIdAccessor implements IdAccessor<Object>
+        {
+            private IdAccessor<Object> delegate;
+
+            @Override
+            public long getId(final Object value)
+            {
+                return key(typeId, delegate.getId(value));
+            }
+        }
+    }
+}
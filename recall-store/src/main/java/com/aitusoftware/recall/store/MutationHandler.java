@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.DirectBuffer;
+
+/**
+ * Receiver of mutations read by a {@link MutationReceiver}.
+ */
+public interface MutationHandler
+{
+    /**
+     * Handle a stored record.
+     *
+     * @param sequence the sequence number of the mutation
+     * @param id       the identifier of the record
+     * @param buffer   the buffer containing the encoded record
+     * @param offset   the offset of the record in the buffer
+     * @param length   the length of the record
+     */
+    void onStore(long sequence, long id, DirectBuffer buffer, int offset, int length);
+
+    /**
+     * Handle a modified region of a record.
+     *
+     * @param sequence    the sequence number of the mutation
+     * @param id          the identifier of the record
+     * @param fieldOffset the offset of the modified region within the record
+     * @param buffer      the buffer containing the modified region
+     * @param offset      the offset of the modified region in the buffer
+     * @param length      the length of the modified region
+     */
+    void onUpdate(long sequence, long id, int fieldOffset, DirectBuffer buffer, int offset, int length);
+
+    /**
+     * Handle a removed record.
+     *
+     * @param sequence the sequence number of the mutation
+     * @param id       the identifier of the record
+     */
+    void onRemove(long sequence, long id);
+
+    /**
+     * Handle removal of all records.
+     *
+     * @param sequence the sequence number of the mutation
+     */
+    void onClear(long sequence);
+
+    /**
+     * Notification that the receiver has been lapped by the publisher, and that
+     * mutations have been lost. Consumers will need to re-synchronise their state.
+     *
+     * @param fromSequence the first lost sequence number (inclusive)
+     * @param toSequence   the last lost sequence number (inclusive)
+     */
+    void onMutationsLost(long fromSequence, long toSequence);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+/**
+ * Callback notified of every mutation applied to a {@link BufferStore}.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public interface MutationListener<B>
+{
+    /**
+     * Notification that a record has been stored.
+     *
+     * @param id     the identifier of the record
+     * @param buffer the buffer containing the encoded record
+     * @param offset the offset of the record in the buffer
+     * @param length the length of the record
+     */
+    void onStore(long id, B buffer, int offset, int length);
+
+    /**
+     * Notification that a region of a stored record has been modified.
+     *
+     * @param id          the identifier of the record
+     * @param buffer      the buffer containing the encoded record
+     * @param offset      the offset of the modified region in the buffer
+     * @param fieldOffset the offset of the modified region within the record
+     * @param length      the length of the modified region
+     */
+    void onUpdate(long id, B buffer, int offset, int fieldOffset, int length);
+
+    /**
+     * Notification that a record has been removed.
+     *
+     * @param id the identifier of the record
+     */
+    void onRemove(long id);
+
+    /**
+     * Notification that all records have been removed.
+     */
+    void onClear();
+}
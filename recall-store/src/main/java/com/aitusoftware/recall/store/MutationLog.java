@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.broadcast.BroadcastBufferDescriptor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Utility class for mapping a file containing a broadcast buffer, allowing a
+ * {@link MutationPublisher} and {@link MutationReceiver} in different processes
+ * to share mutations.
+ */
+public final class MutationLog
+{
+    private MutationLog()
+    {
+    }
+
+    /**
+     * Creates and maps a new mutation log, overwriting any existing file.
+     *
+     * @param path     location of the log file
+     * @param capacity capacity of the log, must be a power of two
+     * @return a buffer suitable for passing to a {@link MutationPublisher}
+     */
+    public static UnsafeBuffer create(final Path path, final int capacity)
+    {
+        BroadcastBufferDescriptor.checkCapacity(capacity);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            final MappedByteBuffer buffer = channel.map(
+                FileChannel.MapMode.READ_WRITE, 0, capacity + BroadcastBufferDescriptor.TRAILER_LENGTH);
+            return new UnsafeBuffer(buffer);
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps an existing mutation log for reading.
+     *
+     * @param path location of the log file
+     * @return a buffer suitable for passing to a {@link MutationReceiver}
+     */
+    public static UnsafeBuffer open(final Path path)
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new UnsafeBuffer(buffer);
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
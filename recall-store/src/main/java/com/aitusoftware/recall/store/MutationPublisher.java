@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.broadcast.BroadcastTransmitter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link MutationListener} that publishes mutations to an Agrona broadcast buffer.
+ * <p>
+ * The publisher never blocks; slow consumers will be lapped, and are notified via
+ * {@link MutationHandler#onMutationsLost(long, long)}.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public final class MutationPublisher<B> implements MutationListener<B>
+{
+    static final int STORE_MSG_TYPE_ID = 1;
+    static final int REMOVE_MSG_TYPE_ID = 2;
+    static final int CLEAR_MSG_TYPE_ID = 3;
+    static final int UPDATE_MSG_TYPE_ID = 4;
+    static final int SEQUENCE_OFFSET = 0;
+    static final int ID_OFFSET = Long.BYTES;
+    static final int RECORD_OFFSET = 2 * Long.BYTES;
+    static final int FIELD_OFFSET_OFFSET = RECORD_OFFSET;
+    static final int UPDATE_OFFSET = 3 * Long.BYTES;
+
+    private final BroadcastTransmitter transmitter;
+    private final BufferOps<B> bufferOps;
+    private final UnsafeBuffer messageBuffer;
+    private long sequence;
+
+    /**
+     * Constructor for the publisher.
+     *
+     * @param broadcastBuffer the buffer to publish to, sized as a power of two plus
+     *                        {@link org.agrona.concurrent.broadcast.BroadcastBufferDescriptor#TRAILER_LENGTH}
+     * @param bufferOps       provider of operations on the underlying buffer type
+     * @param maxRecordLength max length of any record
+     */
+    public MutationPublisher(
+        final AtomicBuffer broadcastBuffer, final BufferOps<B> bufferOps, final int maxRecordLength)
+    {
+        transmitter = new BroadcastTransmitter(broadcastBuffer);
+        final int maxMessageLength = maxMessageLength(maxRecordLength);
+        if (maxMessageLength > transmitter.maxMsgLength())
+        {
+            throw new IllegalArgumentException("Broadcast buffer too small for record length " + maxRecordLength);
+        }
+        this.bufferOps = bufferOps;
+        messageBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(maxMessageLength));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStore(final long id, final B buffer, final int offset, final int length)
+    {
+        messageBuffer.putLong(SEQUENCE_OFFSET, sequence++);
+        messageBuffer.putLong(ID_OFFSET, id);
+        bufferOps.copyTo(buffer, offset, messageBuffer, RECORD_OFFSET, length);
+        transmitter.transmit(STORE_MSG_TYPE_ID, messageBuffer, 0, RECORD_OFFSET + length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onUpdate(final long id, final B buffer, final int offset, final int fieldOffset, final int length)
+    {
+        messageBuffer.putLong(SEQUENCE_OFFSET, sequence++);
+        messageBuffer.putLong(ID_OFFSET, id);
+        messageBuffer.putInt(FIELD_OFFSET_OFFSET, fieldOffset);
+        bufferOps.copyTo(buffer, offset, messageBuffer, UPDATE_OFFSET, length);
+        transmitter.transmit(UPDATE_MSG_TYPE_ID, messageBuffer, 0, UPDATE_OFFSET + length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRemove(final long id)
+    {
+        messageBuffer.putLong(SEQUENCE_OFFSET, sequence++);
+        messageBuffer.putLong(ID_OFFSET, id);
+        transmitter.transmit(REMOVE_MSG_TYPE_ID, messageBuffer, 0, RECORD_OFFSET);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onClear()
+    {
+        messageBuffer.putLong(SEQUENCE_OFFSET, sequence++);
+        transmitter.transmit(CLEAR_MSG_TYPE_ID, messageBuffer, 0, ID_OFFSET);
+    }
+
+    /**
+     * Returns the sequence number that will be assigned to the next mutation.
+     *
+     * @return the next sequence number
+     */
+    public long nextSequence()
+    {
+        return sequence;
+    }
+
+    static int maxMessageLength(final int maxRecordLength)
+    {
+        return UPDATE_OFFSET + maxRecordLength;
+    }
+}
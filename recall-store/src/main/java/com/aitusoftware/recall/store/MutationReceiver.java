@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.broadcast.BroadcastBufferDescriptor;
+import org.agrona.concurrent.broadcast.BroadcastReceiver;
+
+import java.nio.ByteBuffer;
+
+import static com.aitusoftware.recall.store.MutationPublisher.CLEAR_MSG_TYPE_ID;
+import static com.aitusoftware.recall.store.MutationPublisher.FIELD_OFFSET_OFFSET;
+import static com.aitusoftware.recall.store.MutationPublisher.ID_OFFSET;
+import static com.aitusoftware.recall.store.MutationPublisher.RECORD_OFFSET;
+import static com.aitusoftware.recall.store.MutationPublisher.REMOVE_MSG_TYPE_ID;
+import static com.aitusoftware.recall.store.MutationPublisher.SEQUENCE_OFFSET;
+import static com.aitusoftware.recall.store.MutationPublisher.STORE_MSG_TYPE_ID;
+import static com.aitusoftware.recall.store.MutationPublisher.UPDATE_MSG_TYPE_ID;
+import static com.aitusoftware.recall.store.MutationPublisher.UPDATE_OFFSET;
+
+/**
+ * Reads mutations published by a {@link MutationPublisher}.
+ * <p>
+ * A receiver only reads mutations published after it was constructed; the most recent mutation
+ * already in the buffer, from which a <code>BroadcastReceiver</code> would otherwise start, is skipped.
+ * Polling does not allocate.
+ */
+public final class MutationReceiver
+{
+    private static final long NO_SEQUENCE = -1L;
+    private final BroadcastReceiver receiver;
+    private final UnsafeBuffer messageBuffer;
+    private long nextSequence = NO_SEQUENCE;
+
+    /**
+     * Constructor for the receiver.
+     *
+     * @param broadcastBuffer the buffer that a {@link MutationPublisher} is publishing to
+     * @param maxRecordLength max length of any record
+     */
+    public MutationReceiver(final AtomicBuffer broadcastBuffer, final int maxRecordLength)
+    {
+        final int tailCounterIndex = broadcastBuffer.capacity() - BroadcastBufferDescriptor.TRAILER_LENGTH +
+            BroadcastBufferDescriptor.TAIL_COUNTER_OFFSET;
+        final long tailAtAttach = broadcastBuffer.getLongVolatile(tailCounterIndex);
+        receiver = new BroadcastReceiver(broadcastBuffer);
+        messageBuffer = new UnsafeBuffer(
+            ByteBuffer.allocateDirect(MutationPublisher.maxMessageLength(maxRecordLength)));
+        if (tailAtAttach != 0)
+        {
+            skipLatestMutation();
+        }
+    }
+
+    /**
+     * Reads available mutations, passing them to the supplied handler.
+     *
+     * @param handler      receiver of mutations
+     * @param messageLimit max number of mutations to read
+     * @return the number of mutations read
+     */
+    public int poll(final MutationHandler handler, final int messageLimit)
+    {
+        int messageCount = 0;
+        while (messageCount < messageLimit && receiver.receiveNext())
+        {
+            final int msgTypeId = receiver.typeId();
+            final int length = receiver.length();
+            if (length > messageBuffer.capacity())
+            {
+                if (receiver.validate())
+                {
+                    throw new IllegalStateException("Mutation length exceeds max record length: " + length);
+                }
+                continue;
+            }
+            messageBuffer.putBytes(0, receiver.buffer(), receiver.offset(), length);
+            if (!receiver.validate())
+            {
+                continue;
+            }
+
+            final long sequence = messageBuffer.getLong(SEQUENCE_OFFSET);
+            if (nextSequence != NO_SEQUENCE && sequence != nextSequence)
+            {
+                handler.onMutationsLost(nextSequence, sequence - 1);
+            }
+            nextSequence = sequence + 1;
+            messageCount++;
+
+            switch (msgTypeId)
+            {
+                case STORE_MSG_TYPE_ID:
+                    handler.onStore(sequence, messageBuffer.getLong(ID_OFFSET),
+                        messageBuffer, RECORD_OFFSET, length - RECORD_OFFSET);
+                    break;
+                case UPDATE_MSG_TYPE_ID:
+                    handler.onUpdate(
+                        sequence, messageBuffer.getLong(ID_OFFSET), messageBuffer.getInt(FIELD_OFFSET_OFFSET),
+                        messageBuffer, UPDATE_OFFSET, length - UPDATE_OFFSET);
+                    break;
+                case REMOVE_MSG_TYPE_ID:
+                    handler.onRemove(sequence, messageBuffer.getLong(ID_OFFSET));
+                    break;
+                case CLEAR_MSG_TYPE_ID:
+                    handler.onClear(sequence);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown message type: " + msgTypeId);
+            }
+        }
+
+        return messageCount;
+    }
+
+    private void skipLatestMutation()
+    {
+        if (receiver.receiveNext() && receiver.length() >= RECORD_OFFSET)
+        {
+            final long sequence = receiver.buffer().getLong(receiver.offset() + SEQUENCE_OFFSET);
+            if (receiver.validate())
+            {
+                nextSequence = sequence + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times that this receiver has been lapped by the publisher.
+     *
+     * @return the lapped count
+     */
+    public long lappedCount()
+    {
+        return receiver.lappedCount();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.util.function.IntFunction;
+
+/**
+ * Buffer factory that writes to every page of each buffer it creates, so that the cost of
+ * first-touch page faults is paid at allocation time, rather than when records are first written.
+ * <p>
+ * Can be used with any store or map that accepts a buffer factory, for example:
+ * <pre>
+ * new CharSequenceMap(maxKeyLength, initialSize, missingValue,
+ *     new PreTouchingBufferFactory&lt;&gt;(ByteBuffer::allocateDirect, new ByteBufferOps()));
+ * </pre>
+ *
+ * @param <B> type of the buffer
+ */
+public final class PreTouchingBufferFactory<B> implements IntFunction<B>
+{
+    /**
+     * Default page size.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private final IntFunction<B> delegate;
+    private final BufferOps<B> bufferOps;
+    private final int pageSize;
+
+    /**
+     * Constructor for a factory using the default page size.
+     *
+     * @param delegate  the factory used to create buffers
+     * @param bufferOps provider of operations on the buffer type
+     */
+    public PreTouchingBufferFactory(final IntFunction<B> delegate, final BufferOps<B> bufferOps)
+    {
+        this(delegate, bufferOps, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructor for a factory.
+     *
+     * @param delegate  the factory used to create buffers
+     * @param bufferOps provider of operations on the buffer type
+     * @param pageSize  the page size of the memory backing the buffers
+     */
+    public PreTouchingBufferFactory(final IntFunction<B> delegate, final BufferOps<B> bufferOps, final int pageSize)
+    {
+        if (pageSize <= 0)
+        {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.delegate = delegate;
+        this.bufferOps = bufferOps;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a buffer using the delegate factory, and touches each of its pages.
+     *
+     * @param length the length of the buffer
+     * @return the buffer
+     */
+    @Override
+    public B apply(final int length)
+    {
+        final B buffer = delegate.apply(length);
+        for (long offset = 0; offset < length; offset += pageSize)
+        {
+            bufferOps.writeByte(buffer, (int)offset, bufferOps.readByte(buffer, (int)offset));
+        }
+
+        return buffer;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+
+import java.nio.channels.FileChannel;
+import java.util.function.IntFunction;
+
+/**
+ * Read-only {@link Store} that follows a leader {@link BufferStore}, typically in another process.
+ * <p>
+ * The replica is initialised from a snapshot of the leader (written using {@link Store#writeTo(FileChannel)}),
+ * and then applies mutations published by the leader's {@link MutationPublisher}. The replica attaches
+ * to the mutation log on construction, so the snapshot must be written by the leader after the replica
+ * has been constructed. Mutations are idempotent, so replaying mutations that are already reflected in
+ * the snapshot is harmless.
+ * <p>
+ * The snapshot is loaded into a private buffer, rather than mapping the leader's file, since the replica
+ * modifies its copy as mutations are applied.
+ * <p>
+ * If the replica is lapped by the leader, it will no longer be consistent, and must be re-initialised
+ * from a new snapshot.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public final class ReplicaStore<B> implements Store<B>
+{
+    private final MutationReceiver receiver;
+    private final BufferOps<B> bufferOps;
+    private final IntFunction<B> bufferFactory;
+    private final MutationApplier mutationApplier = new MutationApplier();
+    private final RecordBytes recordBytes = new RecordBytes();
+    private final Encoder<B, RecordBytes> recordEncoder;
+    private final RecordUpdater<B> regionUpdater;
+    private BufferStore<B> store;
+    private boolean consistent;
+
+    /**
+     * Constructor for the replica.
+     *
+     * @param mutationLog     the buffer that the leader publishes mutations to
+     * @param maxRecordLength max length of any record
+     * @param bufferOps       provider of operations on the underlying buffer type
+     * @param bufferFactory   provider for the underlying buffer type
+     */
+    public ReplicaStore(
+        final AtomicBuffer mutationLog, final int maxRecordLength,
+        final BufferOps<B> bufferOps, final IntFunction<B> bufferFactory)
+    {
+        receiver = new MutationReceiver(mutationLog, maxRecordLength);
+        this.bufferOps = bufferOps;
+        this.bufferFactory = bufferFactory;
+        recordEncoder = (buffer, offset, value) ->
+            bufferOps.copyFrom(value.buffer, value.offset, buffer, offset, value.length);
+        regionUpdater = (buffer, offset) -> bufferOps.copyFrom(
+            recordBytes.buffer, recordBytes.offset, buffer, offset + recordBytes.fieldOffset, recordBytes.length);
+        store = new BufferStore<>(maxRecordLength, 1, bufferFactory, bufferOps);
+    }
+
+    /**
+     * Replaces the content of the replica with a snapshot written by the leader.
+     *
+     * @param snapshot the snapshot file
+     */
+    public void loadSnapshot(final FileChannel snapshot)
+    {
+        store = BufferStore.loadFrom(snapshot, bufferOps, bufferFactory);
+        consistent = true;
+    }
+
+    /**
+     * Applies mutations published by the leader since the last poll.
+     *
+     * @param messageLimit max number of mutations to apply
+     * @return the number of mutations applied
+     */
+    public int poll(final int messageLimit)
+    {
+        return receiver.poll(mutationApplier, messageLimit);
+    }
+
+    /**
+     * Indicates whether the replica has been initialised from a snapshot, and has
+     * not missed any mutations since.
+     *
+     * @return whether the replica is consistent with the leader
+     */
+    public boolean isConsistent()
+    {
+        return consistent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> boolean load(final long id, final Decoder<B, T> decoder, final T container)
+    {
+        return store.load(id, decoder, container);
+    }
+
+    /**
+     * Unsupported; a replica is read-only.
+     */
+    @Override
+    public <T> void store(final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        throw new UnsupportedOperationException("Replica is read-only");
+    }
+
+    /**
+     * Unsupported; a replica is read-only.
+     */
+    @Override
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        throw new UnsupportedOperationException("Replica is read-only");
+    }
+
+    /**
+     * Unsupported; a replica is read-only.
+     */
+    @Override
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        throw new UnsupportedOperationException("Replica is read-only");
+    }
+
+    /**
+     * Unsupported; a replica is read-only.
+     */
+    @Override
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        throw new UnsupportedOperationException("Replica is read-only");
+    }
+
+    /**
+     * Unsupported; a replica is read-only.
+     */
+    @Override
+    public boolean remove(final long id)
+    {
+        throw new UnsupportedOperationException("Replica is read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void compact()
+    {
+        store.compact();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sync()
+    {
+        store.sync();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(final FileChannel output)
+    {
+        store.writeTo(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float utilisation()
+    {
+        return store.utilisation();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return store.size();
+    }
+
+    /**
+     * Unsupported; a replica is read-only.
+     */
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException("Replica is read-only");
+    }
+
+    private static long idOf(final RecordBytes recordBytes)
+    {
+        return recordBytes.id;
+    }
+
+    private static final class RecordBytes
+    {
+        private long id;
+        private DirectBuffer buffer;
+        private int offset;
+        private int length;
+        private int fieldOffset;
+    }
+
+    private final class MutationApplier implements MutationHandler
+    {
+        @Override
+        public void onStore(
+            final long sequence, final long id, final DirectBuffer buffer, final int offset, final int length)
+        {
+            recordBytes.id = id;
+            recordBytes.buffer = buffer;
+            recordBytes.offset = offset;
+            recordBytes.length = length;
+            store.store(recordEncoder, recordBytes, ReplicaStore::idOf);
+        }
+
+        @Override
+        public void onUpdate(
+            final long sequence, final long id, final int fieldOffset,
+            final DirectBuffer buffer, final int offset, final int length)
+        {
+            recordBytes.buffer = buffer;
+            recordBytes.offset = offset;
+            recordBytes.length = length;
+            recordBytes.fieldOffset = fieldOffset;
+            store.update(id, fieldOffset, length, regionUpdater);
+        }
+
+        @Override
+        public void onRemove(final long sequence, final long id)
+        {
+            store.remove(id);
+        }
+
+        @Override
+        public void onClear(final long sequence)
+        {
+            store.clear();
+        }
+
+        @Override
+        public void onMutationsLost(final long fromSequence, final long toSequence)
+        {
+            consistent = false;
+        }
+    }
+}
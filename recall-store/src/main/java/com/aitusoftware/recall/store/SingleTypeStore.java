@@ -20,6 +20,7 @@ package com.aitusoftware.recall.store;
 import com.aitusoftware.recall.persistence.Decoder;
 import com.aitusoftware.recall.persistence.Encoder;
 import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
 
 import java.nio.channels.FileChannel;
 
@@ -77,6 +78,46 @@ public final class SingleTypeStore<B, T>
         store.store(encoder, value, idAccessor);
     }
 
+    /**
+     * Modifies an encoded entry in place.
+     *
+     * @param id      id to update
+     * @param updater function to modify the encoded entry
+     * @return indicates whether the ID was found
+     */
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        return store.update(id, updater);
+    }
+
+    /**
+     * Atomically adds a delta to a <code>long</code> field of an entry.
+     *
+     * @param id          id to update
+     * @param fieldOffset offset of the field within the encoded entry
+     * @param delta       value to add to the field
+     * @return the value of the field prior to the addition
+     */
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        return store.getAndAddLong(id, fieldOffset, delta);
+    }
+
+    /**
+     * Atomically sets a <code>long</code> field of an entry if it holds the expected value.
+     *
+     * @param id            id to update
+     * @param fieldOffset   offset of the field within the encoded entry
+     * @param expectedValue expected current value of the field
+     * @param updateValue   value to set
+     * @return indicates whether the field was updated
+     */
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        return store.compareAndSetLong(id, fieldOffset, expectedValue, updateValue);
+    }
+
     /**
      * Removes an entry.
      *
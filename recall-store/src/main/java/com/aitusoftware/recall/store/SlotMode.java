@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+/**
+ * Determines how a {@link BufferStore} reclaims the space used by removed records.
+ */
+public enum SlotMode
+{
+    /**
+     * The last record in the store is moved into the slot of a removed record,
+     * keeping records contiguous at the cost of a copy on each removal.
+     */
+    COMPACT,
+
+    /**
+     * Removed slots are placed on a free list and reused by subsequent inserts,
+     * so that a record is never moved once it has been written.
+     */
+    STABLE
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Writes the contents of a store's buffer directly to a file, using positional writes.
+ * <p>
+ * Snapshots of at least <code>parallelThreshold</code> bytes are split into up to <code>writerCount</code>
+ * contiguous ranges. The calling thread writes the first range, while the others are written concurrently by
+ * tasks submitted to <code>executor</code>, so that a large snapshot is not limited by the throughput of a
+ * single outstanding write. The executor is owned by the caller, so no threads are created per snapshot.
+ */
+final class SnapshotWriter
+{
+    static final int DEFAULT_PARALLEL_THRESHOLD = 64 * 1024 * 1024;
+    private static final int RANGE_ALIGNMENT = 1024 * 1024;
+
+    private final Executor executor;
+    private final int writerCount;
+    private final int parallelThreshold;
+
+    SnapshotWriter(final Executor executor, final int writerCount, final int parallelThreshold)
+    {
+        if (writerCount < 1)
+        {
+            throw new IllegalArgumentException("Writer count must be positive: " + writerCount);
+        }
+        this.executor = executor;
+        this.writerCount = writerCount;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Writes the remaining bytes of <code>source</code> to the file, starting at its current position. The
+     * position of the source is not modified, and the file is left positioned after the written data.
+     */
+    void write(final FileChannel fileChannel, final ByteBuffer source)
+    {
+        final int length = source.remaining();
+        try
+        {
+            final long basePosition = fileChannel.position();
+            if (writerCount == 1 || length < parallelThreshold)
+            {
+                writeRange(fileChannel, source, basePosition, 0, length);
+            }
+            else
+            {
+                writeRanges(fileChannel, source, basePosition, length);
+            }
+            fileChannel.position(basePosition + length);
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRanges(
+        final FileChannel fileChannel, final ByteBuffer source, final long basePosition, final int length)
+        throws IOException
+    {
+        final int rangeLength = alignedRangeLength(length);
+        final List<FutureTask<Void>> results = new ArrayList<>(writerCount - 1);
+        for (int rangeStart = rangeLength; rangeStart < length; rangeStart += rangeLength)
+        {
+            final int start = rangeStart;
+            final int end = Math.min(length, rangeStart + rangeLength);
+            final FutureTask<Void> result = new FutureTask<>(() ->
+            {
+                writeRange(fileChannel, source, basePosition, start, end);
+                return null;
+            });
+            executor.execute(result);
+            results.add(result);
+        }
+
+        IOException failure = null;
+        try
+        {
+            writeRange(fileChannel, source, basePosition, 0, Math.min(length, rangeLength));
+        }
+        catch (final IOException e)
+        {
+            failure = e;
+        }
+        for (final FutureTask<Void> result : results)
+        {
+            try
+            {
+                result.get();
+            }
+            catch (final ExecutionException e)
+            {
+                if (failure == null)
+                {
+                    failure = e.getCause() instanceof IOException ?
+                        (IOException)e.getCause() : new IOException(e.getCause());
+                }
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    private int alignedRangeLength(final int length)
+    {
+        final long rangeLength = (length + (long)writerCount - 1) / writerCount;
+        return (int)Math.min(length, ((rangeLength + RANGE_ALIGNMENT - 1) / RANGE_ALIGNMENT) * RANGE_ALIGNMENT);
+    }
+
+    private static void writeRange(
+        final FileChannel fileChannel, final ByteBuffer source, final long basePosition,
+        final int start, final int end) throws IOException
+    {
+        final ByteBuffer range = source.duplicate();
+        range.limit(source.position() + end);
+        range.position(source.position() + start);
+        long filePosition = basePosition + start;
+        while (range.remaining() != 0)
+        {
+            filePosition += fileChannel.write(range, filePosition);
+        }
+    }
+}
@@ -20,6 +20,7 @@ package com.aitusoftware.recall.store;
 import com.aitusoftware.recall.persistence.Decoder;
 import com.aitusoftware.recall.persistence.Encoder;
 import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
 
 import java.nio.channels.FileChannel;
 
@@ -51,6 +52,41 @@ public interface Store<B>
      */
     <T> void store(Encoder<B, T> encoder, T value, IdAccessor<T> idAccessor);
 
+    /**
+     * Attempts to modify the stored value belonging to the specified identifier in place.
+     *
+     * @param id      the identifier of the value to update
+     * @param updater the function that will modify the encoded value
+     * @return        indicates whether the identifier was found in the store
+     */
+    boolean update(long id, RecordUpdater<B> updater);
+
+    /**
+     * Atomically adds a delta to a <code>long</code> field of the value belonging to the specified identifier.
+     *
+     * @param id          the identifier of the value to update
+     * @param fieldOffset the offset of the field within the encoded value, which must be 8-byte aligned
+     * @param delta       the value to add to the field
+     * @return            the value of the field prior to the addition
+     * @throws IllegalArgumentException if the identifier is not present, or the field is outside the record
+     *                                  or not 8-byte aligned in memory
+     */
+    long getAndAddLong(long id, int fieldOffset, long delta);
+
+    /**
+     * Atomically sets a <code>long</code> field of the value belonging to the specified identifier,
+     * if the field holds the expected value.
+     *
+     * @param id            the identifier of the value to update
+     * @param fieldOffset   the offset of the field within the encoded value, which must be 8-byte aligned
+     * @param expectedValue the expected current value of the field
+     * @param updateValue   the value to set
+     * @return              indicates whether the field was updated
+     * @throws IllegalArgumentException if the identifier is not present, or the field is outside the record
+     *                                  or not 8-byte aligned in memory
+     */
+    boolean compareAndSetLong(long id, int fieldOffset, long expectedValue, long updateValue);
+
     /**
      * Attempts to remove the value belonging to the specified identifier.
      *
@@ -72,7 +108,8 @@ public interface Store<B>
     void sync();
 
     /**
-     * Write contents of store to the supplied {@code FileChannel}.
+     * Write contents of store to the supplied {@code FileChannel}, starting at its current position.
+     * The channel is left positioned after the written data.
      *
      * @param output the file to write to
      */
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+/**
+ * Counters describing the operations performed on a {@link BufferStore}.
+ * <p>
+ * Counters are allocated from an Agrona {@link CountersManager}, so that they can be observed by external
+ * processes when the manager is backed by a memory-mapped file (see
+ * {@link com.aitusoftware.recall.counters.CountersFile}). Updates are ordered writes by the single thread
+ * that owns the store, and do not allocate.
+ */
+public final class StoreCounters implements AutoCloseable
+{
+    /**
+     * Type id of the counter of successful loads.
+     */
+    public static final int HITS_TYPE_ID = 1100;
+    /**
+     * Type id of the counter of loads of absent ids.
+     */
+    public static final int MISSES_TYPE_ID = 1101;
+    /**
+     * Type id of the counter of stored records.
+     */
+    public static final int STORES_TYPE_ID = 1102;
+    /**
+     * Type id of the counter of removed records.
+     */
+    public static final int REMOVES_TYPE_ID = 1103;
+    /**
+     * Type id of the counter of buffer resizes.
+     */
+    public static final int RESIZES_TYPE_ID = 1104;
+
+    private final AtomicCounter hits;
+    private final AtomicCounter misses;
+    private final AtomicCounter stores;
+    private final AtomicCounter removes;
+    private final AtomicCounter resizes;
+
+    /**
+     * Constructor for the counters.
+     *
+     * @param countersManager the manager from which to allocate counters
+     * @param storeName       name of the store, used to label the counters
+     */
+    public StoreCounters(final CountersManager countersManager, final String storeName)
+    {
+        hits = countersManager.newCounter(storeName + ": hits", HITS_TYPE_ID);
+        misses = countersManager.newCounter(storeName + ": misses", MISSES_TYPE_ID);
+        stores = countersManager.newCounter(storeName + ": stores", STORES_TYPE_ID);
+        removes = countersManager.newCounter(storeName + ": removes", REMOVES_TYPE_ID);
+        resizes = countersManager.newCounter(storeName + ": resizes", RESIZES_TYPE_ID);
+    }
+
+    /**
+     * Returns the number of successful loads.
+     *
+     * @return the number of hits
+     */
+    public long hits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of loads of ids that were not present.
+     *
+     * @return the number of misses
+     */
+    public long misses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of stored records, including updates of existing records.
+     *
+     * @return the number of stores
+     */
+    public long stores()
+    {
+        return stores.get();
+    }
+
+    /**
+     * Returns the number of removed records.
+     *
+     * @return the number of removes
+     */
+    public long removes()
+    {
+        return removes.get();
+    }
+
+    /**
+     * Returns the number of times that the store's buffer has been resized.
+     *
+     * @return the number of resizes
+     */
+    public long resizes()
+    {
+        return resizes.get();
+    }
+
+    /**
+     * Frees the counters, so that they can be reused by the {@code CountersManager}.
+     */
+    @Override
+    public void close()
+    {
+        hits.close();
+        misses.close();
+        stores.close();
+        removes.close();
+        resizes.close();
+    }
+
+    void onHit()
+    {
+        hits.incrementOrdered();
+    }
+
+    void onMiss()
+    {
+        misses.incrementOrdered();
+    }
+
+    void onStore()
+    {
+        stores.incrementOrdered();
+    }
+
+    void onRemove()
+    {
+        removes.incrementOrdered();
+    }
+
+    void onResize()
+    {
+        resizes.incrementOrdered();
+    }
+}
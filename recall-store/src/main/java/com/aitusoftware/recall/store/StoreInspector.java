@@ -0,0 +1,425 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command-line tool for inspecting and verifying files written by a {@link BufferStore} or
+ * {@link AppendOnlyStore}, without loading the store into memory. Files written by a {@link DirectIndexStore}
+ * are not divided into slots of identifier and record, and are rejected.
+ * <p>
+ * The record region of the file is divided between a number of readers, each of which memory-maps
+ * and scans its own section of the file. The tool reports header fields, record counts, utilisation and
+ * a histogram of the number of bytes used in each record slot. Record ids are verified to be unique, and
+ * selected records can be dumped as hex.
+ * <p>
+ * Usage: {@code StoreInspector <file> [--readers <count>] [--dump <id>[,<id>...]] [--byte-order <order>]}
+ * <p>
+ * The byte order is only required for files written by version one of the store format, which did not record
+ * it; by default, such files are assumed to be little-endian.
+ */
+public final class StoreInspector
+{
+    private static final int ID_LENGTH = Long.BYTES;
+    private static final int HISTOGRAM_BUCKETS = Integer.SIZE + 1;
+    private static final int MAX_REPORTED_DUPLICATES = 10;
+    private static final int HEX_DUMP_WIDTH = 16;
+    private static final long[] NO_IDS = new long[0];
+
+    private final Path file;
+    private final int readerCount;
+    private final ByteOrder defaultByteOrder;
+
+    /**
+     * Constructor for the tool.
+     *
+     * @param file             the store file to inspect
+     * @param readerCount      the number of parallel readers
+     * @param defaultByteOrder the byte order of files that do not record it
+     */
+    public StoreInspector(final Path file, final int readerCount, final ByteOrder defaultByteOrder)
+    {
+        if (readerCount < 1)
+        {
+            throw new IllegalArgumentException("readerCount must be positive: " + readerCount);
+        }
+        this.file = file;
+        this.readerCount = readerCount;
+        this.defaultByteOrder = defaultByteOrder;
+    }
+
+    /**
+     * Prints a report of the contents of the file, and verifies that record ids are unique.
+     *
+     * @param out destination for the report
+     * @return indicates whether verification succeeded
+     * @throws IllegalArgumentException if the file was written by a {@link DirectIndexStore}
+     */
+    public boolean inspect(final PrintStream out)
+    {
+        return inspect(out, NO_IDS);
+    }
+
+    /**
+     * Prints a report of the contents of the file, verifies that record ids are unique, and
+     * prints the contents of any records with the specified ids.
+     *
+     * @param out     destination for the report
+     * @param dumpIds ids of records to be printed
+     * @return indicates whether verification succeeded
+     * @throws IllegalArgumentException if the file was written by a {@link DirectIndexStore}
+     */
+    public boolean inspect(final PrintStream out, final long[] dumpIds)
+    {
+        final long[] sortedDumpIds = dumpIds.clone();
+        Arrays.sort(sortedDumpIds);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            final Header header = Header.readFrom(channel);
+            if (header.storeKind() == StoreKind.DIRECT_INDEX)
+            {
+                throw new IllegalArgumentException(String.format(
+                    "Store was written with %s data, which cannot be inspected: %s", header.storeKind(), file));
+            }
+            final ByteOrder byteOrder = header.byteOrder() == null ? defaultByteOrder : header.byteOrder();
+            final int slotLength = header.slotLength();
+            final int slotCount = (header.nextWriteOffset() - header.headerLength()) / slotLength;
+            final long expectedLength = (long)header.headerLength() + header.storeLength();
+            if (channel.size() < (long)header.headerLength() + (long)slotCount * slotLength)
+            {
+                throw new IOException("File length " + channel.size() + " is less than required length");
+            }
+
+            printHeader(out, header, byteOrder, slotLength, channel.size(), expectedLength);
+
+            final SlotScan scan = scan(channel, header.headerLength(), slotLength, slotCount,
+                byteOrder, sortedDumpIds);
+            final int recordCount = scan.ids.length;
+            out.printf("%-20s %d%n", "Slots:", slotCount);
+            out.printf("%-20s %d%n", "Free slots:", scan.freeSlots);
+            out.printf("%-20s %d%n", "Records:", recordCount);
+            out.printf("%-20s %.4f%n", "Utilisation:",
+                header.storeLength() == 0 ? 0d : ((long)recordCount * slotLength) / (double)header.storeLength());
+            printHistogram(out, scan.usedBytesHistogram);
+
+            boolean valid = true;
+            if (header.recordCount() != Header.UNKNOWN_RECORD_COUNT && header.recordCount() != recordCount)
+            {
+                out.printf("Header record count %d does not match %d records in file%n",
+                    header.recordCount(), recordCount);
+                valid = false;
+            }
+            valid &= verifyUniqueIds(out, scan.ids);
+
+            for (final long dumpId : dumpIds)
+            {
+                dumpRecord(out, channel, header.headerLength(), slotLength, dumpId, scan.dumpSlots, sortedDumpIds);
+            }
+
+            return valid;
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Entry point for the command-line tool.
+     *
+     * @param args program arguments
+     */
+    public static void main(final String[] args)
+    {
+        if (args.length == 0)
+        {
+            System.err.println("Usage: StoreInspector <file> [--readers <count>] [--dump <id>[,<id>...]] " +
+                "[--byte-order LITTLE_ENDIAN|BIG_ENDIAN]");
+            System.exit(2);
+        }
+
+        int readerCount = Runtime.getRuntime().availableProcessors();
+        long[] dumpIds = NO_IDS;
+        ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+        for (int i = 1; i < args.length - 1; i += 2)
+        {
+            switch (args[i])
+            {
+                case "--readers":
+                    readerCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--dump":
+                    dumpIds = Arrays.stream(args[i + 1].split(",")).mapToLong(Long::parseLong).toArray();
+                    break;
+                case "--byte-order":
+                    byteOrder = "BIG_ENDIAN".equalsIgnoreCase(args[i + 1]) ?
+                        ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        final boolean valid = new StoreInspector(Paths.get(args[0]), readerCount, byteOrder)
+            .inspect(System.out, dumpIds);
+        System.exit(valid ? 0 : 1);
+    }
+
+    private SlotScan scan(
+        final FileChannel channel, final int dataPosition, final int slotLength, final int slotCount,
+        final ByteOrder byteOrder, final long[] sortedDumpIds) throws IOException
+    {
+        final int readers = Math.max(1, Math.min(readerCount, slotCount));
+        final int slotsPerReader = (slotCount + readers - 1) / readers;
+        final ExecutorService executor = Executors.newFixedThreadPool(readers, runnable ->
+        {
+            final Thread thread = new Thread(runnable, "store-inspector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            final List<Future<SlotScan>> results = new ArrayList<>(readers);
+            for (int firstSlot = 0; firstSlot < slotCount; firstSlot += slotsPerReader)
+            {
+                final int startSlot = firstSlot;
+                final int endSlot = Math.min(slotCount, firstSlot + slotsPerReader);
+                results.add(executor.submit(() -> scanSlots(
+                    channel, dataPosition, slotLength, startSlot, endSlot, byteOrder, sortedDumpIds)));
+            }
+
+            final SlotScan total = new SlotScan(0, sortedDumpIds.length);
+            for (final Future<SlotScan> result : results)
+            {
+                total.merge(result.get());
+            }
+            return total;
+        }
+        catch (final ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException)e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SlotScan scanSlots(
+        final FileChannel channel, final int dataPosition, final int slotLength, final int startSlot,
+        final int endSlot, final ByteOrder byteOrder, final long[] sortedDumpIds) throws IOException
+    {
+        final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+            dataPosition + (long)startSlot * slotLength, (long)(endSlot - startSlot) * slotLength);
+        region.order(byteOrder);
+        final SlotScan scan = new SlotScan(endSlot - startSlot, sortedDumpIds.length);
+        int recordCount = 0;
+        for (int slot = startSlot; slot < endSlot; slot++)
+        {
+            final int slotOffset = (slot - startSlot) * slotLength;
+            final long id = region.getLong(slotOffset);
+            if (id == BufferStore.FREE_SLOT_ID)
+            {
+                scan.freeSlots++;
+                continue;
+            }
+
+            scan.ids[recordCount++] = id;
+            scan.usedBytesHistogram[bucketOf(usedBytes(region, slotOffset + ID_LENGTH, slotLength - ID_LENGTH))]++;
+            final int dumpIndex = Arrays.binarySearch(sortedDumpIds, id);
+            if (dumpIndex >= 0)
+            {
+                scan.dumpSlots[dumpIndex] = slot;
+            }
+        }
+        scan.ids = Arrays.copyOf(scan.ids, recordCount);
+
+        return scan;
+    }
+
+    private static int usedBytes(final MappedByteBuffer region, final int recordOffset, final int recordLength)
+    {
+        int length = recordLength;
+        while (length >= Long.BYTES && region.getLong(recordOffset + length - Long.BYTES) == 0L)
+        {
+            length -= Long.BYTES;
+        }
+        while (length > 0 && region.get(recordOffset + length - 1) == 0)
+        {
+            length--;
+        }
+        return length;
+    }
+
+    private static int bucketOf(final int usedBytes)
+    {
+        return usedBytes == 0 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(usedBytes - 1) + 1;
+    }
+
+    private static void printHeader(
+        final PrintStream out, final Header header, final ByteOrder byteOrder,
+        final int slotLength, final long fileLength, final long expectedLength)
+    {
+        out.printf("%-20s %s%n", "Version:", header.version());
+        out.printf("%-20s %d%n", "Header length:", header.headerLength());
+        out.printf("%-20s %s%n", "Store kind:", header.storeKind());
+        out.printf("%-20s %s%s%n", "Byte order:", byteOrder, header.byteOrder() == null ? " (assumed)" : "");
+        out.printf("%-20s %d%n", "Store length:", header.storeLength());
+        out.printf("%-20s %d%n", "File length:", fileLength);
+        if (fileLength != expectedLength)
+        {
+            out.printf("%-20s %d%n", "Expected length:", expectedLength);
+        }
+        out.printf("%-20s %d%n", "Max record length:", header.maxRecordLength());
+        out.printf("%-20s %d%n", "Slot length:", slotLength);
+        out.printf("%-20s %d%n", "Slot alignment:", header.slotAlignment());
+        out.printf("%-20s %d%n", "Next write offset:", header.nextWriteOffset());
+        out.printf("%-20s %s%n", "Header records:",
+            header.recordCount() == Header.UNKNOWN_RECORD_COUNT ? "unknown" : Integer.toString(header.recordCount()));
+    }
+
+    private static void printHistogram(final PrintStream out, final long[] usedBytesHistogram)
+    {
+        out.println("Used bytes per record:");
+        for (int bucket = 0; bucket < usedBytesHistogram.length; bucket++)
+        {
+            if (usedBytesHistogram[bucket] != 0)
+            {
+                final long upperBound = bucket == 0 ? 0 : 1L << (bucket - 1);
+                final long lowerBound = bucket <= 1 ? upperBound : (upperBound >> 1) + 1;
+                out.printf("  %10d - %-10d %d%n", lowerBound, upperBound, usedBytesHistogram[bucket]);
+            }
+        }
+    }
+
+    private static boolean verifyUniqueIds(final PrintStream out, final long[] ids)
+    {
+        Arrays.parallelSort(ids);
+        int duplicateCount = 0;
+        for (int i = 1; i < ids.length; i++)
+        {
+            if (ids[i] == ids[i - 1])
+            {
+                if (duplicateCount < MAX_REPORTED_DUPLICATES)
+                {
+                    out.printf("Duplicate id: %d%n", ids[i]);
+                }
+                duplicateCount++;
+            }
+        }
+        out.printf("%-20s %d%n", "Duplicate ids:", duplicateCount);
+
+        return duplicateCount == 0;
+    }
+
+    private static void dumpRecord(
+        final PrintStream out, final FileChannel channel, final int dataPosition, final int slotLength,
+        final long id, final int[] dumpSlots, final long[] sortedDumpIds) throws IOException
+    {
+        final int slot = dumpSlots[Arrays.binarySearch(sortedDumpIds, id)];
+        if (slot == SlotScan.NOT_FOUND)
+        {
+            out.printf("Record %d: not found%n", id);
+            return;
+        }
+
+        final long slotPosition = dataPosition + (long)slot * slotLength;
+        final MappedByteBuffer record = channel.map(
+            FileChannel.MapMode.READ_ONLY, slotPosition + ID_LENGTH, slotLength - ID_LENGTH);
+        out.printf("Record %d: slot %d, file offset %d%n", id, slot, slotPosition);
+        final StringBuilder line = new StringBuilder();
+        for (int lineOffset = 0; lineOffset < record.capacity(); lineOffset += HEX_DUMP_WIDTH)
+        {
+            line.setLength(0);
+            line.append(String.format("  %08x ", lineOffset));
+            final int lineEnd = Math.min(record.capacity(), lineOffset + HEX_DUMP_WIDTH);
+            for (int i = lineOffset; i < lineOffset + HEX_DUMP_WIDTH; i++)
+            {
+                line.append(i < lineEnd ? String.format(" %02x", record.get(i) & 0xFF) : "   ");
+            }
+            line.append("  |");
+            for (int i = lineOffset; i < lineEnd; i++)
+            {
+                final int value = record.get(i) & 0xFF;
+                line.append(value >= 0x20 && value < 0x7F ? (char)value : '.');
+            }
+            out.println(line.append('|'));
+        }
+    }
+
+    private static final class SlotScan
+    {
+        private static final int NOT_FOUND = -1;
+
+        private final long[] usedBytesHistogram = new long[HISTOGRAM_BUCKETS];
+        private final int[] dumpSlots;
+        private long[] ids;
+        private long freeSlots;
+
+        SlotScan(final int slotCount, final int dumpIdCount)
+        {
+            ids = new long[slotCount];
+            dumpSlots = new int[dumpIdCount];
+            Arrays.fill(dumpSlots, NOT_FOUND);
+        }
+
+        void merge(final SlotScan other)
+        {
+            final int offset = ids.length;
+            ids = Arrays.copyOf(ids, offset + other.ids.length);
+            System.arraycopy(other.ids, 0, ids, offset, other.ids.length);
+            freeSlots += other.freeSlots;
+            for (int i = 0; i < usedBytesHistogram.length; i++)
+            {
+                usedBytesHistogram[i] += other.usedBytesHistogram[i];
+            }
+            for (int i = 0; i < dumpSlots.length; i++)
+            {
+                if (other.dumpSlots[i] != NOT_FOUND)
+                {
+                    dumpSlots[i] = other.dumpSlots[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+/**
+ * Layout of the data following a store header, recorded so that a file is only loaded by a store that can read it.
+ */
+enum StoreKind
+{
+    /**
+     * Slots of identifier and record, as written by {@link BufferStore}.
+     */
+    SLOTTED(0),
+    /**
+     * Base identifier, presence bitmap and records, as written by {@link DirectIndexStore}.
+     */
+    DIRECT_INDEX(1),
+    /**
+     * Slots of identifier and record in ascending identifier order, as written by {@link AppendOnlyStore}.
+     */
+    APPEND_ONLY(2);
+
+    private final int value;
+
+    StoreKind(final int value)
+    {
+        this.value = value;
+    }
+
+    static StoreKind from(final int value)
+    {
+        for (final StoreKind storeKind : values())
+        {
+            if (storeKind.value == value)
+            {
+                return storeKind;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown store kind: " + value);
+    }
+
+    int value()
+    {
+        return value;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Utility for migrating files written by a {@link BufferStore} or {@link AppendOnlyStore} to the current
+ * header version.
+ * <p>
+ * Record data is streamed between files without being copied into the heap. Metadata that is not present
+ * in older versions (e.g. record count) is marked as unknown, and will be recorded the next time that
+ * the store is written.
+ */
+public final class StoreMigrator
+{
+    private static final ByteBufferOps HEADER_BUFFER_OPS = new ByteBufferOps();
+
+    private StoreMigrator()
+    {
+    }
+
+    /**
+     * Writes a copy of the source file, using the current header version, to the target file.
+     *
+     * @param source the file to migrate
+     * @param target the file to write
+     * @return the version of the source file
+     */
+    public static Version migrate(final Path source, final Path target)
+    {
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+            FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            final Header header = Header.readFrom(input);
+            final Version sourceVersion = header.version();
+            final long dataPosition = header.headerLength();
+            final ByteBuffer headerBuffer = ByteBuffer.allocateDirect(Header.LENGTH);
+            header.toCurrentVersion().writeTo(headerBuffer, HEADER_BUFFER_OPS, 0);
+            while (headerBuffer.remaining() != 0)
+            {
+                output.write(headerBuffer);
+            }
+
+            long transferred = 0;
+            while (transferred < header.storeLength())
+            {
+                final long count = input.transferTo(
+                    dataPosition + transferred, header.storeLength() - transferred, output);
+                if (count <= 0)
+                {
+                    throw new IOException("Unable to transfer data from " + source + " at " + transferred);
+                }
+                transferred += count;
+            }
+
+            return sourceVersion;
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Migrates a file to the current header version, replacing the existing file.
+     * Files that are already at the current version are not modified.
+     *
+     * @param file the file to migrate
+     * @return indicates whether the file was migrated
+     */
+    public static boolean migrateInPlace(final Path file)
+    {
+        try
+        {
+            try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ))
+            {
+                if (Header.readFrom(input).version() == Version.TWO)
+                {
+                    return false;
+                }
+            }
+            final Path migrated = Files.createTempFile(file.toAbsolutePath().getParent(), "recall-", ".migrate");
+            try
+            {
+                migrate(file, migrated);
+                Files.move(migrated, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                Files.deleteIfExists(migrated);
+            }
+
+            return true;
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
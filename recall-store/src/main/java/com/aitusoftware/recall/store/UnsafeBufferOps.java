@@ -17,19 +17,43 @@
  */
 package com.aitusoftware.recall.store;
 
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
 
 /**
  * Utility class for performing operations on an {@link UnsafeBuffer}.
  */
 public final class UnsafeBufferOps extends BufferOps<UnsafeBuffer>
 {
+    /**
+     * Constructor for an instance that writes snapshots using the calling thread.
+     */
+    public UnsafeBufferOps()
+    {
+    }
+
+    /**
+     * Constructor for an instance that writes large snapshots in several ranges concurrently. The calling
+     * thread writes the first range, and the others are written by tasks submitted to
+     * <code>snapshotExecutor</code>, which remains owned by the caller.
+     *
+     * @param snapshotExecutor    executor used to write all but the first range of a snapshot
+     * @param snapshotWriterCount the maximum number of ranges written concurrently
+     */
+    public UnsafeBufferOps(final Executor snapshotExecutor, final int snapshotWriterCount)
+    {
+        super(snapshotExecutor, snapshotWriterCount);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -53,18 +77,83 @@ public final class UnsafeBufferOps extends BufferOps<UnsafeBuffer>
         return new UnsafeBuffer(content);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    UnsafeBuffer mapReadOnly(final FileChannel fileChannel, final long offset, final int length)
+    {
+        try
+        {
+            return new UnsafeBuffer(fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void readFrom(
+        final FileChannel fileChannel, final long filePosition,
+        final UnsafeBuffer buffer, final int bufferOffset, final int length)
+    {
+        final ByteBuffer tmp = ByteBuffer.allocateDirect(4096);
+        int offset = 0;
+        try
+        {
+            fileChannel.position(filePosition);
+            while (offset != length)
+            {
+                tmp.clear();
+                tmp.limit(Math.min(tmp.capacity(), length - offset));
+                while (tmp.remaining() != 0)
+                {
+                    if (fileChannel.read(tmp) < 0)
+                    {
+                        throw new EOFException("Unexpected end of file at " + (filePosition + offset + tmp.position()));
+                    }
+                }
+                buffer.putBytes(bufferOffset + offset, tmp, 0, tmp.limit());
+                offset += tmp.limit();
+            }
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     void storeTo(final FileChannel fileChannel, final UnsafeBuffer buffer, final int length)
     {
+        final ByteBuffer wrappedBuffer = buffer.byteBuffer();
+        if (wrappedBuffer != null)
+        {
+            final ByteBuffer source = wrappedBuffer.duplicate();
+            source.clear();
+            source.limit(buffer.wrapAdjustment() + length);
+            source.position(buffer.wrapAdjustment());
+            writeSnapshot(fileChannel, source);
+            return;
+        }
+        if (buffer.byteArray() != null)
+        {
+            writeSnapshot(fileChannel, ByteBuffer.wrap(buffer.byteArray(), buffer.wrapAdjustment(), length));
+            return;
+        }
+
         final ByteBuffer tmp = ByteBuffer.allocateDirect(4096);
         int lengthRemaining = length;
         int offset = 0;
         try
         {
-            fileChannel.position(0);
             while (lengthRemaining != 0)
             {
                 tmp.clear();
@@ -104,6 +193,27 @@ public final class UnsafeBufferOps extends BufferOps<UnsafeBuffer>
         return buffer.getLong(offset);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    long getAndAddLong(final UnsafeBuffer buffer, final int offset, final long delta)
+    {
+        verifyLongAligned(buffer.addressOffset() + offset, offset);
+        return buffer.getAndAddLong(offset, delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean compareAndSetLong(
+        final UnsafeBuffer buffer, final int offset, final long expectedValue, final long updateValue)
+    {
+        verifyLongAligned(buffer.addressOffset() + offset, offset);
+        return buffer.compareAndSetLong(offset, expectedValue, updateValue);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -151,6 +261,28 @@ public final class UnsafeBufferOps extends BufferOps<UnsafeBuffer>
         target.putBytes(targetOffset, source, sourceOffset, length);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void copyTo(
+        final UnsafeBuffer source, final int sourceOffset,
+        final MutableDirectBuffer target, final int targetOffset, final int length)
+    {
+        target.putBytes(targetOffset, source, sourceOffset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void copyFrom(
+        final DirectBuffer source, final int sourceOffset,
+        final UnsafeBuffer target, final int targetOffset, final int length)
+    {
+        target.putBytes(targetOffset, source, sourceOffset, length);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -19,7 +19,8 @@ package com.aitusoftware.recall.store;
 
 public enum Version
 {
-    ONE(1);
+    ONE(1),
+    TWO(2);
 
     private final int versionNumber;
 
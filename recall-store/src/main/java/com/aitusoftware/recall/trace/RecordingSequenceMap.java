@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+import com.aitusoftware.recall.map.SequenceMap;
+import org.agrona.concurrent.NanoClock;
+
+import java.nio.ByteBuffer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Decorator for a {@link SequenceMap} that records each operation to a {@link TraceWriter}.
+ * <p>
+ * Keys are recorded as a 64-bit hash and a length, so that a trace does not contain key data; replay
+ * substitutes a distinct synthetic key of the same length for each distinct hash. Recording does not allocate.
+ *
+ * @param <T> type of the map key
+ */
+public final class RecordingSequenceMap<T> implements SequenceMap<T>
+{
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final SequenceMap<T> delegate;
+    private final TraceWriter traceWriter;
+    private final ToLongFunction<T> keyHash;
+    private final ToIntFunction<T> keyLength;
+    private final NanoClock nanoClock;
+
+    /**
+     * Constructor for the map.
+     *
+     * @param delegate    the map to record
+     * @param traceWriter destination for recorded operations
+     * @param keyHash     function returning a hash of a key
+     * @param keyLength   function returning the length of a key
+     * @param nanoClock   source of operation timestamps
+     */
+    public RecordingSequenceMap(
+        final SequenceMap<T> delegate, final TraceWriter traceWriter,
+        final ToLongFunction<T> keyHash, final ToIntFunction<T> keyLength, final NanoClock nanoClock)
+    {
+        this.delegate = delegate;
+        this.traceWriter = traceWriter;
+        this.keyHash = keyHash;
+        this.keyLength = keyLength;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Creates a recording decorator for a map with {@code CharSequence} keys.
+     *
+     * @param delegate    the map to record
+     * @param traceWriter destination for recorded operations
+     * @return the recording map
+     */
+    public static RecordingSequenceMap<CharSequence> forCharSequenceKeys(
+        final SequenceMap<CharSequence> delegate, final TraceWriter traceWriter)
+    {
+        return new RecordingSequenceMap<>(
+            delegate, traceWriter, RecordingSequenceMap::hash, CharSequence::length, System::nanoTime);
+    }
+
+    /**
+     * Creates a recording decorator for a map with {@code ByteBuffer} keys.
+     *
+     * @param delegate    the map to record
+     * @param traceWriter destination for recorded operations
+     * @return the recording map
+     */
+    public static RecordingSequenceMap<ByteBuffer> forByteBufferKeys(
+        final SequenceMap<ByteBuffer> delegate, final TraceWriter traceWriter)
+    {
+        return new RecordingSequenceMap<>(
+            delegate, traceWriter, RecordingSequenceMap::hash, ByteBuffer::remaining, System::nanoTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(final T value, final long id)
+    {
+        record(TraceOperation.MAP_PUT, value);
+        delegate.put(value, id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long get(final T value)
+    {
+        record(TraceOperation.MAP_GET, value);
+        return delegate.get(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long remove(final T value)
+    {
+        record(TraceOperation.MAP_REMOVE, value);
+        return delegate.remove(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rehash()
+    {
+        delegate.rehash();
+    }
+
+    static long hash(final CharSequence value)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static long hash(final ByteBuffer value)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = value.position(); i < value.limit(); i++)
+        {
+            hash = (hash ^ (value.get(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private void record(final TraceOperation operation, final T value)
+    {
+        traceWriter.record(operation, keyHash.applyAsLong(value), keyLength.applyAsInt(value), nanoClock.nanoTime());
+    }
+}
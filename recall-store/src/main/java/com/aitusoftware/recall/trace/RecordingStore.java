@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+import com.aitusoftware.recall.persistence.Decoder;
+import com.aitusoftware.recall.persistence.Encoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import com.aitusoftware.recall.store.Store;
+import org.agrona.concurrent.NanoClock;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Decorator for a {@link Store} that records each keyed operation to a {@link TraceWriter}.
+ * <p>
+ * Recording does not allocate. The trace can be replayed against a different store configuration to compare
+ * its performance under a production access pattern.
+ *
+ * @param <B> type of the underlying buffer
+ */
+public final class RecordingStore<B> implements Store<B>
+{
+    private final Store<B> delegate;
+    private final TraceWriter traceWriter;
+    private final NanoClock nanoClock;
+
+    /**
+     * Constructor for the store.
+     *
+     * @param delegate    the store to record
+     * @param traceWriter destination for recorded operations
+     */
+    public RecordingStore(final Store<B> delegate, final TraceWriter traceWriter)
+    {
+        this(delegate, traceWriter, System::nanoTime);
+    }
+
+    /**
+     * Constructor for the store.
+     *
+     * @param delegate    the store to record
+     * @param traceWriter destination for recorded operations
+     * @param nanoClock   source of operation timestamps
+     */
+    public RecordingStore(final Store<B> delegate, final TraceWriter traceWriter, final NanoClock nanoClock)
+    {
+        this.delegate = delegate;
+        this.traceWriter = traceWriter;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> boolean load(final long id, final Decoder<B, T> decoder, final T container)
+    {
+        traceWriter.record(TraceOperation.LOAD, id, 0, nanoClock.nanoTime());
+        return delegate.load(id, decoder, container);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void store(final Encoder<B, T> encoder, final T value, final IdAccessor<T> idAccessor)
+    {
+        traceWriter.record(TraceOperation.STORE, idAccessor.getId(value), 0, nanoClock.nanoTime());
+        delegate.store(encoder, value, idAccessor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean update(final long id, final RecordUpdater<B> updater)
+    {
+        traceWriter.record(TraceOperation.UPDATE, id, 0, nanoClock.nanoTime());
+        return delegate.update(id, updater);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAndAddLong(final long id, final int fieldOffset, final long delta)
+    {
+        traceWriter.record(TraceOperation.GET_AND_ADD, id, 0, nanoClock.nanoTime());
+        return delegate.getAndAddLong(id, fieldOffset, delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean compareAndSetLong(
+        final long id, final int fieldOffset, final long expectedValue, final long updateValue)
+    {
+        traceWriter.record(TraceOperation.COMPARE_AND_SET, id, 0, nanoClock.nanoTime());
+        return delegate.compareAndSetLong(id, fieldOffset, expectedValue, updateValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final long id)
+    {
+        traceWriter.record(TraceOperation.REMOVE, id, 0, nanoClock.nanoTime());
+        return delegate.remove(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void compact()
+    {
+        delegate.compact();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sync()
+    {
+        delegate.sync();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(final FileChannel output)
+    {
+        delegate.writeTo(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float utilisation()
+    {
+        return delegate.utilisation();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear()
+    {
+        delegate.clear();
+    }
+}
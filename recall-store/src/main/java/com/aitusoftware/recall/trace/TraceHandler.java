@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+/**
+ * Receives the operations read from a trace.
+ */
+@FunctionalInterface
+public interface TraceHandler
+{
+    /**
+     * Called for each operation in a trace.
+     *
+     * @param operation      the operation
+     * @param key            the record id for store operations, or a hash of the key for map operations
+     * @param keyLength      length of the key for map operations, or zero for store operations
+     * @param timestampNanos time at which the operation started, from the clock of the recording process
+     */
+    void onOperation(TraceOperation operation, long key, int keyLength, long timestampNanos);
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+/**
+ * Operations recorded in a trace.
+ */
+public enum TraceOperation
+{
+    /**
+     * {@link com.aitusoftware.recall.store.Store#load}.
+     */
+    LOAD(1),
+    /**
+     * {@link com.aitusoftware.recall.store.Store#store}.
+     */
+    STORE(2),
+    /**
+     * {@link com.aitusoftware.recall.store.Store#update}.
+     */
+    UPDATE(3),
+    /**
+     * {@link com.aitusoftware.recall.store.Store#getAndAddLong}.
+     */
+    GET_AND_ADD(4),
+    /**
+     * {@link com.aitusoftware.recall.store.Store#compareAndSetLong}.
+     */
+    COMPARE_AND_SET(5),
+    /**
+     * {@link com.aitusoftware.recall.store.Store#remove}.
+     */
+    REMOVE(6),
+    /**
+     * {@link com.aitusoftware.recall.map.SequenceMap#put}.
+     */
+    MAP_PUT(7),
+    /**
+     * {@link com.aitusoftware.recall.map.SequenceMap#get}.
+     */
+    MAP_GET(8),
+    /**
+     * {@link com.aitusoftware.recall.map.SequenceMap#remove}.
+     */
+    MAP_REMOVE(9);
+
+    private static final TraceOperation[] BY_CODE = new TraceOperation[10];
+
+    static
+    {
+        for (final TraceOperation operation : values())
+        {
+            BY_CODE[operation.code] = operation;
+        }
+    }
+
+    private final int code;
+
+    TraceOperation(final int code)
+    {
+        this.code = code;
+    }
+
+    /**
+     * Returns the operation recorded with the specified code.
+     *
+     * @param code the code
+     * @return the operation
+     */
+    public static TraceOperation from(final int code)
+    {
+        if (code <= 0 || code >= BY_CODE.length)
+        {
+            throw new IllegalArgumentException("Unknown operation code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Returns the code recorded in a trace for this operation.
+     *
+     * @return the code
+     */
+    public int code()
+    {
+        return code;
+    }
+
+    /**
+     * Indicates whether this is a map operation, in which case the key is a hash of the map key.
+     *
+     * @return whether this is a map operation
+     */
+    public boolean isMapOperation()
+    {
+        return code >= MAP_PUT.code;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+import static com.aitusoftware.recall.trace.TraceWriter.HEADER_LENGTH;
+import static com.aitusoftware.recall.trace.TraceWriter.KEY_LENGTH_OFFSET;
+import static com.aitusoftware.recall.trace.TraceWriter.KEY_OFFSET;
+import static com.aitusoftware.recall.trace.TraceWriter.OPERATION_OFFSET;
+import static com.aitusoftware.recall.trace.TraceWriter.RECORD_LENGTH;
+import static com.aitusoftware.recall.trace.TraceWriter.TIMESTAMP_OFFSET;
+
+/**
+ * Reads the operations from a trace file written by a {@link TraceWriter}.
+ */
+public final class TraceReader implements AutoCloseable
+{
+    private final MappedByteBuffer mappedFile;
+    private final UnsafeBuffer buffer;
+
+    private TraceReader(final MappedByteBuffer mappedFile)
+    {
+        this.mappedFile = mappedFile;
+        this.buffer = new UnsafeBuffer(mappedFile);
+        final int magic = buffer.capacity() < HEADER_LENGTH ? 0 : buffer.getIntVolatile(TraceWriter.MAGIC_OFFSET);
+        if (magic != TraceWriter.MAGIC)
+        {
+            IoUtil.unmap(mappedFile);
+            throw new IllegalArgumentException("Not a trace file");
+        }
+        final int version = buffer.getInt(TraceWriter.VERSION_OFFSET);
+        if (version != TraceWriter.VERSION)
+        {
+            IoUtil.unmap(mappedFile);
+            throw new IllegalArgumentException("Unsupported trace file version: " + version);
+        }
+    }
+
+    /**
+     * Opens an existing trace file.
+     *
+     * @param file the file to open
+     * @return the trace reader
+     */
+    public static TraceReader open(final Path file)
+    {
+        return new TraceReader(IoUtil.mapExistingFile(file.toFile(), "trace"));
+    }
+
+    /**
+     * Returns the number of operations recorded in the file.
+     *
+     * @return the number of operations
+     */
+    public int recordCount()
+    {
+        return (int)buffer.getLongVolatile(TraceWriter.RECORD_COUNT_OFFSET);
+    }
+
+    /**
+     * Passes each recorded operation to the supplied handler, in the order in which they were recorded.
+     *
+     * @param handler receives the operations
+     * @return the number of operations read
+     */
+    public int forEach(final TraceHandler handler)
+    {
+        return forEach(handler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Passes at most <code>limit</code> recorded operations to the supplied handler, in the order in which they
+     * were recorded.
+     * <p>
+     * Operations recorded by a live writer after this call starts are not read, and a caller that sized its
+     * storage from {@link #recordCount()} can pass that count as the limit.
+     *
+     * @param handler receives the operations
+     * @param limit   the maximum number of operations to read
+     * @return the number of operations read
+     */
+    public int forEach(final TraceHandler handler, final int limit)
+    {
+        final int recordCount = Math.min(limit, recordCount());
+        for (int i = 0; i < recordCount; i++)
+        {
+            final int offset = HEADER_LENGTH + i * RECORD_LENGTH;
+            handler.onOperation(
+                TraceOperation.from(buffer.getInt(offset + OPERATION_OFFSET)),
+                buffer.getLong(offset + KEY_OFFSET),
+                buffer.getInt(offset + KEY_LENGTH_OFFSET),
+                buffer.getLong(offset + TIMESTAMP_OFFSET));
+        }
+        return recordCount;
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close()
+    {
+        IoUtil.unmap(mappedFile);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes operations to a memory-mapped trace file, for later replay.
+ * <p>
+ * The file consists of a header, followed by fixed-length records, each containing a timestamp, a key, a key
+ * length and an operation code. The file is sized on creation; once it is full, further operations are counted,
+ * but not recorded. Recording does not allocate, and the record count is published after each record, so that
+ * a trace can be read while it is being written, or after the writing process has exited.
+ * <p>
+ * Store operations are recorded with a key length of zero, rather than the length of the encoded record: an
+ * {@code Encoder} does not report the length that it writes, and a replay stores records of a configured length.
+ * <p>
+ * A writer is not thread-safe, and should be used by the thread that owns the recorded component.
+ */
+public final class TraceWriter implements AutoCloseable
+{
+    /**
+     * Identifies a trace file.
+     */
+    public static final int MAGIC = 0x52435452;
+    /**
+     * Version of the file layout.
+     */
+    public static final int VERSION = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = Integer.BYTES;
+    static final int CAPACITY_OFFSET = 2 * Integer.BYTES;
+    static final int RECORD_COUNT_OFFSET = 2 * Long.BYTES;
+    static final int HEADER_LENGTH = 64;
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int KEY_OFFSET = Long.BYTES;
+    static final int KEY_LENGTH_OFFSET = 2 * Long.BYTES;
+    static final int OPERATION_OFFSET = KEY_LENGTH_OFFSET + Integer.BYTES;
+    static final int RECORD_LENGTH = 3 * Long.BYTES;
+
+    private final MappedByteBuffer mappedFile;
+    private final UnsafeBuffer buffer;
+    private final int capacity;
+    private int recordCount;
+    private long droppedCount;
+
+    private TraceWriter(final MappedByteBuffer mappedFile, final int capacity)
+    {
+        this.mappedFile = mappedFile;
+        this.buffer = new UnsafeBuffer(mappedFile);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a new trace file, replacing any existing file.
+     * <p>
+     * An existing file is deleted rather than truncated, so that a reader still mapping it is not faulted.
+     *
+     * @param file       the file to create
+     * @param maxRecords the maximum number of operations that can be recorded
+     * @return the trace writer
+     */
+    public static TraceWriter create(final Path file, final int maxRecords)
+    {
+        if (maxRecords < 1)
+        {
+            throw new IllegalArgumentException("maxRecords must be positive: " + maxRecords);
+        }
+        final long fileLength = HEADER_LENGTH + (long)maxRecords * RECORD_LENGTH;
+        if (fileLength > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Too many records: " + maxRecords);
+        }
+
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        final TraceWriter writer = new TraceWriter(IoUtil.mapNewFile(file.toFile(), fileLength), maxRecords);
+        writer.buffer.putInt(CAPACITY_OFFSET, maxRecords);
+        writer.buffer.putInt(VERSION_OFFSET, VERSION);
+        writer.buffer.putIntOrdered(MAGIC_OFFSET, MAGIC);
+        return writer;
+    }
+
+    /**
+     * Records an operation.
+     *
+     * @param operation      the operation
+     * @param key            the record id for store operations, or a hash of the key for map operations
+     * @param keyLength      length of the key for map operations, or zero for store operations
+     * @param timestampNanos time at which the operation started
+     */
+    public void record(final TraceOperation operation, final long key, final int keyLength, final long timestampNanos)
+    {
+        if (recordCount == capacity)
+        {
+            droppedCount++;
+            return;
+        }
+        final int offset = HEADER_LENGTH + recordCount * RECORD_LENGTH;
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestampNanos);
+        buffer.putLong(offset + KEY_OFFSET, key);
+        buffer.putInt(offset + KEY_LENGTH_OFFSET, keyLength);
+        buffer.putInt(offset + OPERATION_OFFSET, operation.code());
+        recordCount++;
+        buffer.putLongOrdered(RECORD_COUNT_OFFSET, recordCount);
+    }
+
+    /**
+     * Returns the number of operations recorded.
+     *
+     * @return the number of operations recorded
+     */
+    public int recordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * Returns the number of operations that were not recorded because the file was full.
+     *
+     * @return the number of operations dropped
+     */
+    public long droppedCount()
+    {
+        return droppedCount;
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close()
+    {
+        IoUtil.unmap(mappedFile);
+    }
+}
@@ -60,7 +60,7 @@ public final class OrderUnsafeBufferTranscoder implements Encoder<UnsafeBuffer,
     }
 
     private static final int ID_OFFSET = 0;
-    private static final int INSTRUMENT_ID_OFFSET = ID_OFFSET + Long.BYTES;
+    public static final int INSTRUMENT_ID_OFFSET = ID_OFFSET + Long.BYTES;
     private static final int CREATED_SECONDS_OFFSET = INSTRUMENT_ID_OFFSET + Long.BYTES;
     private static final int CREATED_NANOS_OFFSET = CREATED_SECONDS_OFFSET + Long.BYTES;
     private static final int EXECUTED_SECONDS_OFFSET = CREATED_NANOS_OFFSET + Integer.BYTES;
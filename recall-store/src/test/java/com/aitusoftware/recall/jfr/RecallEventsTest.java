@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.jfr;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import com.aitusoftware.recall.map.CharSequenceMap;
+import com.aitusoftware.recall.store.BufferStore;
+import com.aitusoftware.recall.store.ByteBufferOps;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class RecallEventsTest
+{
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final Recording recording = new Recording();
+    private Path recordingFile;
+    private Path storeFile;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        recordingFile = Files.createTempFile("recall", ".jfr");
+        storeFile = Files.createTempFile("recall", ".store");
+        for (final String eventName : new String[]{"BufferResize", "MapRehash", "SnapshotWrite", "SnapshotLoad"})
+        {
+            recording.enable(RecallEvents.EVENT_NAME_PREFIX + eventName);
+        }
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        recording.close();
+        Files.deleteIfExists(recordingFile);
+        Files.deleteIfExists(storeFile);
+    }
+
+    @Test
+    void shouldRecordStoreMaintenanceEvents() throws IOException
+    {
+        final BufferStore<ByteBuffer> store = new BufferStore<>(72, 2, ByteBuffer::allocateDirect, new ByteBufferOps());
+        for (int i = 0; i < 3; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            store.writeTo(channel);
+            BufferStore.loadFrom(channel, new ByteBufferOps(), ByteBuffer::allocateDirect);
+        }
+
+        final List<RecordedEvent> events = stopRecording();
+
+        final RecordedEvent resize = single(events, "BufferResize");
+        assertThat(resize.getString("storeType")).isEqualTo("BufferStore");
+        assertThat(resize.getLong("previousCapacity")).isEqualTo(160L);
+        assertThat(resize.getLong("newCapacity")).isEqualTo(320L);
+        assertThat(resize.getLong("bytesCopied")).isEqualTo(160L);
+        final RecordedEvent write = single(events, "SnapshotWrite");
+        assertThat(write.getInt("recordCount")).isEqualTo(3);
+        assertThat(write.getLong("bytesWritten")).isEqualTo(384L);
+        final RecordedEvent load = single(events, "SnapshotLoad");
+        assertThat(load.getInt("recordCount")).isEqualTo(3);
+        assertThat(load.getInt("fileVersion")).isEqualTo(2);
+        assertThat(load.getLong("bytesRead")).isEqualTo(384L);
+    }
+
+    @Test
+    void shouldRecordMapRehashEvents() throws IOException
+    {
+        final CharSequenceMap map = new CharSequenceMap(16, 4, Long.MIN_VALUE);
+        for (int i = 0; i < 4; i++)
+        {
+            map.put("key_" + i, i);
+        }
+        map.rehash();
+
+        final List<RecordedEvent> events = stopRecording();
+
+        final List<RecordedEvent> rehashes = ofType(events, "MapRehash");
+        assertThat(rehashes.size()).isEqualTo(2);
+        assertThat(rehashes.get(0).getBoolean("resized")).isTrue();
+        assertThat(rehashes.get(0).getLong("newCapacity")).isEqualTo(rehashes.get(0).getLong("previousCapacity") * 2);
+        assertThat(rehashes.get(1).getBoolean("resized")).isFalse();
+        assertThat(rehashes.get(1).getInt("entryCount")).isEqualTo(4);
+        assertThat(rehashes.get(1).getString("mapType")).isEqualTo("CharSequenceMap");
+    }
+
+    private List<RecordedEvent> stopRecording() throws IOException
+    {
+        recording.stop();
+        recording.dump(recordingFile);
+        return RecordingFile.readAllEvents(recordingFile);
+    }
+
+    private static RecordedEvent single(final List<RecordedEvent> events, final String eventName)
+    {
+        final List<RecordedEvent> matching = ofType(events, eventName);
+        assertThat(matching.size()).isEqualTo(1);
+        return matching.get(0);
+    }
+
+    private static List<RecordedEvent> ofType(final List<RecordedEvent> events, final String eventName)
+    {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals(RecallEvents.EVENT_NAME_PREFIX + eventName))
+            .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.map;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.CountersReader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class MapCountersTest
+{
+    private static final long MISSING_VALUE = Long.MIN_VALUE;
+    private final CountersManager countersManager = new CountersManager(
+        new UnsafeBuffer(new byte[16 * CountersReader.METADATA_LENGTH]),
+        new UnsafeBuffer(new byte[16 * CountersReader.COUNTER_LENGTH]));
+
+    @Test
+    void shouldCountCharSequenceMapOperations()
+    {
+        final CharSequenceMap map = new CharSequenceMap(16, 4, MISSING_VALUE);
+        final MapCounters counters = new MapCounters(countersManager, "symbols");
+        map.counters(counters);
+        for (int i = 0; i < 10; i++)
+        {
+            map.put("key_" + i, i);
+        }
+        map.get("key_3");
+        map.get("key_11");
+        map.remove("key_4");
+        map.remove("key_4");
+        map.rehash();
+
+        assertCounts(counters);
+    }
+
+    @Test
+    void shouldCountByteSequenceMapOperations()
+    {
+        final ByteSequenceMap map = new ByteSequenceMap(16, 4, MISSING_VALUE);
+        final MapCounters counters = new MapCounters(countersManager, "symbols");
+        map.counters(counters);
+        for (int i = 0; i < 10; i++)
+        {
+            map.put(key("key_" + i), i);
+        }
+        map.get(key("key_3"));
+        map.get(key("key_11"));
+        map.remove(key("key_4"));
+        map.remove(key("key_4"));
+        map.rehash();
+
+        assertCounts(counters);
+    }
+
+    private static void assertCounts(final MapCounters counters)
+    {
+        assertThat(counters.puts()).isEqualTo(10L);
+        assertThat(counters.hits()).isEqualTo(1L);
+        assertThat(counters.misses()).isEqualTo(1L);
+        assertThat(counters.removes()).isEqualTo(1L);
+        assertThat(counters.resizes()).isEqualTo(2L);
+        assertThat(counters.rehashes()).isEqualTo(1L);
+    }
+
+    private static ByteBuffer key(final String value)
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            buffer.put(i, (byte)value.charAt(i));
+        }
+        return buffer;
+    }
+}
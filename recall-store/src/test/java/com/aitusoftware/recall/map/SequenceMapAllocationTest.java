@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.map;
+
+import com.aitusoftware.recall.store.AllocationMeasurement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class SequenceMapAllocationTest
+{
+    private static final int KEYS = 1024;
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final long MISSING_VALUE = Long.MIN_VALUE;
+    private final CharSequenceMap charSequenceMap = new CharSequenceMap(MAX_KEY_LENGTH, KEYS * 2, MISSING_VALUE);
+    private final ByteSequenceMap byteSequenceMap = new ByteSequenceMap(MAX_KEY_LENGTH, KEYS * 2, MISSING_VALUE);
+    private final String[] charKeys = new String[KEYS];
+    private final ByteBuffer[] byteKeys = new ByteBuffer[KEYS];
+    private AllocationMeasurement measurement;
+
+    @BeforeEach
+    void setUp()
+    {
+        measurement = AllocationMeasurement.forCurrentThread();
+        for (int i = 0; i < KEYS; i++)
+        {
+            charKeys[i] = "key-" + i;
+            byteKeys[i] = ByteBuffer.wrap(charKeys[i].getBytes(StandardCharsets.US_ASCII));
+            charSequenceMap.put(charKeys[i], i);
+            byteSequenceMap.put(byteKeys[i], i);
+        }
+    }
+
+    @Test
+    void shouldNotAllocateOnGet()
+    {
+        assertNoAllocation(i ->
+        {
+            charSequenceMap.get(charKeys[i]);
+            byteSequenceMap.get(byteKeys[i]);
+        });
+        assertThat(charSequenceMap.get(charKeys[KEYS - 1])).isEqualTo(KEYS - 1L);
+    }
+
+    @Test
+    void shouldNotAllocateOnPutOfExistingKey()
+    {
+        assertNoAllocation(i ->
+        {
+            charSequenceMap.put(charKeys[i], i);
+            byteSequenceMap.put(byteKeys[i], i);
+        });
+        assertThat(byteSequenceMap.size()).isEqualTo(KEYS);
+    }
+
+    @Test
+    void shouldNotAllocateOnRemoveAndPut()
+    {
+        assertNoAllocation(i ->
+        {
+            charSequenceMap.remove(charKeys[i]);
+            charSequenceMap.put(charKeys[i], i);
+            byteSequenceMap.remove(byteKeys[i]);
+            byteSequenceMap.put(byteKeys[i], i);
+        });
+        assertThat(charSequenceMap.size()).isEqualTo(KEYS);
+    }
+
+    private void assertNoAllocation(final IntConsumer workload)
+    {
+        assertThat(measurement.allocatedBytes(KEYS, workload)).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the number of bytes allocated on the calling thread while running a steady-state workload.
+ * <p>
+ * The workload is run until the JIT has had a chance to compile it, then measured over several attempts;
+ * the smallest result is reported so that a one-off allocation from the runtime (e.g. class loading
+ * triggered by a deoptimisation) does not fail a test. The cost of querying the allocation counter itself
+ * is calibrated and subtracted.
+ */
+public final class AllocationMeasurement
+{
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASUREMENT_ATTEMPTS = 5;
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final long threadId = Thread.currentThread().getId();
+    private final long overhead;
+
+    private AllocationMeasurement(final com.sun.management.ThreadMXBean threadMXBean)
+    {
+        this.threadMXBean = threadMXBean;
+        overhead = calibrate();
+    }
+
+    /**
+     * Creates a measurement for the current thread, skipping the calling test if the runtime
+     * does not support per-thread allocation accounting.
+     *
+     * @return the measurement
+     */
+    public static AllocationMeasurement forCurrentThread()
+    {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean,
+            "Per-thread allocation accounting is not available");
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadMXBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported(),
+            "Per-thread allocation accounting is not supported");
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        return new AllocationMeasurement(allocationBean);
+    }
+
+    /**
+     * Runs the workload {@code iterations} times, after warm-up, and returns the bytes allocated.
+     *
+     * @param iterations number of iterations per measurement
+     * @param workload   the workload, passed the iteration index
+     * @return the smallest number of bytes allocated over the measurement attempts
+     */
+    public long allocatedBytes(final int iterations, final IntConsumer workload)
+    {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+        {
+            workload.accept(i % iterations);
+        }
+
+        long minAllocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < MEASUREMENT_ATTEMPTS; attempt++)
+        {
+            final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++)
+            {
+                workload.accept(i);
+            }
+            final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - start - overhead;
+            minAllocated = Math.min(minAllocated, Math.max(0L, allocated));
+        }
+
+        return minAllocated;
+    }
+
+    private long calibrate()
+    {
+        long minOverhead = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < MEASUREMENT_ATTEMPTS; attempt++)
+        {
+            final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            final long end = threadMXBean.getThreadAllocatedBytes(threadId);
+            minOverhead = Math.min(minOverhead, end - start);
+        }
+
+        return minOverhead;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AppendOnlyStoreTest
+{
+    private static final int INITIAL_RECORDS = 16;
+    private static final int MAX_RECORD_LENGTH = 75;
+    private final IntFunction<UnsafeBuffer> bufferFactory = len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len));
+    private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
+    private final AppendOnlyStore<UnsafeBuffer> store =
+        new AppendOnlyStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps);
+    private final OrderUnsafeBufferTranscoder transcoder = new OrderUnsafeBufferTranscoder();
+    private final IdAccessor<Order> idAccessor = Order::getId;
+
+    @Test
+    void shouldStoreAndLoadDenseIds()
+    {
+        storeRecords(100, 100 + INITIAL_RECORDS * 3, 1);
+
+        assertThat(store.size()).isEqualTo(INITIAL_RECORDS * 3);
+        assertThat(store.firstId()).isEqualTo(100L);
+        assertThat(store.lastId()).isEqualTo(99L + INITIAL_RECORDS * 3);
+        assertLoadable(100, 100 + INITIAL_RECORDS * 3, 1);
+    }
+
+    @Test
+    void shouldStoreAndLoadSparseIds()
+    {
+        storeRecords(3, 1_000, 7);
+
+        assertLoadable(3, 1_000, 7);
+        assertThat(store.load(4, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.load(2, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.load(1_000, transcoder, Order.of(-1L))).isFalse();
+    }
+
+    @Test
+    void shouldIndicateEmptyStore()
+    {
+        assertThat(store.firstId()).isEqualTo(AppendOnlyStore.NO_ID);
+        assertThat(store.lastId()).isEqualTo(AppendOnlyStore.NO_ID);
+        assertThat(store.load(0, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.remove(0)).isFalse();
+    }
+
+    @Test
+    void shouldReplaceExistingRecord()
+    {
+        storeRecords(0, 10, 2);
+        final Order order = Order.of(4L);
+        order.setInstrumentId(99L);
+        store.store(transcoder, order, idAccessor);
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(4L, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+        assertThat(store.size()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRejectOutOfOrderId()
+    {
+        storeRecords(0, 10, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> store.store(transcoder, Order.of(5L), idAccessor));
+    }
+
+    @Test
+    void shouldRemoveFromHeadOnly()
+    {
+        storeRecords(0, 10, 1);
+
+        assertThat(store.remove(0L)).isTrue();
+        assertThat(store.remove(0L)).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> store.remove(5L));
+
+        assertThat(store.firstId()).isEqualTo(1L);
+        assertThat(store.size()).isEqualTo(9);
+    }
+
+    @Test
+    void shouldTruncateFromHead()
+    {
+        storeRecords(0, 100, 2);
+
+        assertThat(store.truncateTo(51L)).isEqualTo(26);
+        assertThat(store.truncateTo(51L)).isEqualTo(0);
+
+        assertThat(store.firstId()).isEqualTo(52L);
+        assertThat(store.size()).isEqualTo(24);
+        assertThat(store.load(50L, transcoder, Order.of(-1L))).isFalse();
+        assertLoadable(52, 100, 2);
+    }
+
+    @Test
+    void shouldReuseTruncatedSpace()
+    {
+        storeRecords(0, INITIAL_RECORDS, 1);
+        store.truncateTo(INITIAL_RECORDS - 4);
+
+        storeRecords(INITIAL_RECORDS, INITIAL_RECORDS * 2 - 4, 1);
+
+        assertThat(store.size()).isEqualTo(INITIAL_RECORDS);
+        assertThat(store.utilisation()).isWithin(0.0001f).of(1f);
+        assertLoadable(INITIAL_RECORDS - 4, INITIAL_RECORDS * 2 - 4, 1);
+    }
+
+    @Test
+    void shouldVisitRecordsInOrder()
+    {
+        storeRecords(0, 20, 2);
+        final LongArrayList visitedIds = new LongArrayList();
+
+        assertThat(store.forEach(7L, transcoder, Order.of(-1L), order -> visitedIds.addLong(order.getId())))
+            .isEqualTo(6);
+
+        for (int i = 0; i < visitedIds.size(); i++)
+        {
+            assertThat(visitedIds.getLong(i)).isEqualTo(8L + (i * 2));
+        }
+    }
+
+    @Test
+    void shouldAtomicallyUpdateFieldOfEveryRecord()
+    {
+        storeRecords(100, 100 + INITIAL_RECORDS * 3, 1);
+
+        for (long id = 100; id < 100 + INITIAL_RECORDS * 3; id++)
+        {
+            assertThat(store.getAndAddLong(id, OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, id))
+                .isEqualTo(Order.of(id).getInstrumentId());
+        }
+
+        final Order container = Order.of(-1L);
+        for (long id = 100; id < 100 + INITIAL_RECORDS * 3; id++)
+        {
+            assertThat(store.load(id, transcoder, container)).isTrue();
+            assertThat(container.getInstrumentId()).isEqualTo(Order.of(id).getInstrumentId() + id);
+        }
+    }
+
+    @Test
+    void shouldPersistAndLoad() throws IOException
+    {
+        storeRecords(0, INITIAL_RECORDS * 2, 1);
+        store.truncateTo(10L);
+
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        final AppendOnlyStore<UnsafeBuffer> loadedStore;
+        try (FileChannel storeChannel = FileChannel.open(storeFile.toAbsolutePath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
+            store.writeTo(storeChannel);
+            loadedStore = AppendOnlyStore.loadFrom(storeChannel, bufferOps, bufferFactory);
+        }
+        finally
+        {
+            Files.deleteIfExists(storeFile);
+        }
+
+        assertThat(loadedStore.size()).isEqualTo(INITIAL_RECORDS * 2 - 10);
+        assertThat(loadedStore.firstId()).isEqualTo(10L);
+        assertThat(loadedStore.lastId()).isEqualTo(INITIAL_RECORDS * 2 - 1L);
+        final Order container = Order.of(-1L);
+        assertThat(loadedStore.load(20L, transcoder, container)).isTrue();
+        assertThat(container.getId()).isEqualTo(20L);
+    }
+
+    @Test
+    void shouldRejectLoadingAsDifferentStoreKind() throws IOException
+    {
+        storeRecords(0, INITIAL_RECORDS, 1);
+        final BufferStore<UnsafeBuffer> bufferStore =
+            new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps);
+        bufferStore.store(transcoder, Order.of(7L), idAccessor);
+        bufferStore.store(transcoder, Order.of(3L), idAccessor);
+
+        final Path appendOnlyFile = Files.createTempFile("recall", ".store");
+        final Path bufferStoreFile = Files.createTempFile("recall", ".store");
+        try (FileChannel appendOnlyChannel = FileChannel.open(appendOnlyFile, StandardOpenOption.WRITE,
+            StandardOpenOption.READ);
+            FileChannel bufferStoreChannel = FileChannel.open(bufferStoreFile, StandardOpenOption.WRITE,
+                StandardOpenOption.READ))
+        {
+            store.writeTo(appendOnlyChannel);
+            bufferStore.writeTo(bufferStoreChannel);
+
+            assertThrows(IllegalArgumentException.class,
+                () -> AppendOnlyStore.loadFrom(bufferStoreChannel, bufferOps, bufferFactory));
+            assertThrows(IllegalArgumentException.class,
+                () -> BufferStore.loadFrom(appendOnlyChannel, bufferOps, bufferFactory));
+            assertThrows(IllegalArgumentException.class,
+                () -> DirectIndexStore.loadFrom(appendOnlyChannel, bufferOps, bufferFactory));
+        }
+        finally
+        {
+            Files.deleteIfExists(appendOnlyFile);
+            Files.deleteIfExists(bufferStoreFile);
+        }
+    }
+
+    private void storeRecords(final long fromId, final long toId, final int step)
+    {
+        for (long id = fromId; id < toId; id += step)
+        {
+            store.store(transcoder, Order.of(id), idAccessor);
+        }
+    }
+
+    private void assertLoadable(final long fromId, final long toId, final int step)
+    {
+        final Order container = Order.of(-1L);
+        for (long id = fromId; id < toId; id += step)
+        {
+            assertThat(store.load(id, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo(id);
+        }
+    }
+}
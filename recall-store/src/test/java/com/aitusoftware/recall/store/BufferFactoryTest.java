@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class BufferFactoryTest
+{
+    private final ByteBufferOps bufferOps = new ByteBufferOps();
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+
+    @Test
+    void shouldCreatePreTouchedBuffer()
+    {
+        final PreTouchingBufferFactory<ByteBuffer> bufferFactory =
+            new PreTouchingBufferFactory<>(ByteBuffer::allocateDirect, bufferOps);
+
+        final ByteBuffer buffer = bufferFactory.apply(3 * PreTouchingBufferFactory.DEFAULT_PAGE_SIZE + 17);
+
+        assertThat(buffer.capacity()).isEqualTo(3 * PreTouchingBufferFactory.DEFAULT_PAGE_SIZE + 17);
+        for (int i = 0; i < buffer.capacity(); i++)
+        {
+            assertThat(buffer.get(i)).isEqualTo((byte)0);
+        }
+    }
+
+    @Test
+    void shouldCreateMappedBuffers() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("recall");
+        try
+        {
+            final MappedBufferFactory bufferFactory = new MappedBufferFactory(directory, 64 * 1024, true);
+
+            final ByteBuffer buffer = bufferFactory.apply(10_000);
+
+            assertThat(buffer.capacity()).isEqualTo(10_000);
+            assertThat(buffer.isDirect()).isTrue();
+            buffer.putLong(9_992, 42L);
+            assertThat(buffer.getLong(9_992)).isEqualTo(42L);
+            try (Stream<Path> files = Files.list(directory))
+            {
+                assertThat(files.count()).isEqualTo(0L);
+            }
+        }
+        finally
+        {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void shouldGrowStoreUsingMappedBuffers() throws IOException
+    {
+        final Path directory = Files.createTempDirectory("recall");
+        try
+        {
+            final BufferStore<ByteBuffer> store = new BufferStore<>(
+                72, 4, new MappedBufferFactory(directory, 4096, false), bufferOps);
+            for (int i = 0; i < 100; i++)
+            {
+                store.store(transcoder, Order.of(i), Order::getId);
+            }
+
+            final Order container = Order.of(-1L);
+            for (int i = 0; i < 100; i++)
+            {
+                assertThat(store.load(i, transcoder, container)).isTrue();
+                assertThat(container.getId()).isEqualTo((long)i);
+            }
+        }
+        finally
+        {
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import com.aitusoftware.recall.persistence.RecordUpdater;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class BufferStoreAllocationTest
+{
+    private static final int RECORDS = 1024;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private final BufferStore<UnsafeBuffer> unsafeBufferStore = new BufferStore<>(
+        MAX_RECORD_LENGTH, RECORDS * 2, len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len)), new UnsafeBufferOps());
+    private final BufferStore<ByteBuffer> byteBufferStore = new BufferStore<>(
+        MAX_RECORD_LENGTH, RECORDS * 2, ByteBuffer::allocateDirect, new ByteBufferOps());
+    private final OrderUnsafeBufferTranscoder unsafeTranscoder = new OrderUnsafeBufferTranscoder();
+    private final OrderByteBufferTranscoder byteBufferTranscoder = new OrderByteBufferTranscoder();
+    private final SingleTypeStore<UnsafeBuffer, Order> singleTypeStore =
+        new SingleTypeStore<>(unsafeBufferStore, unsafeTranscoder, unsafeTranscoder, Order::getId);
+    private final Order order = Order.of(0L);
+    private final Order container = Order.of(-1L);
+    private AllocationMeasurement measurement;
+
+    @BeforeEach
+    void setUp()
+    {
+        measurement = AllocationMeasurement.forCurrentThread();
+        for (int i = 0; i < RECORDS; i++)
+        {
+            order.setId(i);
+            unsafeBufferStore.store(unsafeTranscoder, order, order);
+            byteBufferStore.store(byteBufferTranscoder, order, order);
+        }
+    }
+
+    @Test
+    void shouldNotAllocateOnLoad()
+    {
+        assertNoAllocation(i -> unsafeBufferStore.load(i, unsafeTranscoder, container));
+        assertNoAllocation(i -> byteBufferStore.load(i, byteBufferTranscoder, container));
+        assertThat(container.getId()).isLessThan((long)RECORDS);
+    }
+
+    @Test
+    void shouldNotAllocateOnStoreOfExistingRecord()
+    {
+        assertNoAllocation(i ->
+        {
+            order.setId(i);
+            unsafeBufferStore.store(unsafeTranscoder, order, order);
+            byteBufferStore.store(byteBufferTranscoder, order, order);
+        });
+        assertThat(unsafeBufferStore.size()).isEqualTo(RECORDS);
+    }
+
+    @Test
+    void shouldNotAllocateOnRemoveAndStore()
+    {
+        assertNoAllocation(i ->
+        {
+            order.setId(i);
+            unsafeBufferStore.remove(i);
+            unsafeBufferStore.store(unsafeTranscoder, order, order);
+            byteBufferStore.remove(i);
+            byteBufferStore.store(byteBufferTranscoder, order, order);
+        });
+        assertThat(byteBufferStore.size()).isEqualTo(RECORDS);
+    }
+
+    @Test
+    void shouldNotAllocateOnFieldUpdates()
+    {
+        final RecordUpdater<UnsafeBuffer> updater = (buffer, offset) ->
+            buffer.putLong(offset + OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, offset);
+        assertNoAllocation(i ->
+        {
+            unsafeBufferStore.update(i, updater);
+            unsafeBufferStore.getAndAddLong(i, OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, 1L);
+            byteBufferStore.getAndAddLong(i, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 1L);
+        });
+    }
+
+    @Test
+    void shouldNotAllocateOnHandleAccess()
+    {
+        assertNoAllocation(i -> unsafeBufferStore.loadByHandle(
+            unsafeBufferStore.handleOf(i), unsafeTranscoder, container));
+    }
+
+    @Test
+    void shouldNotAllocateInSingleTypeStore()
+    {
+        assertNoAllocation(i ->
+        {
+            order.setId(i);
+            singleTypeStore.store(order);
+            singleTypeStore.load(i, container);
+        });
+        assertThat(container.getId()).isLessThan((long)RECORDS);
+    }
+
+    private void assertNoAllocation(final IntConsumer workload)
+    {
+        assertThat(measurement.allocatedBytes(RECORDS, workload)).isEqualTo(0L);
+    }
+}
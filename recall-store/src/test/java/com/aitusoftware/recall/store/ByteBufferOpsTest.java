@@ -24,6 +24,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ByteBufferOpsTest
 {
@@ -60,4 +61,16 @@ class ByteBufferOpsTest
 
         assertThat(Arrays.equals(source.array(), expected.array())).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRejectMisalignedAtomicAccess()
+    {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        final ByteBufferOps ops = new ByteBufferOps();
+
+        assertThat(ops.getAndAddLong(buffer, 8, 7L)).isEqualTo(0L);
+        assertThat(ops.compareAndSetLong(buffer, 8, 7L, 11L)).isTrue();
+        assertThrows(IllegalArgumentException.class, () -> ops.getAndAddLong(buffer, 12, 1L));
+        assertThrows(IllegalArgumentException.class, () -> ops.compareAndSetLong(buffer, 12, 0L, 1L));
+    }
+}
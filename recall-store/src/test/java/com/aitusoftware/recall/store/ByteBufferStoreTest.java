@@ -39,12 +39,13 @@ import java.util.function.IntFunction;
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ByteBufferStoreTest
 {
     private static final long ID = 17L;
     private static final int INITIAL_RECORDS = 16;
-    private static final int MAX_RECORD_LENGTH = 72;
+    private static final int MAX_RECORD_LENGTH = 75;
     private final IntFunction<ByteBuffer> bufferFactory = ByteBuffer::allocate;
     private final ByteBufferOps bufferOps = new ByteBufferOps();
     private final BufferStore<ByteBuffer> store =
@@ -101,6 +102,121 @@ class ByteBufferStoreTest
         assertEquality(container, updated);
     }
 
+    @Test
+    void shouldUpdateFieldInPlace()
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+        final int nextWriteOffset = store.nextWriteOffset();
+
+        assertThat(store.update(ID, (buffer, offset) ->
+            buffer.putLong(offset + OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 99L))).isTrue();
+
+        assertThat(store.nextWriteOffset()).isEqualTo(nextWriteOffset);
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(ID, transcoder, container)).isTrue();
+
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+        assertEquality(container, order);
+    }
+
+    @Test
+    void shouldIndicateFailedUpdate()
+    {
+        assertThat(store.update(ID, (buffer, offset) ->
+        {
+            throw new AssertionError("Should not be called");
+        })).isFalse();
+    }
+
+    @Test
+    void shouldAtomicallyUpdateField()
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+        final long instrumentId = order.getInstrumentId();
+
+        assertThat(store.getAndAddLong(ID, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 5L)).isEqualTo(instrumentId);
+        assertThat(store.compareAndSetLong(
+            ID, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId, 99L)).isFalse();
+        assertThat(store.compareAndSetLong(
+            ID, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId + 5L, 99L)).isTrue();
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(ID, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+    }
+
+    @Test
+    void shouldAtomicallyUpdateFieldFromMultipleThreads() throws InterruptedException
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+        final long instrumentId = order.getInstrumentId();
+        final int threadCount = 4;
+        final int incrementsPerThread = 10_000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++)
+        {
+            threads[i] = new Thread(() ->
+            {
+                for (int j = 0; j < incrementsPerThread; j++)
+                {
+                    store.getAndAddLong(ID, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 1L);
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(ID, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(instrumentId + (threadCount * incrementsPerThread));
+    }
+
+    @Test
+    void shouldAtomicallyUpdateFieldOfEveryRecord()
+    {
+        for (long id = 0; id < INITIAL_RECORDS; id++)
+        {
+            final Order order = Order.of(id);
+            store.store(transcoder, order, order);
+        }
+
+        final int fieldOffset = OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET;
+        for (long id = 0; id < INITIAL_RECORDS; id++)
+        {
+            final long instrumentId = Order.of(id).getInstrumentId();
+            assertThat(store.getAndAddLong(id, fieldOffset, 1L)).isEqualTo(instrumentId);
+            assertThat(store.compareAndSetLong(id, fieldOffset, instrumentId + 1L, id)).isTrue();
+        }
+
+        final Order container = Order.of(-1L);
+        for (long id = 0; id < INITIAL_RECORDS; id++)
+        {
+            assertThat(store.load(id, transcoder, container)).isTrue();
+            assertThat(container.getInstrumentId()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void shouldRejectAtomicUpdateOutsideOfRecord()
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> store.getAndAddLong(ID, MAX_RECORD_LENGTH - Long.BYTES + 1, 1L));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.compareAndSetLong(ID, -1, 0L, 1L));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.getAndAddLong(ID + 1, 0, 1L));
+    }
+
     @Test
     void shouldStoreAfterRemoval()
     {
@@ -216,7 +332,7 @@ class ByteBufferStoreTest
 
         store.compact();
 
-        assertThat(store.nextWriteOffset()).isEqualTo(160 + Header.LENGTH);
+        assertThat(store.nextWriteOffset()).isEqualTo(176 + Header.LENGTH);
     }
 
     @Test
@@ -286,6 +402,7 @@ class ByteBufferStoreTest
         store.writeTo(storeChannel);
 
         final BufferStore<ByteBuffer> loadedStore = BufferStore.loadFrom(storeChannel, bufferOps, bufferFactory);
+        assertThat(loadedStore.size()).isEqualTo(recordCount);
 
         final LongHashSet.LongIterator iterator = createdIds.iterator();
         while (iterator.hasNext())
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DirectIndexStoreTest
+{
+    private static final long BASE_ID = 1_000L;
+    private static final int SLOT_COUNT = 200;
+    private static final int MAX_RECORD_LENGTH = 75;
+    private final BufferOps<ByteBuffer> bufferOps = new ByteBufferOps();
+    private final DirectIndexStore<ByteBuffer> store =
+        new DirectIndexStore<>(BASE_ID, SLOT_COUNT, MAX_RECORD_LENGTH, ByteBuffer::allocateDirect, bufferOps);
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final IdAccessor<Order> idAccessor = Order::getId;
+
+    @Test
+    void shouldStoreAndLoad()
+    {
+        storeRecords(BASE_ID, BASE_ID + SLOT_COUNT);
+
+        assertThat(store.size()).isEqualTo(SLOT_COUNT);
+        assertThat(store.utilisation()).isWithin(0.0001f).of(1f);
+        assertLoadable(BASE_ID, BASE_ID + SLOT_COUNT);
+    }
+
+    @Test
+    void shouldIndicateMissingRecords()
+    {
+        storeRecords(BASE_ID + 63, BASE_ID + 65);
+
+        assertThat(store.load(BASE_ID + 62, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.load(BASE_ID + 65, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.load(BASE_ID - 1, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.load(BASE_ID + SLOT_COUNT, transcoder, Order.of(-1L))).isFalse();
+        assertThat(store.load(Long.MIN_VALUE, transcoder, Order.of(-1L))).isFalse();
+        assertLoadable(BASE_ID + 63, BASE_ID + 65);
+    }
+
+    @Test
+    void shouldRejectIdsOutsideOfRange()
+    {
+        assertThrows(IllegalArgumentException.class,
+            () -> store.store(transcoder, Order.of(BASE_ID - 1), idAccessor));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.store(transcoder, Order.of(BASE_ID + SLOT_COUNT), idAccessor));
+    }
+
+    @Test
+    void shouldReplaceExistingRecord()
+    {
+        storeRecords(BASE_ID, BASE_ID + 1);
+        final Order order = Order.of(BASE_ID);
+        order.setInstrumentId(99L);
+        store.store(transcoder, order, idAccessor);
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(BASE_ID, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRemove()
+    {
+        storeRecords(BASE_ID, BASE_ID + 10);
+
+        assertThat(store.remove(BASE_ID + 5)).isTrue();
+        assertThat(store.remove(BASE_ID + 5)).isFalse();
+        assertThat(store.remove(BASE_ID + SLOT_COUNT)).isFalse();
+
+        assertThat(store.size()).isEqualTo(9);
+        assertThat(store.load(BASE_ID + 5, transcoder, Order.of(-1L))).isFalse();
+        assertLoadable(BASE_ID + 6, BASE_ID + 10);
+    }
+
+    @Test
+    void shouldClear()
+    {
+        storeRecords(BASE_ID, BASE_ID + 10);
+
+        store.clear();
+
+        assertThat(store.size()).isEqualTo(0);
+        assertThat(store.load(BASE_ID, transcoder, Order.of(-1L))).isFalse();
+    }
+
+    @Test
+    void shouldUpdateFieldsOfPresentRecords()
+    {
+        storeRecords(BASE_ID, BASE_ID + 1);
+
+        assertThat(store.update(BASE_ID + 1, (buffer, offset) ->
+        {
+            throw new AssertionError("Should not be called");
+        })).isFalse();
+        store.getAndAddLong(BASE_ID, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 5L);
+        assertThrows(IllegalArgumentException.class,
+            () -> store.getAndAddLong(BASE_ID + 1, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 5L));
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(BASE_ID, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(Order.of(BASE_ID).getInstrumentId() + 5L);
+    }
+
+    @Test
+    void shouldAtomicallyUpdateFieldOfEveryRecord()
+    {
+        storeRecords(BASE_ID, BASE_ID + SLOT_COUNT);
+
+        for (long id = BASE_ID; id < BASE_ID + SLOT_COUNT; id++)
+        {
+            final long instrumentId = Order.of(id).getInstrumentId();
+            assertThat(store.compareAndSetLong(
+                id, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId, instrumentId + id)).isTrue();
+        }
+
+        final Order container = Order.of(-1L);
+        for (long id = BASE_ID; id < BASE_ID + SLOT_COUNT; id++)
+        {
+            assertThat(store.load(id, transcoder, container)).isTrue();
+            assertThat(container.getInstrumentId()).isEqualTo(Order.of(id).getInstrumentId() + id);
+        }
+    }
+
+    @Test
+    void shouldPersistAndLoad() throws IOException
+    {
+        storeRecords(BASE_ID, BASE_ID + 100);
+        assertThat(store.remove(BASE_ID + 50)).isTrue();
+
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        final DirectIndexStore<ByteBuffer> loadedStore;
+        try (FileChannel storeChannel = FileChannel.open(storeFile.toAbsolutePath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
+            store.writeTo(storeChannel);
+            loadedStore = DirectIndexStore.loadFrom(storeChannel, bufferOps, ByteBuffer::allocateDirect);
+        }
+        finally
+        {
+            Files.deleteIfExists(storeFile);
+        }
+
+        assertThat(loadedStore.size()).isEqualTo(99);
+        assertThat(loadedStore.baseId()).isEqualTo(BASE_ID);
+        assertThat(loadedStore.slotCount()).isEqualTo(SLOT_COUNT);
+        assertThat(loadedStore.load(BASE_ID + 50, transcoder, Order.of(-1L))).isFalse();
+        final Order container = Order.of(-1L);
+        assertThat(loadedStore.load(BASE_ID + 99, transcoder, container)).isTrue();
+        assertThat(container.getId()).isEqualTo(BASE_ID + 99);
+    }
+
+    @Test
+    void shouldRejectLoadingAsDifferentStoreKind() throws IOException
+    {
+        storeRecords(BASE_ID, BASE_ID + 10);
+        final BufferStore<ByteBuffer> bufferStore = new BufferStore<>(
+            MAX_RECORD_LENGTH, 10, ByteBuffer::allocateDirect, bufferOps);
+        bufferStore.store(transcoder, Order.of(BASE_ID), idAccessor);
+
+        final Path directIndexFile = Files.createTempFile("recall", ".store");
+        final Path bufferStoreFile = Files.createTempFile("recall", ".store");
+        try (FileChannel directIndexChannel = FileChannel.open(directIndexFile, StandardOpenOption.WRITE,
+            StandardOpenOption.READ);
+            FileChannel bufferStoreChannel = FileChannel.open(bufferStoreFile, StandardOpenOption.WRITE,
+                StandardOpenOption.READ))
+        {
+            store.writeTo(directIndexChannel);
+            bufferStore.writeTo(bufferStoreChannel);
+
+            assertThrows(IllegalArgumentException.class,
+                () -> BufferStore.loadFrom(directIndexChannel, bufferOps, ByteBuffer::allocateDirect));
+            assertThrows(IllegalArgumentException.class, () -> BufferStore.openReadOnly(directIndexFile, bufferOps));
+            assertThrows(IllegalArgumentException.class,
+                () -> DirectIndexStore.loadFrom(bufferStoreChannel, bufferOps, ByteBuffer::allocateDirect));
+        }
+        finally
+        {
+            Files.deleteIfExists(directIndexFile);
+            Files.deleteIfExists(bufferStoreFile);
+        }
+    }
+
+    private void storeRecords(final long fromId, final long toId)
+    {
+        for (long id = fromId; id < toId; id++)
+        {
+            store.store(transcoder, Order.of(id), idAccessor);
+        }
+    }
+
+    private void assertLoadable(final long fromId, final long toId)
+    {
+        final Order container = Order.of(-1L);
+        for (long id = fromId; id < toId; id++)
+        {
+            assertThat(store.load(id, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo(id);
+        }
+    }
+}
@@ -17,9 +17,78 @@
  */
 package com.aitusoftware.recall.store;
 
-import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
 
 class HeaderTest
 {
+    @Test
+    void shouldWriteAndReadCurrentVersion() throws IOException
+    {
+        final Header header = new Header().version(Version.TWO).storeLength(4096).maxRecordLength(56)
+            .nextWriteOffset(Header.LENGTH + 640).slotAlignment(64).recordCount(10).byteOrder(ByteOrder.BIG_ENDIAN)
+            .storeKind(StoreKind.DIRECT_INDEX);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(Header.LENGTH);
+        header.writeTo(buffer, new ByteBufferOps(), 0);
+
+        final Header readHeader = readFromFile(buffer);
+
+        assertThat(readHeader.version()).isEqualTo(Version.TWO);
+        assertThat(readHeader.storeLength()).isEqualTo(4096);
+        assertThat(readHeader.maxRecordLength()).isEqualTo(56);
+        assertThat(readHeader.nextWriteOffset()).isEqualTo(Header.LENGTH + 640);
+        assertThat(readHeader.headerLength()).isEqualTo(Header.LENGTH);
+        assertThat(readHeader.slotAlignment()).isEqualTo(64);
+        assertThat(readHeader.recordCount()).isEqualTo(10);
+        assertThat(readHeader.byteOrder()).isEqualTo(ByteOrder.BIG_ENDIAN);
+        assertThat(readHeader.storeKind()).isEqualTo(StoreKind.DIRECT_INDEX);
+    }
+
+    @Test
+    void shouldReadVersionOne() throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(Header.V1_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, 1).putInt(4, 4096).putInt(8, 56).putInt(12, Header.V1_LENGTH + 640);
+
+        final Header readHeader = readFromFile(buffer);
+
+        assertThat(readHeader.version()).isEqualTo(Version.ONE);
+        assertThat(readHeader.storeLength()).isEqualTo(4096);
+        assertThat(readHeader.maxRecordLength()).isEqualTo(56);
+        assertThat(readHeader.headerLength()).isEqualTo(Header.V1_LENGTH);
+        assertThat(readHeader.recordCount()).isEqualTo(Header.UNKNOWN_RECORD_COUNT);
+        assertThat(readHeader.byteOrder()).isNull();
+        assertThat(readHeader.storeKind()).isEqualTo(StoreKind.SLOTTED);
+
+        readHeader.toCurrentVersion();
+
+        assertThat(readHeader.version()).isEqualTo(Version.TWO);
+        assertThat(readHeader.nextWriteOffset()).isEqualTo(Header.LENGTH + 640);
+    }
 
-}
\ No newline at end of file
+    private static Header readFromFile(final ByteBuffer buffer) throws IOException
+    {
+        final Path file = Files.createTempFile("recall", ".header");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            while (buffer.remaining() != 0)
+            {
+                channel.write(buffer);
+            }
+            return Header.readFrom(channel);
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+}
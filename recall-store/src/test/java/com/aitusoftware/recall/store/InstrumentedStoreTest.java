@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class InstrumentedStoreTest
+{
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private long nanoTime;
+    private final InstrumentedStore<ByteBuffer> store = new InstrumentedStore<>(
+        new BufferStore<>(72, 16, ByteBuffer::allocateDirect, new ByteBufferOps()), "orders", this::tick);
+
+    @Test
+    void shouldRecordOperationLatencies()
+    {
+        final Order container = Order.of(-1L);
+        store.store(transcoder, Order.of(1L), Order::getId);
+        store.store(transcoder, Order.of(2L), Order::getId);
+        assertThat(store.load(1L, transcoder, container)).isTrue();
+        assertThat(store.remove(2L)).isTrue();
+
+        assertThat(store.storeLatencies().count()).isEqualTo(2L);
+        assertThat(store.loadLatencies().count()).isEqualTo(1L);
+        assertThat(store.removeLatencies().count()).isEqualTo(1L);
+        assertThat(store.loadLatencies().max()).isEqualTo(50L);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStartNewIntervalOnSnapshot()
+    {
+        final LatencyHistogram load = new LatencyHistogram();
+        final LatencyHistogram stored = new LatencyHistogram();
+        final LatencyHistogram removed = new LatencyHistogram();
+        store.store(transcoder, Order.of(1L), Order::getId);
+
+        store.intervalSnapshot(load, stored, removed);
+
+        assertThat(stored.count()).isEqualTo(1L);
+        assertThat(load.count()).isEqualTo(0L);
+        assertThat(store.storeLatencies().count()).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldExportIntervalsToFile() throws IOException
+    {
+        final Path file = Files.createTempFile("recall", ".csv");
+        try
+        {
+            try (LatencyLogWriter writer = new LatencyLogWriter(file))
+            {
+                store.store(transcoder, Order.of(1L), Order::getId);
+                store.exportInterval(writer, 1000L);
+                store.exportInterval(writer, 2000L);
+            }
+
+            final List<String> lines = Files.readAllLines(file);
+            assertThat(lines.size()).isEqualTo(7);
+            assertThat(lines.get(0)).isEqualTo(LatencyLogWriter.HEADER);
+            assertThat(lines.get(2)).isEqualTo("1000,orders,store,1,50,50.0,50,50,50,50,50,50");
+            assertThat(lines.get(5)).isEqualTo("2000,orders,store,0,0,0.0,0,0,0,0,0,0");
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    private long tick()
+    {
+        nanoTime += 50L;
+        return nanoTime;
+    }
+}
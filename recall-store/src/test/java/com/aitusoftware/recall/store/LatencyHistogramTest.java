@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LatencyHistogramTest
+{
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    void shouldReportExactSmallValues()
+    {
+        for (int i = 1; i <= 50; i++)
+        {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.count()).isEqualTo(50L);
+        assertThat(histogram.min()).isEqualTo(1L);
+        assertThat(histogram.max()).isEqualTo(50L);
+        assertThat(histogram.mean()).isWithin(0.0001d).of(25.5d);
+        assertThat(histogram.valueAtPercentile(50d)).isEqualTo(25L);
+        assertThat(histogram.valueAtPercentile(100d)).isEqualTo(50L);
+    }
+
+    @Test
+    void shouldReportLargeValuesWithinPrecision()
+    {
+        for (long i = 1; i <= 100_000; i++)
+        {
+            histogram.record(i * 1_000L);
+        }
+
+        assertWithinPrecision(histogram.valueAtPercentile(50d), 50_000_000L);
+        assertWithinPrecision(histogram.valueAtPercentile(99.9d), 99_900_000L);
+        assertWithinPrecision(histogram.valueAtPercentile(99.99d), 99_990_000L);
+        assertThat(histogram.valueAtPercentile(100d)).isEqualTo(100_000_000L);
+    }
+
+    @Test
+    void shouldMapEveryIndexToItsHighestValue()
+    {
+        for (int shift = 0; shift < Long.SIZE - 1; shift++)
+        {
+            final long value = 1L << shift;
+            assertThat(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value))).isAtLeast(value);
+            assertThat(LatencyHistogram.indexOf(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value))))
+                .isEqualTo(LatencyHistogram.indexOf(value));
+        }
+        assertThat(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(Long.MAX_VALUE)))
+            .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldAddCopyAndReset()
+    {
+        final LatencyHistogram other = new LatencyHistogram();
+        histogram.record(10L);
+        other.record(1_000L);
+        other.record(5L);
+
+        histogram.add(other);
+
+        assertThat(histogram.count()).isEqualTo(3L);
+        assertThat(histogram.min()).isEqualTo(5L);
+        assertThat(histogram.max()).isEqualTo(1_000L);
+
+        histogram.copyTo(other);
+        histogram.reset();
+
+        assertThat(histogram.count()).isEqualTo(0L);
+        assertThat(histogram.valueAtPercentile(99d)).isEqualTo(0L);
+        assertThat(other.count()).isEqualTo(3L);
+        assertThat(other.max()).isEqualTo(1_000L);
+    }
+
+    @Test
+    void shouldRejectInvalidPercentile()
+    {
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(100.1d));
+    }
+
+    private static void assertWithinPrecision(final long actual, final long expected)
+    {
+        assertThat((double)Math.abs(actual - expected) / expected).isAtMost(1d / 32);
+    }
+}
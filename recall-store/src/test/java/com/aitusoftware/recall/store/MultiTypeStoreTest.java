@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultiTypeStoreTest
+{
+    private static final int ORDER_TYPE_ID = 1;
+    private static final int POSITION_TYPE_ID = 2;
+    private static final long ID = 17L;
+    private final IntFunction<UnsafeBuffer> bufferFactory = len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len));
+    private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
+    private final MultiTypeStore<UnsafeBuffer> store =
+        new MultiTypeStore<>(new BufferStore<>(72, 16, bufferFactory, bufferOps));
+    private final OrderUnsafeBufferTranscoder transcoder = new OrderUnsafeBufferTranscoder();
+    private final SingleTypeStore<UnsafeBuffer, Order> orders =
+        store.register(ORDER_TYPE_ID, transcoder, transcoder, Order::getId);
+    private final SingleTypeStore<UnsafeBuffer, long[]> positions = registerPositions(store);
+
+    @Test
+    void shouldStoreDifferentTypesWithSameId()
+    {
+        orders.store(Order.of(ID));
+        positions.store(new long[]{ID, 500L});
+
+        final Order order = Order.of(-1L);
+        assertThat(orders.load(ID, order)).isTrue();
+        assertThat(order.getId()).isEqualTo(ID);
+        final long[] position = new long[2];
+        assertThat(positions.load(ID, position)).isTrue();
+        assertThat(position[1]).isEqualTo(500L);
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.size(ORDER_TYPE_ID)).isEqualTo(1);
+        assertThat(store.size(POSITION_TYPE_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRemoveFromSingleType()
+    {
+        orders.store(Order.of(ID));
+        positions.store(new long[]{ID, 500L});
+
+        assertThat(orders.remove(ID)).isTrue();
+        assertThat(orders.remove(ID)).isFalse();
+
+        assertThat(orders.load(ID, Order.of(-1L))).isFalse();
+        assertThat(positions.load(ID, new long[2])).isTrue();
+        assertThat(store.size(ORDER_TYPE_ID)).isEqualTo(0);
+        assertThat(store.size(POSITION_TYPE_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCountReplacedRecords()
+    {
+        positions.store(new long[]{ID, 500L});
+        positions.store(new long[]{ID, 600L});
+
+        assertThat(positions.store().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldClearSingleType()
+    {
+        for (int i = 0; i < 20; i++)
+        {
+            orders.store(Order.of(i));
+            positions.store(new long[]{i, i * 10L});
+        }
+
+        positions.clear();
+
+        assertThat(store.size(POSITION_TYPE_ID)).isEqualTo(0);
+        assertThat(store.size(ORDER_TYPE_ID)).isEqualTo(20);
+        for (int i = 0; i < 20; i++)
+        {
+            assertThat(orders.load(i, Order.of(-1L))).isTrue();
+            assertThat(positions.load(i, new long[2])).isFalse();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidTypeIds()
+    {
+        assertThrows(IllegalArgumentException.class,
+            () -> store.register(ORDER_TYPE_ID, transcoder, transcoder, Order::getId));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.register(MultiTypeStore.MAX_TYPE_ID + 1, transcoder, transcoder, Order::getId));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.register(-1, transcoder, transcoder, Order::getId));
+    }
+
+    @Test
+    void shouldRejectOutOfRangeIds()
+    {
+        assertThrows(IllegalArgumentException.class, () -> orders.store(Order.of(-1L)));
+        assertThrows(IllegalArgumentException.class, () -> orders.load(1L << 56, Order.of(-1L)));
+    }
+
+    @Test
+    void shouldRejectStoreContainingIdsOutsideOfKeyScheme()
+    {
+        final BufferStore<UnsafeBuffer> bufferStore = new BufferStore<>(72, 16, bufferFactory, bufferOps);
+        bufferStore.store(transcoder, Order.of(-5L), Order::getId);
+
+        assertThrows(IllegalArgumentException.class, () -> new MultiTypeStore<>(bufferStore));
+    }
+
+    @Test
+    void shouldPersistAndLoadAllTypes() throws IOException
+    {
+        orders.store(Order.of(ID));
+        positions.store(new long[]{ID, 500L});
+        positions.store(new long[]{ID + 1, 700L});
+
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        final MultiTypeStore<UnsafeBuffer> loadedStore;
+        try (FileChannel storeChannel = FileChannel.open(storeFile.toAbsolutePath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
+            store.writeTo(storeChannel);
+            loadedStore = new MultiTypeStore<>(BufferStore.loadFrom(storeChannel, bufferOps, bufferFactory));
+        }
+        finally
+        {
+            Files.deleteIfExists(storeFile);
+        }
+
+        assertThat(loadedStore.size(ORDER_TYPE_ID)).isEqualTo(1);
+        assertThat(loadedStore.size(POSITION_TYPE_ID)).isEqualTo(2);
+        final SingleTypeStore<UnsafeBuffer, long[]> loadedPositions = registerPositions(loadedStore);
+        final long[] position = new long[2];
+        assertThat(loadedPositions.load(ID + 1, position)).isTrue();
+        assertThat(position[1]).isEqualTo(700L);
+    }
+
+    private static SingleTypeStore<UnsafeBuffer, long[]> registerPositions(final MultiTypeStore<UnsafeBuffer> store)
+    {
+        return store.register(POSITION_TYPE_ID,
+            (buffer, offset, container) ->
+            {
+                container[0] = buffer.getLong(offset);
+                container[1] = buffer.getLong(offset + Long.BYTES);
+            },
+            (buffer, offset, value) ->
+            {
+                buffer.putLong(offset, value[0]);
+                buffer.putLong(offset + Long.BYTES, value[1]);
+            },
+            value -> value[0]);
+    }
+}
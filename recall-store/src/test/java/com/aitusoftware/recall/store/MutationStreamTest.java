@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.broadcast.BroadcastBufferDescriptor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET;
+import static com.google.common.truth.Truth.assertThat;
+
+class MutationStreamTest
+{
+    private static final int INITIAL_RECORDS = 16;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private static final int BROADCAST_CAPACITY = 64 * 1024;
+    private final IntFunction<UnsafeBuffer> bufferFactory = len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len));
+    private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
+    private final BufferStore<UnsafeBuffer> store =
+        new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps);
+    private final OrderUnsafeBufferTranscoder transcoder = new OrderUnsafeBufferTranscoder();
+    private final CapturingHandler handler = new CapturingHandler();
+
+    @Test
+    void shouldPublishMutations()
+    {
+        final UnsafeBuffer broadcastBuffer = broadcastBuffer(BROADCAST_CAPACITY);
+        store.mutationListener(new MutationPublisher<>(broadcastBuffer, bufferOps, MAX_RECORD_LENGTH));
+        final MutationReceiver receiver = new MutationReceiver(broadcastBuffer, MAX_RECORD_LENGTH);
+
+        store.store(transcoder, Order.of(17L), Order::getId);
+        store.store(transcoder, Order.of(37L), Order::getId);
+        store.remove(17L);
+        store.clear();
+
+        assertThat(receiver.poll(handler, 10)).isEqualTo(4);
+
+        assertThat(handler.events).containsExactly("store:0:17", "store:1:37", "remove:2:17", "clear:3");
+        assertThat(handler.orders.get(1).getId()).isEqualTo(37L);
+        assertThat(handler.orders.get(1).getSymbol().toString()).isEqualTo("SYM_37");
+    }
+
+    @Test
+    void shouldPublishOnlyUpdatedRegion()
+    {
+        final UnsafeBuffer broadcastBuffer = broadcastBuffer(BROADCAST_CAPACITY);
+        store.mutationListener(new MutationPublisher<>(broadcastBuffer, bufferOps, MAX_RECORD_LENGTH));
+        final MutationReceiver receiver = new MutationReceiver(broadcastBuffer, MAX_RECORD_LENGTH);
+
+        store.store(transcoder, Order.of(17L), Order::getId);
+        assertThat(store.update(17L, INSTRUMENT_ID_OFFSET, Long.BYTES,
+            (buffer, offset) -> buffer.putLong(offset + INSTRUMENT_ID_OFFSET, 99L))).isTrue();
+        store.update(17L, (buffer, offset) -> buffer.putLong(offset + INSTRUMENT_ID_OFFSET, 100L));
+
+        assertThat(receiver.poll(handler, 10)).isEqualTo(3);
+
+        assertThat(handler.events).containsExactly(
+            "store:0:17", "update:1:17:" + INSTRUMENT_ID_OFFSET + ":" + Long.BYTES, "store:2:17");
+        assertThat(handler.updatedValue).isEqualTo(99L);
+        assertThat(handler.orders.get(1).getInstrumentId()).isEqualTo(100L);
+    }
+
+    @Test
+    void shouldPublishRecordsOfStoreWithAlignedSlots()
+    {
+        final BufferStore<UnsafeBuffer> alignedStore = new BufferStore<>(
+            MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps, SlotMode.COMPACT, 64);
+        final UnsafeBuffer broadcastBuffer = broadcastBuffer(BROADCAST_CAPACITY);
+        alignedStore.mutationListener(new MutationPublisher<>(broadcastBuffer, bufferOps, MAX_RECORD_LENGTH));
+        final MutationReceiver receiver = new MutationReceiver(broadcastBuffer, MAX_RECORD_LENGTH);
+
+        alignedStore.store(transcoder, Order.of(17L), Order::getId);
+        alignedStore.update(17L, (buffer, offset) -> buffer.putLong(offset + INSTRUMENT_ID_OFFSET, 99L));
+
+        assertThat(receiver.poll(handler, 10)).isEqualTo(2);
+
+        assertThat(handler.events).containsExactly("store:0:17", "store:1:17");
+        assertThat(handler.lengths).containsExactly(MAX_RECORD_LENGTH, MAX_RECORD_LENGTH);
+        assertThat(handler.orders.get(1).getInstrumentId()).isEqualTo(99L);
+    }
+
+    @Test
+    void shouldRejectUpdatedRegionOutsideOfRecord()
+    {
+        store.store(transcoder, Order.of(17L), Order::getId);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> store.update(17L, MAX_RECORD_LENGTH - 4, Long.BYTES, (buffer, offset) -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> store.update(17L, -1, Long.BYTES, (buffer, offset) -> {}));
+    }
+
+    @Test
+    void shouldRespectMessageLimit()
+    {
+        final UnsafeBuffer broadcastBuffer = broadcastBuffer(BROADCAST_CAPACITY);
+        store.mutationListener(new MutationPublisher<>(broadcastBuffer, bufferOps, MAX_RECORD_LENGTH));
+        final MutationReceiver receiver = new MutationReceiver(broadcastBuffer, MAX_RECORD_LENGTH);
+
+        for (int i = 0; i < 5; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+
+        assertThat(receiver.poll(handler, 3)).isEqualTo(3);
+        assertThat(receiver.poll(handler, 3)).isEqualTo(2);
+        assertThat(receiver.poll(handler, 3)).isEqualTo(0);
+    }
+
+    @Test
+    void shouldOnlyReceiveMutationsPublishedAfterAttaching()
+    {
+        final UnsafeBuffer broadcastBuffer = broadcastBuffer(BROADCAST_CAPACITY);
+        store.mutationListener(new MutationPublisher<>(broadcastBuffer, bufferOps, MAX_RECORD_LENGTH));
+        store.store(transcoder, Order.of(17L), Order::getId);
+        store.store(transcoder, Order.of(37L), Order::getId);
+        final MutationReceiver receiver = new MutationReceiver(broadcastBuffer, MAX_RECORD_LENGTH);
+
+        assertThat(receiver.poll(handler, 10)).isEqualTo(0);
+        store.remove(17L);
+
+        assertThat(receiver.poll(handler, 10)).isEqualTo(1);
+        assertThat(handler.events).containsExactly("remove:2:17");
+        assertThat(handler.lostFrom).isEqualTo(-1L);
+    }
+
+    @Test
+    void shouldReportLostMutationsWhenLapped()
+    {
+        final UnsafeBuffer broadcastBuffer = broadcastBuffer(1024);
+        store.mutationListener(new MutationPublisher<>(broadcastBuffer, bufferOps, MAX_RECORD_LENGTH));
+        final MutationReceiver receiver = new MutationReceiver(broadcastBuffer, MAX_RECORD_LENGTH);
+
+        store.store(transcoder, Order.of(0), Order::getId);
+        assertThat(receiver.poll(handler, 10)).isEqualTo(1);
+
+        for (int i = 1; i < 100; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+
+        receiver.poll(handler, 100);
+
+        assertThat(receiver.lappedCount()).isGreaterThan(0L);
+        assertThat(handler.lostFrom).isEqualTo(1L);
+        assertThat(handler.lostTo).isGreaterThan(1L);
+        assertThat(handler.lastSequence).isEqualTo(99L);
+    }
+
+    @Test
+    void shouldRejectBroadcastBufferThatIsTooSmall()
+    {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new MutationPublisher<>(broadcastBuffer(256), bufferOps, MAX_RECORD_LENGTH));
+    }
+
+    private static UnsafeBuffer broadcastBuffer(final int capacity)
+    {
+        return new UnsafeBuffer(ByteBuffer.allocateDirect(capacity + BroadcastBufferDescriptor.TRAILER_LENGTH));
+    }
+
+    private final class CapturingHandler implements MutationHandler
+    {
+        private final List<String> events = new ArrayList<>();
+        private final List<Order> orders = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+        private long lostFrom = -1;
+        private long lostTo = -1;
+        private long lastSequence = -1;
+        private long updatedValue = -1;
+
+        @Override
+        public void onStore(
+            final long sequence, final long id, final DirectBuffer buffer, final int offset, final int length)
+        {
+            events.add("store:" + sequence + ":" + id);
+            lengths.add(length);
+            final Order order = Order.of(-1L);
+            transcoder.load(new UnsafeBuffer(buffer, offset, length), 0, order);
+            orders.add(order);
+            lastSequence = sequence;
+        }
+
+        @Override
+        public void onUpdate(
+            final long sequence, final long id, final int fieldOffset,
+            final DirectBuffer buffer, final int offset, final int length)
+        {
+            events.add("update:" + sequence + ":" + id + ":" + fieldOffset + ":" + length);
+            updatedValue = buffer.getLong(offset);
+            lastSequence = sequence;
+        }
+
+        @Override
+        public void onRemove(final long sequence, final long id)
+        {
+            events.add("remove:" + sequence + ":" + id);
+            lastSequence = sequence;
+        }
+
+        @Override
+        public void onClear(final long sequence)
+        {
+            events.add("clear:" + sequence);
+            lastSequence = sequence;
+        }
+
+        @Override
+        public void onMutationsLost(final long fromSequence, final long toSequence)
+        {
+            lostFrom = fromSequence;
+            lostTo = toSequence;
+        }
+    }
+}
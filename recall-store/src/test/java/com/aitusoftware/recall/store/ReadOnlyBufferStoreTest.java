@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadOnlyBufferStoreTest
+{
+    private static final int INITIAL_RECORDS = 16;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
+    private final BufferStore<UnsafeBuffer> store = new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS,
+        len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len)), bufferOps, SlotMode.STABLE);
+    private final OrderUnsafeBufferTranscoder transcoder = new OrderUnsafeBufferTranscoder();
+    private final IdAccessor<Order> idAccessor = ReadOnlyBufferStoreTest::idOf;
+    private Path storeFile;
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        if (storeFile != null)
+        {
+            Files.deleteIfExists(storeFile);
+        }
+    }
+
+    @Test
+    void shouldLoadRecordsFromMappedFile() throws IOException
+    {
+        storeRecords(0, INITIAL_RECORDS * 3);
+
+        final BufferStore<UnsafeBuffer> readOnlyStore = BufferStore.openReadOnly(persist(store), bufferOps);
+
+        assertThat(readOnlyStore.size()).isEqualTo(INITIAL_RECORDS * 3);
+        final Order container = Order.of(-1L);
+        for (long id = 0; id < INITIAL_RECORDS * 3; id++)
+        {
+            assertThat(readOnlyStore.load(id, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo(id);
+            assertThat(container.getInstrumentId()).isEqualTo(37L);
+        }
+        assertThat(readOnlyStore.load(INITIAL_RECORDS * 3, transcoder, container)).isFalse();
+    }
+
+    @Test
+    void shouldSkipFreeSlots() throws IOException
+    {
+        storeRecords(0, 8);
+        assertThat(store.remove(2L)).isTrue();
+        assertThat(store.remove(5L)).isTrue();
+
+        final BufferStore<UnsafeBuffer> readOnlyStore = BufferStore.openReadOnly(persist(store), bufferOps);
+
+        assertThat(readOnlyStore.size()).isEqualTo(6);
+        final Order container = Order.of(-1L);
+        for (final long id : new long[]{0L, 1L, 3L, 4L, 6L, 7L})
+        {
+            assertThat(readOnlyStore.load(id, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo(id);
+        }
+        assertThat(readOnlyStore.load(2L, transcoder, container)).isFalse();
+        assertThat(readOnlyStore.load(5L, transcoder, container)).isFalse();
+    }
+
+    @Test
+    void shouldRejectMutations() throws IOException
+    {
+        storeRecords(0, 4);
+        final BufferStore<UnsafeBuffer> readOnlyStore = BufferStore.openReadOnly(persist(store), bufferOps);
+        final long handle = readOnlyStore.handleOf(1L);
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> readOnlyStore.store(transcoder, Order.of(10L), idAccessor));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyStore.update(1L, (buffer, offset) -> {}));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyStore.getAndAddLong(1L, 0, 1L));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyStore.compareAndSetLong(1L, 0, 1L, 2L));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyStore.remove(1L));
+        assertThrows(UnsupportedOperationException.class, () -> readOnlyStore.removeByHandle(handle));
+        assertThrows(UnsupportedOperationException.class, readOnlyStore::clear);
+        assertThat(readOnlyStore.loadByHandle(handle, transcoder, Order.of(-1L))).isTrue();
+        assertThat(readOnlyStore.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldWriteSnapshotOfReadOnlyStore() throws IOException
+    {
+        storeRecords(0, 8);
+        final BufferStore<UnsafeBuffer> readOnlyStore = BufferStore.openReadOnly(persist(store), bufferOps);
+        final Path copyFile = Files.createTempFile("recall", ".store");
+        try
+        {
+            try (FileChannel output = FileChannel.open(copyFile, StandardOpenOption.WRITE))
+            {
+                readOnlyStore.writeTo(output);
+            }
+
+            final BufferStore<UnsafeBuffer> copy = BufferStore.openReadOnly(copyFile, bufferOps);
+            assertThat(copy.size()).isEqualTo(8);
+            assertThat(copy.load(7L, transcoder, Order.of(-1L))).isTrue();
+        }
+        finally
+        {
+            Files.deleteIfExists(copyFile);
+        }
+    }
+
+    @Test
+    void shouldMapByteBufferStore() throws IOException
+    {
+        final ByteBufferOps byteBufferOps = new ByteBufferOps();
+        final OrderByteBufferTranscoder byteBufferTranscoder = new OrderByteBufferTranscoder();
+        final BufferStore<ByteBuffer> byteBufferStore =
+            new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, ByteBuffer::allocateDirect, byteBufferOps);
+        for (long id = 0; id < 20; id++)
+        {
+            byteBufferStore.store(byteBufferTranscoder, Order.of(id), idAccessor);
+        }
+
+        final BufferStore<ByteBuffer> readOnlyStore = BufferStore.openReadOnly(persist(byteBufferStore), byteBufferOps);
+
+        final Order container = Order.of(-1L);
+        assertThat(readOnlyStore.load(19L, byteBufferTranscoder, container)).isTrue();
+        assertThat(container.getId()).isEqualTo(19L);
+    }
+
+    @Test
+    void shouldRejectStoreWrittenInDifferentByteOrder() throws IOException
+    {
+        final BufferStore<ByteBuffer> byteBufferStore = new BufferStore<>(
+            MAX_RECORD_LENGTH, INITIAL_RECORDS, ByteBuffer::allocateDirect, new ByteBufferOps());
+        final Path file = persist(byteBufferStore);
+
+        assertThrows(IllegalArgumentException.class, () -> BufferStore.openReadOnly(file, bufferOps));
+    }
+
+    private Path persist(final BufferStore<?> source) throws IOException
+    {
+        storeFile = Files.createTempFile("recall", ".store");
+        try (FileChannel output = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            source.writeTo(output);
+        }
+        return storeFile;
+    }
+
+    private void storeRecords(final int fromId, final int toId)
+    {
+        for (int i = fromId; i < toId; i++)
+        {
+            store.store(transcoder, Order.of(i), idAccessor);
+        }
+    }
+
+    private static long idOf(final Order order)
+    {
+        return order.getId();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+class ReplicaStoreTest
+{
+    private static final int INITIAL_RECORDS = 16;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private static final int LOG_CAPACITY = 64 * 1024;
+    private final IntFunction<ByteBuffer> bufferFactory = ByteBuffer::allocateDirect;
+    private final ByteBufferOps bufferOps = new ByteBufferOps();
+    private final BufferStore<ByteBuffer> leader =
+        new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps);
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final Order container = Order.of(-1L);
+
+    @Test
+    void shouldApplyMutationsPublishedAfterSnapshot() throws IOException
+    {
+        final Path logFile = Files.createTempFile("recall", ".log");
+        leader.mutationListener(new MutationPublisher<>(
+            MutationLog.create(logFile, LOG_CAPACITY), bufferOps, MAX_RECORD_LENGTH));
+        for (int i = 0; i < 10; i++)
+        {
+            leader.store(transcoder, Order.of(i), Order::getId);
+        }
+
+        final ReplicaStore<ByteBuffer> replica = new ReplicaStore<>(
+            MutationLog.open(logFile), MAX_RECORD_LENGTH, bufferOps, bufferFactory);
+        leader.store(transcoder, Order.of(10), Order::getId);
+        final FileChannel snapshot = writeSnapshot(leader);
+        replica.loadSnapshot(snapshot);
+
+        assertThat(replica.isConsistent()).isTrue();
+        assertThat(replica.size()).isEqualTo(11);
+
+        leader.remove(3L);
+        leader.store(transcoder, Order.of(11), Order::getId);
+        final Order updated = new Order(5L, 17L, 37, 13L, 17L, 35, "Foo");
+        leader.store(transcoder, updated, Order::getId);
+
+        assertThat(replica.poll(100)).isEqualTo(4);
+
+        assertThat(replica.size()).isEqualTo(11);
+        assertThat(replica.load(3L, transcoder, container)).isFalse();
+        assertThat(replica.load(11L, transcoder, container)).isTrue();
+        assertThat(replica.load(5L, transcoder, container)).isTrue();
+        assertThat(container.getSymbol().toString()).isEqualTo("Foo");
+        assertThat(replica.isConsistent()).isTrue();
+    }
+
+    @Test
+    void shouldApplyUpdatedRegion() throws IOException
+    {
+        final UnsafeBuffer mutationLog = new UnsafeBuffer(ByteBuffer.allocateDirect(LOG_CAPACITY + 128));
+        leader.mutationListener(new MutationPublisher<>(mutationLog, bufferOps, MAX_RECORD_LENGTH));
+        final ReplicaStore<ByteBuffer> replica = new ReplicaStore<>(
+            mutationLog, MAX_RECORD_LENGTH, bufferOps, bufferFactory);
+        leader.store(transcoder, Order.of(7L), Order::getId);
+        replica.loadSnapshot(writeSnapshot(leader));
+
+        leader.update(7L, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, Long.BYTES,
+            (buffer, offset) -> buffer.putLong(offset + OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 99L));
+
+        assertThat(replica.poll(10)).isEqualTo(2);
+        assertThat(replica.load(7L, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+        assertThat(container.getSymbol().toString()).isEqualTo("SYM_7");
+    }
+
+    @Test
+    void shouldApplyAtomicUpdates() throws IOException
+    {
+        final UnsafeBuffer mutationLog = new UnsafeBuffer(ByteBuffer.allocateDirect(LOG_CAPACITY + 128));
+        leader.mutationListener(new MutationPublisher<>(mutationLog, bufferOps, MAX_RECORD_LENGTH));
+        final ReplicaStore<ByteBuffer> replica = new ReplicaStore<>(
+            mutationLog, MAX_RECORD_LENGTH, bufferOps, bufferFactory);
+        leader.store(transcoder, Order.of(7L), Order::getId);
+        replica.loadSnapshot(writeSnapshot(leader));
+        final long instrumentId = Order.of(7L).getInstrumentId();
+
+        leader.getAndAddLong(7L, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 5L);
+        assertThat(leader.compareAndSetLong(
+            7L, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId, 99L)).isFalse();
+        assertThat(leader.compareAndSetLong(
+            7L, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId + 5L, 99L)).isTrue();
+
+        assertThat(replica.poll(10)).isEqualTo(3);
+        assertThat(replica.load(7L, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+        assertThat(replica.isConsistent()).isTrue();
+    }
+
+    @Test
+    void shouldBecomeInconsistentWhenLapped() throws IOException
+    {
+        final UnsafeBuffer mutationLog = new UnsafeBuffer(ByteBuffer.allocateDirect(1024 + 128));
+        leader.mutationListener(new MutationPublisher<>(mutationLog, bufferOps, MAX_RECORD_LENGTH));
+        final ReplicaStore<ByteBuffer> replica = new ReplicaStore<>(
+            mutationLog, MAX_RECORD_LENGTH, bufferOps, bufferFactory);
+        leader.store(transcoder, Order.of(0), Order::getId);
+        replica.loadSnapshot(writeSnapshot(leader));
+        replica.poll(10);
+
+        for (int i = 1; i < 100; i++)
+        {
+            leader.store(transcoder, Order.of(i), Order::getId);
+        }
+        replica.poll(100);
+
+        assertThat(replica.isConsistent()).isFalse();
+    }
+
+    @Test
+    void shouldBeReadOnly()
+    {
+        final ReplicaStore<ByteBuffer> replica = new ReplicaStore<>(
+            new UnsafeBuffer(ByteBuffer.allocateDirect(LOG_CAPACITY + 128)), MAX_RECORD_LENGTH,
+            bufferOps, bufferFactory);
+
+        assertThat(replica.isConsistent()).isFalse();
+        Assertions.assertThrows(UnsupportedOperationException.class,
+            () -> replica.store(transcoder, Order.of(1L), Order::getId));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> replica.remove(1L));
+        Assertions.assertThrows(UnsupportedOperationException.class, replica::clear);
+    }
+
+    private static FileChannel writeSnapshot(final BufferStore<ByteBuffer> store) throws IOException
+    {
+        final Path snapshotFile = Files.createTempFile("recall", ".store");
+        final FileChannel channel = FileChannel.open(snapshotFile, READ, WRITE);
+        store.writeTo(channel);
+        return channel;
+    }
+}
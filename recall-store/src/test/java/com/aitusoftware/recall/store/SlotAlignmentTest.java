@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import org.agrona.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SlotAlignmentTest
+{
+    private static final int SLOT_ALIGNMENT = 64;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private static final int INITIAL_RECORDS = 4;
+    private final IntFunction<ByteBuffer> bufferFactory = new AlignedBufferFactory(SLOT_ALIGNMENT);
+    private final BufferOps<ByteBuffer> bufferOps = new ByteBufferOps();
+    private final BufferStore<ByteBuffer> store = new BufferStore<>(
+        MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps, SlotMode.COMPACT, SLOT_ALIGNMENT);
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final IdAccessor<Order> idAccessor = Order::getId;
+
+    @Test
+    void shouldAlignRecordSlots()
+    {
+        for (int i = 0; i < INITIAL_RECORDS * 4; i++)
+        {
+            store.store(transcoder, Order.of(i), idAccessor);
+        }
+
+        assertThat(store.nextWriteOffset()).isEqualTo(Header.LENGTH + INITIAL_RECORDS * 4 * 128);
+        for (int i = 0; i < INITIAL_RECORDS * 4; i++)
+        {
+            final long[] slotAddress = new long[1];
+            assertThat(store.update(i, (buffer, offset) ->
+                slotAddress[0] = BufferUtil.address(buffer) + offset - Long.BYTES)).isTrue();
+            assertThat(slotAddress[0] % SLOT_ALIGNMENT).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    void shouldRetainSlotLengthWhenLoaded() throws IOException
+    {
+        for (int i = 0; i < INITIAL_RECORDS; i++)
+        {
+            store.store(transcoder, Order.of(i), idAccessor);
+        }
+
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        final BufferStore<ByteBuffer> loadedStore;
+        try (FileChannel storeChannel = FileChannel.open(storeFile.toAbsolutePath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
+            store.writeTo(storeChannel);
+            loadedStore = BufferStore.loadFrom(storeChannel, bufferOps, bufferFactory);
+        }
+        finally
+        {
+            Files.deleteIfExists(storeFile);
+        }
+
+        loadedStore.store(transcoder, Order.of(INITIAL_RECORDS), idAccessor);
+        assertThat(loadedStore.nextWriteOffset()).isEqualTo(Header.LENGTH + (INITIAL_RECORDS + 1) * 128);
+        final Order container = Order.of(-1L);
+        for (int i = 0; i <= INITIAL_RECORDS; i++)
+        {
+            assertThat(loadedStore.load(i, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo((long)i);
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidAlignment()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new BufferStore<>(
+            MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps, SlotMode.COMPACT, 48));
+        assertThrows(IllegalArgumentException.class, () -> new AlignedBufferFactory(0));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotWriterTest
+{
+    private static final int SNAPSHOT_LENGTH = (7 * 1024 * 1024) / 2 + 17;
+    private final byte[] data = new byte[SNAPSHOT_LENGTH];
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        ThreadLocalRandom.current().nextBytes(data);
+        file = Files.createTempFile("recall", ".snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        executor.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldWriteSnapshotUsingCallingThread() throws IOException
+    {
+        assertWritten(new SnapshotWriter(Runnable::run, 1, 0));
+    }
+
+    @Test
+    void shouldWriteRangesOfLargeSnapshotConcurrently() throws IOException
+    {
+        assertWritten(new SnapshotWriter(executor, 4, 0));
+    }
+
+    @Test
+    void shouldWriteSnapshotBelowThresholdUsingCallingThread() throws IOException
+    {
+        assertWritten(new SnapshotWriter(executor, 4, SnapshotWriter.DEFAULT_PARALLEL_THRESHOLD));
+    }
+
+    @Test
+    void shouldWriteFromPositionOfSource() throws IOException
+    {
+        final ByteBuffer source = ByteBuffer.allocateDirect(data.length + 64);
+        source.position(64);
+        source.put(data);
+        source.position(64);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            new SnapshotWriter(executor, 3, 0).write(channel, source);
+        }
+
+        assertThat(source.position()).isEqualTo(64);
+        assertThat(Arrays.equals(Files.readAllBytes(file), data)).isTrue();
+    }
+
+    @Test
+    void shouldWriteFromPositionOfFile() throws IOException
+    {
+        final int filePosition = 4096;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            channel.position(filePosition);
+            new SnapshotWriter(executor, 4, 0).write(channel, ByteBuffer.wrap(data));
+
+            assertThat(channel.position()).isEqualTo((long)filePosition + data.length);
+        }
+
+        final byte[] fileContent = Files.readAllBytes(file);
+        assertThat(fileContent.length).isEqualTo(filePosition + data.length);
+        assertThat(Arrays.equals(Arrays.copyOfRange(fileContent, filePosition, fileContent.length), data)).isTrue();
+    }
+
+    @Test
+    void shouldReuseExecutorAcrossSnapshots() throws IOException
+    {
+        final SnapshotWriter snapshotWriter = new SnapshotWriter(executor, 4, 0);
+        assertWritten(snapshotWriter);
+        assertWritten(snapshotWriter);
+
+        assertThat(executor.isShutdown()).isFalse();
+    }
+
+    @Test
+    void shouldRejectNonPositiveWriterCount()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotWriter(executor, 0, 0));
+    }
+
+    private void assertWritten(final SnapshotWriter snapshotWriter) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            snapshotWriter.write(channel, ByteBuffer.wrap(data));
+
+            assertThat(channel.position()).isEqualTo((long)data.length);
+        }
+
+        assertThat(Arrays.equals(Files.readAllBytes(file), data)).isTrue();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StableSlotBufferStoreTest
+{
+    private static final int INITIAL_RECORDS = 16;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private final IntFunction<UnsafeBuffer> bufferFactory = len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len));
+    private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
+    private final BufferStore<UnsafeBuffer> store =
+        new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps, SlotMode.STABLE);
+    private final OrderUnsafeBufferTranscoder transcoder = new OrderUnsafeBufferTranscoder();
+    private final IdAccessor<Order> idAccessor = StableSlotBufferStoreTest::idOf;
+
+    @Test
+    void shouldNotMoveRecordsOnRemoval()
+    {
+        storeRecords(0, 4);
+        final int lastRecordOffset = recordOffset(3L);
+
+        assertThat(store.remove(0L)).isTrue();
+
+        assertThat(recordOffset(3L)).isEqualTo(lastRecordOffset);
+        assertThat(store.size()).isEqualTo(3);
+        assertLoadable(1, 4);
+        assertThat(store.load(0L, transcoder, Order.of(-1L))).isFalse();
+    }
+
+    @Test
+    void shouldReuseRemovedSlots()
+    {
+        storeRecords(0, 4);
+        final int removedOffset = recordOffset(1L);
+        final int nextWriteOffset = store.nextWriteOffset();
+
+        assertThat(store.remove(1L)).isTrue();
+        store.store(transcoder, Order.of(10L), idAccessor);
+
+        assertThat(store.nextWriteOffset()).isEqualTo(nextWriteOffset);
+        assertThat(recordOffset(10L)).isEqualTo(removedOffset);
+        assertThat(store.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldGrowOnceFreeSlotsAreExhausted()
+    {
+        storeRecords(0, INITIAL_RECORDS);
+        for (int i = 0; i < INITIAL_RECORDS; i += 2)
+        {
+            assertThat(store.remove(i)).isTrue();
+        }
+
+        storeRecords(INITIAL_RECORDS, INITIAL_RECORDS * 3);
+
+        assertThat(store.size()).isEqualTo(INITIAL_RECORDS * 2 + INITIAL_RECORDS / 2);
+        assertLoadable(INITIAL_RECORDS, INITIAL_RECORDS * 3);
+        for (int i = 1; i < INITIAL_RECORDS; i += 2)
+        {
+            assertLoadable(i, i + 1);
+        }
+    }
+
+    @Test
+    void shouldReportUtilisationOfOccupiedSlots()
+    {
+        storeRecords(0, INITIAL_RECORDS);
+        assertThat(store.remove(0L)).isTrue();
+        assertThat(store.remove(1L)).isTrue();
+
+        assertThat(store.utilisation()).isWithin(0.0001f).of((INITIAL_RECORDS - 2) / (float)INITIAL_RECORDS);
+    }
+
+    @Test
+    void shouldRejectReservedId()
+    {
+        assertThrows(IllegalArgumentException.class,
+            () -> store.store(transcoder, Order.of(Long.MIN_VALUE), idAccessor));
+    }
+
+    @Test
+    void shouldClearFreeSlots()
+    {
+        storeRecords(0, 4);
+        assertThat(store.remove(2L)).isTrue();
+        store.clear();
+
+        storeRecords(0, 1);
+
+        assertThat(recordOffset(0L)).isEqualTo(Header.LENGTH + Long.BYTES);
+    }
+
+    @Test
+    void shouldRetainFreeSlotsWhenLoadedInStableMode() throws IOException
+    {
+        storeRecords(0, 8);
+        assertThat(store.remove(2L)).isTrue();
+        assertThat(store.remove(5L)).isTrue();
+        final int nextWriteOffset = store.nextWriteOffset();
+
+        final BufferStore<UnsafeBuffer> loadedStore = persistAndLoad(SlotMode.STABLE);
+
+        assertThat(loadedStore.size()).isEqualTo(6);
+        assertThat(loadedStore.nextWriteOffset()).isEqualTo(nextWriteOffset);
+        loadedStore.store(transcoder, Order.of(20L), idAccessor);
+        loadedStore.store(transcoder, Order.of(21L), idAccessor);
+        assertThat(loadedStore.nextWriteOffset()).isEqualTo(nextWriteOffset);
+        assertThat(loadedStore.size()).isEqualTo(8);
+    }
+
+    @Test
+    void shouldFillFreeSlotsWhenLoadedInCompactMode() throws IOException
+    {
+        storeRecords(0, 8);
+        assertThat(store.remove(2L)).isTrue();
+        assertThat(store.remove(7L)).isTrue();
+        assertThat(store.remove(5L)).isTrue();
+
+        final BufferStore<UnsafeBuffer> loadedStore = persistAndLoad(SlotMode.COMPACT);
+
+        assertThat(loadedStore.size()).isEqualTo(5);
+        assertThat(loadedStore.nextWriteOffset()).isEqualTo(Header.LENGTH + 5 * (MAX_RECORD_LENGTH + Long.BYTES));
+        final Order container = Order.of(-1L);
+        for (final long id : new long[]{0L, 1L, 3L, 4L, 6L})
+        {
+            assertThat(loadedStore.load(id, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo(id);
+        }
+    }
+
+    private BufferStore<UnsafeBuffer> persistAndLoad(final SlotMode slotMode) throws IOException
+    {
+        final Path storeFile = Files.createTempFile("recall", ".store");
+        try (FileChannel storeChannel = FileChannel.open(storeFile.toAbsolutePath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ))
+        {
+            store.writeTo(storeChannel);
+            return BufferStore.loadFrom(storeChannel, bufferOps, bufferFactory, slotMode);
+        }
+        finally
+        {
+            Files.deleteIfExists(storeFile);
+        }
+    }
+
+    private void storeRecords(final int fromId, final int toId)
+    {
+        for (int i = fromId; i < toId; i++)
+        {
+            store.store(transcoder, Order.of(i), idAccessor);
+        }
+    }
+
+    private void assertLoadable(final int fromId, final int toId)
+    {
+        final Order container = Order.of(-1L);
+        for (int i = fromId; i < toId; i++)
+        {
+            assertThat(store.load(i, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo((long)i);
+        }
+    }
+
+    private int recordOffset(final long id)
+    {
+        final int[] recordOffset = new int[1];
+        assertThat(store.update(id, (buffer, offset) -> recordOffset[0] = offset)).isTrue();
+        return recordOffset[0];
+    }
+
+    private static long idOf(final Order order)
+    {
+        return order.getId();
+    }
+}
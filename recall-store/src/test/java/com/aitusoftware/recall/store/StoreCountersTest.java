@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.counters.CountersFile;
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import org.agrona.concurrent.status.CountersReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class StoreCountersTest
+{
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final BufferStore<ByteBuffer> store =
+        new BufferStore<>(72, 4, ByteBuffer::allocateDirect, new ByteBufferOps());
+    private final Order container = Order.of(-1L);
+    private Path countersPath;
+    private CountersFile countersFile;
+    private StoreCounters counters;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        countersPath = Files.createTempFile("recall", ".counters");
+        countersFile = CountersFile.create(countersPath, 16);
+        counters = new StoreCounters(countersFile.countersManager(), "orders");
+        store.counters(counters);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        countersFile.close();
+        Files.delete(countersPath);
+    }
+
+    @Test
+    void shouldCountOperations()
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+        store.store(transcoder, Order.of(3), Order::getId);
+        store.load(3, transcoder, container);
+        store.load(4, transcoder, container);
+        store.load(11, transcoder, container);
+        store.remove(5);
+        store.remove(5);
+
+        assertThat(counters.stores()).isEqualTo(11L);
+        assertThat(counters.hits()).isEqualTo(2L);
+        assertThat(counters.misses()).isEqualTo(1L);
+        assertThat(counters.removes()).isEqualTo(1L);
+        assertThat(counters.resizes()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldPublishCountersToFile()
+    {
+        store.store(transcoder, Order.of(1), Order::getId);
+        store.load(1, transcoder, container);
+
+        final Map<String, Long> values = new HashMap<>();
+        try (CountersFile reader = CountersFile.open(countersPath))
+        {
+            final CountersReader countersReader = reader.countersReader();
+            countersReader.forEach((value, counterId, label) -> values.put(label, value));
+        }
+
+        assertThat(values.get("orders: stores")).isEqualTo(1L);
+        assertThat(values.get("orders: hits")).isEqualTo(1L);
+        assertThat(values.get("orders: misses")).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldStopCountingWhenCountersAreRemoved()
+    {
+        store.store(transcoder, Order.of(1), Order::getId);
+        store.counters(null);
+        store.store(transcoder, Order.of(2), Order::getId);
+
+        assertThat(counters.stores()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderUnsafeBufferTranscoder;
+import com.aitusoftware.recall.persistence.IdAccessor;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class StoreHandleTest
+{
+    private static final int INITIAL_RECORDS = 16;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private final IntFunction<UnsafeBuffer> bufferFactory = len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len));
+    private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
+    private final OrderUnsafeBufferTranscoder transcoder = new OrderUnsafeBufferTranscoder();
+    private final IdAccessor<Order> idAccessor = Order::getId;
+    private final BufferStore<UnsafeBuffer> compactStore =
+        new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps);
+    private final BufferStore<UnsafeBuffer> stableStore =
+        new BufferStore<>(MAX_RECORD_LENGTH, INITIAL_RECORDS, bufferFactory, bufferOps, SlotMode.STABLE);
+
+    @Test
+    void shouldLoadByHandle()
+    {
+        final long handle = compactStore.storeWithHandle(transcoder, Order.of(17L), idAccessor);
+
+        final Order container = Order.of(-1L);
+        assertThat(compactStore.loadByHandle(handle, transcoder, container)).isTrue();
+        assertThat(container.getId()).isEqualTo(17L);
+        assertThat(compactStore.handleOf(17L)).isEqualTo(handle);
+    }
+
+    @Test
+    void shouldRetainHandleWhenReplacingRecord()
+    {
+        final long handle = compactStore.storeWithHandle(transcoder, Order.of(17L), idAccessor);
+
+        assertThat(compactStore.storeWithHandle(transcoder, Order.of(17L), idAccessor)).isEqualTo(handle);
+    }
+
+    @Test
+    void shouldRemoveByHandle()
+    {
+        final long handle = compactStore.storeWithHandle(transcoder, Order.of(17L), idAccessor);
+
+        assertThat(compactStore.removeByHandle(handle)).isTrue();
+        assertThat(compactStore.removeByHandle(handle)).isFalse();
+        assertThat(compactStore.load(17L, transcoder, Order.of(-1L))).isFalse();
+        assertThat(compactStore.handleOf(17L)).isEqualTo(BufferStore.INVALID_HANDLE);
+    }
+
+    @Test
+    void shouldRejectHandleToReusedSlot()
+    {
+        final long handle = stableStore.storeWithHandle(transcoder, Order.of(17L), idAccessor);
+        assertThat(stableStore.remove(17L)).isTrue();
+        final long reusedHandle = stableStore.storeWithHandle(transcoder, Order.of(18L), idAccessor);
+
+        assertThat(reusedHandle).isNotEqualTo(handle);
+        assertThat(stableStore.loadByHandle(handle, transcoder, Order.of(-1L))).isFalse();
+        assertThat(stableStore.removeByHandle(handle)).isFalse();
+        assertThat(stableStore.loadByHandle(reusedHandle, transcoder, Order.of(-1L))).isTrue();
+    }
+
+    @Test
+    void shouldRejectHandleToMovedRecord()
+    {
+        compactStore.store(transcoder, Order.of(1L), idAccessor);
+        final long handle = compactStore.storeWithHandle(transcoder, Order.of(2L), idAccessor);
+
+        assertThat(compactStore.remove(1L)).isTrue();
+
+        assertThat(compactStore.loadByHandle(handle, transcoder, Order.of(-1L))).isFalse();
+        final Order container = Order.of(-1L);
+        assertThat(compactStore.loadByHandle(compactStore.handleOf(2L), transcoder, container)).isTrue();
+        assertThat(container.getId()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldRetainHandlesInStableStore()
+    {
+        final long[] handles = new long[INITIAL_RECORDS * 2];
+        for (int i = 0; i < handles.length; i++)
+        {
+            handles[i] = stableStore.storeWithHandle(transcoder, Order.of(i), idAccessor);
+        }
+        for (int i = 0; i < handles.length; i += 2)
+        {
+            assertThat(stableStore.removeByHandle(handles[i])).isTrue();
+        }
+
+        final Order container = Order.of(-1L);
+        for (int i = 1; i < handles.length; i += 2)
+        {
+            assertThat(stableStore.loadByHandle(handles[i], transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo((long)i);
+        }
+    }
+
+    @Test
+    void shouldRejectHandlesAfterClear()
+    {
+        final long handle = compactStore.storeWithHandle(transcoder, Order.of(17L), idAccessor);
+        compactStore.clear();
+        compactStore.store(transcoder, Order.of(18L), idAccessor);
+
+        assertThat(compactStore.loadByHandle(handle, transcoder, Order.of(-1L))).isFalse();
+    }
+
+    @Test
+    void shouldRejectInvalidHandle()
+    {
+        compactStore.store(transcoder, Order.of(17L), idAccessor);
+
+        assertThat(compactStore.loadByHandle(BufferStore.INVALID_HANDLE, transcoder, Order.of(-1L))).isFalse();
+        assertThat(compactStore.loadByHandle(1L, transcoder, Order.of(-1L))).isFalse();
+    }
+}
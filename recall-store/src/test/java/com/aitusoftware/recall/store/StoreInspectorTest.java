@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StoreInspectorTest
+{
+    private static final int RECORD_COUNT = 100;
+    private static final int MAX_RECORD_LENGTH = 72;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private Path storeFile;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        storeFile = Files.createTempFile("recall", ".store");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        Files.deleteIfExists(storeFile);
+    }
+
+    @Test
+    void shouldReportStoreContents() throws IOException
+    {
+        final BufferStore<ByteBuffer> store = createStore(SlotMode.COMPACT);
+        writeStore(store);
+
+        assertThat(inspect()).isTrue();
+
+        final String report = report();
+        assertThat(report).contains("Version:             TWO");
+        assertThat(report).contains("Byte order:          BIG_ENDIAN");
+        assertThat(report).contains("Records:             " + RECORD_COUNT);
+        assertThat(report).contains("Header records:      " + RECORD_COUNT);
+        assertThat(report).contains("Duplicate ids:       0");
+    }
+
+    @Test
+    void shouldReportFreeSlots() throws IOException
+    {
+        final BufferStore<ByteBuffer> store = createStore(SlotMode.STABLE);
+        store.remove(17);
+        store.remove(42);
+        writeStore(store);
+
+        assertThat(inspect()).isTrue();
+
+        final String report = report();
+        assertThat(report).contains("Slots:               " + RECORD_COUNT);
+        assertThat(report).contains("Free slots:          2");
+        assertThat(report).contains("Records:             " + (RECORD_COUNT - 2));
+    }
+
+    @Test
+    void shouldDetectDuplicateIds() throws IOException
+    {
+        writeStore(createStore(SlotMode.COMPACT));
+        final ByteBuffer duplicateId = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.BIG_ENDIAN);
+        duplicateId.putLong(0, 7L);
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            channel.write(duplicateId, Header.LENGTH + (MAX_RECORD_LENGTH + Long.BYTES) * 3);
+        }
+
+        assertThat(inspect()).isFalse();
+
+        assertThat(report()).contains("Duplicate id: 7");
+    }
+
+    @Test
+    void shouldDumpRecords() throws IOException
+    {
+        writeStore(createStore(SlotMode.COMPACT));
+
+        assertThat(new StoreInspector(storeFile, 2, ByteOrder.LITTLE_ENDIAN)
+            .inspect(new PrintStream(output), new long[]{37L, RECORD_COUNT + 1})).isTrue();
+
+        final String report = report();
+        assertThat(report).contains("Record 37: slot 37");
+        assertThat(report).contains("  00000000  00 00 00 00 00 00 00 25");
+        assertThat(report).contains("Record " + (RECORD_COUNT + 1) + ": not found");
+    }
+
+    @Test
+    void shouldReportAppendOnlyStore() throws IOException
+    {
+        final AppendOnlyStore<ByteBuffer> store = new AppendOnlyStore<>(
+            MAX_RECORD_LENGTH, RECORD_COUNT, ByteBuffer::allocateDirect, new ByteBufferOps());
+        for (int i = 0; i < RECORD_COUNT; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            store.writeTo(channel);
+        }
+
+        assertThat(inspect()).isTrue();
+
+        final String report = report();
+        assertThat(report).contains("Store kind:          APPEND_ONLY");
+        assertThat(report).contains("Records:             " + RECORD_COUNT);
+    }
+
+    @Test
+    void shouldRejectDirectIndexStore() throws IOException
+    {
+        final DirectIndexStore<ByteBuffer> store = new DirectIndexStore<>(
+            0L, RECORD_COUNT, MAX_RECORD_LENGTH, ByteBuffer::allocateDirect, new ByteBufferOps());
+        store.store(transcoder, Order.of(7L), Order::getId);
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            store.writeTo(channel);
+        }
+
+        assertThrows(IllegalArgumentException.class, this::inspect);
+    }
+
+    private boolean inspect()
+    {
+        return new StoreInspector(storeFile, 3, ByteOrder.LITTLE_ENDIAN).inspect(new PrintStream(output));
+    }
+
+    private String report()
+    {
+        return new String(output.toByteArray());
+    }
+
+    private BufferStore<ByteBuffer> createStore(final SlotMode slotMode)
+    {
+        final BufferStore<ByteBuffer> store = new BufferStore<>(
+            MAX_RECORD_LENGTH, RECORD_COUNT, ByteBuffer::allocateDirect, new ByteBufferOps(), slotMode);
+        for (int i = 0; i < RECORD_COUNT; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+        return store;
+    }
+
+    private void writeStore(final BufferStore<ByteBuffer> store) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            store.writeTo(channel);
+        }
+    }
+}
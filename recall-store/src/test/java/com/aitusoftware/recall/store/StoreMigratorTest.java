@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.store;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StoreMigratorTest
+{
+    private static final int RECORD_COUNT = 100;
+    private final ByteBufferOps bufferOps = new ByteBufferOps();
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final BufferStore<ByteBuffer> store = new BufferStore<>(72, 16, ByteBuffer::allocateDirect, bufferOps);
+    private Path storeFile;
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        if (storeFile != null)
+        {
+            Files.deleteIfExists(storeFile);
+        }
+    }
+
+    @Test
+    void shouldLoadVersionOneFile() throws IOException
+    {
+        writeVersionOneFile();
+
+        assertRecords(load());
+    }
+
+    @Test
+    void shouldMigrateVersionOneFileInPlace() throws IOException
+    {
+        writeVersionOneFile();
+
+        assertThat(StoreMigrator.migrateInPlace(storeFile)).isTrue();
+        assertThat(StoreMigrator.migrateInPlace(storeFile)).isFalse();
+
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ))
+        {
+            assertThat(Header.readFrom(channel).version()).isEqualTo(Version.TWO);
+        }
+        assertRecords(load());
+    }
+
+    @Test
+    void shouldRejectMismatchedByteOrder() throws IOException
+    {
+        storeRecords();
+        storeFile = Files.createTempFile("recall", ".store");
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            store.writeTo(channel);
+        }
+
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ))
+        {
+            assertThrows(IllegalArgumentException.class, () -> BufferStore.loadFrom(
+                channel, new UnsafeBufferOps(), len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len))));
+        }
+    }
+
+    private void writeVersionOneFile() throws IOException
+    {
+        storeRecords();
+        final Path versionTwoFile = Files.createTempFile("recall", ".store");
+        storeFile = Files.createTempFile("recall", ".store");
+        try (FileChannel versionTwo = FileChannel.open(
+            versionTwoFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileChannel versionOne = FileChannel.open(storeFile, StandardOpenOption.WRITE))
+        {
+            store.writeTo(versionTwo);
+            final Header header = Header.readFrom(versionTwo);
+            final ByteBuffer versionOneHeader =
+                ByteBuffer.allocateDirect(Header.V1_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            versionOneHeader.putInt(0, Version.ONE.getVersionNumber())
+                .putInt(4, header.storeLength())
+                .putInt(8, header.maxRecordLength())
+                .putInt(12, header.nextWriteOffset() - Header.LENGTH + Header.V1_LENGTH);
+            while (versionOneHeader.remaining() != 0)
+            {
+                versionOne.write(versionOneHeader);
+            }
+            versionTwo.transferTo(Header.LENGTH, header.storeLength(), versionOne);
+        }
+        finally
+        {
+            Files.delete(versionTwoFile);
+        }
+    }
+
+    private BufferStore<ByteBuffer> load() throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ))
+        {
+            return BufferStore.loadFrom(channel, bufferOps, ByteBuffer::allocateDirect);
+        }
+    }
+
+    private void storeRecords()
+    {
+        for (int i = 0; i < RECORD_COUNT; i++)
+        {
+            store.store(transcoder, Order.of(i), Order::getId);
+        }
+    }
+
+    private void assertRecords(final BufferStore<ByteBuffer> loadedStore)
+    {
+        assertThat(loadedStore.size()).isEqualTo(RECORD_COUNT);
+        final Order container = Order.of(-1L);
+        for (int i = 0; i < RECORD_COUNT; i++)
+        {
+            assertThat(loadedStore.load(i, transcoder, container)).isTrue();
+            assertThat(container.getId()).isEqualTo((long)i);
+        }
+        loadedStore.store(transcoder, Order.of(RECORD_COUNT), Order::getId);
+        assertThat(loadedStore.load(RECORD_COUNT, transcoder, container)).isTrue();
+    }
+}
@@ -20,10 +20,17 @@ package com.aitusoftware.recall.store;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class UnsafeBufferOpsTest
 {
@@ -42,4 +49,39 @@ class UnsafeBufferOpsTest
 
         assertThat(Arrays.equals(target.byteArray(), expected.byteArray())).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldStoreWrappedRegionOfBuffer() throws IOException
+    {
+        final byte[] data = "0123456789ABCDE".getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer backingBuffer = ByteBuffer.allocateDirect(64);
+        final UnsafeBuffer buffer = new UnsafeBuffer(backingBuffer, 16, 32);
+        buffer.putBytes(0, data);
+
+        final Path file = Files.createTempFile("recall", ".store");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            new UnsafeBufferOps().storeTo(channel, buffer, data.length);
+
+            assertThat(channel.size()).isEqualTo((long)data.length);
+            assertThat(channel.position()).isEqualTo((long)data.length);
+            assertThat(Arrays.equals(Files.readAllBytes(file), data)).isTrue();
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shouldRejectMisalignedAtomicAccess()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(64), 4, 32);
+        final UnsafeBufferOps ops = new UnsafeBufferOps();
+
+        assertThat(ops.getAndAddLong(buffer, 4, 7L)).isEqualTo(0L);
+        assertThat(ops.compareAndSetLong(buffer, 4, 7L, 11L)).isTrue();
+        assertThrows(IllegalArgumentException.class, () -> ops.getAndAddLong(buffer, 8, 1L));
+        assertThrows(IllegalArgumentException.class, () -> ops.compareAndSetLong(buffer, 8, 0L, 1L));
+    }
+}
@@ -36,12 +36,13 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.IntFunction;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class UnsafeBufferStoreTest
 {
     private static final long ID = 17L;
     private static final int INITIAL_RECORDS = 16;
-    private static final int MAX_RECORD_LENGTH = 72;
+    private static final int MAX_RECORD_LENGTH = 75;
     private final IntFunction<UnsafeBuffer> bufferFactory = len -> new UnsafeBuffer(ByteBuffer.allocateDirect(len));
     private final BufferOps<UnsafeBuffer> bufferOps = new UnsafeBufferOps();
     private final BufferStore<UnsafeBuffer> store =
@@ -98,6 +99,122 @@ class UnsafeBufferStoreTest
         assertEquality(container, updated);
     }
 
+    @Test
+    void shouldUpdateFieldInPlace()
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+        final int nextWriteOffset = store.nextWriteOffset();
+
+        assertThat(store.update(ID, (buffer, offset) ->
+            buffer.putLong(offset + OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, 99L))).isTrue();
+
+        assertThat(store.nextWriteOffset()).isEqualTo(nextWriteOffset);
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(ID, transcoder, container)).isTrue();
+
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+        assertEquality(container, order);
+    }
+
+    @Test
+    void shouldIndicateFailedUpdate()
+    {
+        assertThat(store.update(ID, (buffer, offset) ->
+        {
+            throw new AssertionError("Should not be called");
+        })).isFalse();
+    }
+
+    @Test
+    void shouldAtomicallyUpdateField()
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+        final long instrumentId = order.getInstrumentId();
+
+        assertThat(store.getAndAddLong(
+            ID, OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, 5L)).isEqualTo(instrumentId);
+        assertThat(store.compareAndSetLong(
+            ID, OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId, 99L)).isFalse();
+        assertThat(store.compareAndSetLong(
+            ID, OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, instrumentId + 5L, 99L)).isTrue();
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(ID, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(99L);
+    }
+
+    @Test
+    void shouldAtomicallyUpdateFieldFromMultipleThreads() throws InterruptedException
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+        final long instrumentId = order.getInstrumentId();
+        final int threadCount = 4;
+        final int incrementsPerThread = 10_000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++)
+        {
+            threads[i] = new Thread(() ->
+            {
+                for (int j = 0; j < incrementsPerThread; j++)
+                {
+                    store.getAndAddLong(ID, OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET, 1L);
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        final Order container = Order.of(-1L);
+        assertThat(store.load(ID, transcoder, container)).isTrue();
+        assertThat(container.getInstrumentId()).isEqualTo(instrumentId + (threadCount * incrementsPerThread));
+    }
+
+    @Test
+    void shouldAtomicallyUpdateFieldOfEveryRecord()
+    {
+        for (long id = 0; id < INITIAL_RECORDS; id++)
+        {
+            final Order order = Order.of(id);
+            store.store(transcoder, order, order);
+        }
+
+        final int fieldOffset = OrderUnsafeBufferTranscoder.INSTRUMENT_ID_OFFSET;
+        for (long id = 0; id < INITIAL_RECORDS; id++)
+        {
+            final long instrumentId = Order.of(id).getInstrumentId();
+            assertThat(store.getAndAddLong(id, fieldOffset, 1L)).isEqualTo(instrumentId);
+            assertThat(store.compareAndSetLong(id, fieldOffset, instrumentId + 1L, id)).isTrue();
+        }
+
+        final Order container = Order.of(-1L);
+        for (long id = 0; id < INITIAL_RECORDS; id++)
+        {
+            assertThat(store.load(id, transcoder, container)).isTrue();
+            assertThat(container.getInstrumentId()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void shouldRejectAtomicUpdateOutsideOfRecord()
+    {
+        final Order order = Order.of(ID);
+        store.store(transcoder, order, order);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> store.getAndAddLong(ID, MAX_RECORD_LENGTH - Long.BYTES + 1, 1L));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.compareAndSetLong(ID, -1, 0L, 1L));
+        assertThrows(IllegalArgumentException.class,
+            () -> store.getAndAddLong(ID + 1, 0, 1L));
+    }
+
     @Test
     void shouldStoreAfterRemoval()
     {
@@ -188,7 +305,7 @@ class UnsafeBufferStoreTest
 
         store.compact();
 
-        assertThat(store.nextWriteOffset()).isEqualTo(160 + Header.LENGTH);
+        assertThat(store.nextWriteOffset()).isEqualTo(176 + Header.LENGTH);
     }
 
     @Test
@@ -247,6 +364,7 @@ class UnsafeBufferStoreTest
         store.writeTo(storeChannel);
 
         final BufferStore<UnsafeBuffer> loadedStore = BufferStore.loadFrom(storeChannel, bufferOps, bufferFactory);
+        assertThat(loadedStore.size()).isEqualTo(recordCount);
 
         final LongHashSet.LongIterator iterator = createdIds.iterator();
         while (iterator.hasNext())
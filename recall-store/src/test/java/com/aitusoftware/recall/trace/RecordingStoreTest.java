@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+import com.aitusoftware.recall.example.Order;
+import com.aitusoftware.recall.example.OrderByteBufferTranscoder;
+import com.aitusoftware.recall.map.ByteSequenceMap;
+import com.aitusoftware.recall.map.CharSequenceMap;
+import com.aitusoftware.recall.store.BufferStore;
+import com.aitusoftware.recall.store.ByteBufferOps;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class RecordingStoreTest
+{
+    private final OrderByteBufferTranscoder transcoder = new OrderByteBufferTranscoder();
+    private final List<String> operations = new ArrayList<>();
+    private long nanoTime;
+    private Path tracePath;
+    private TraceWriter traceWriter;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        tracePath = Files.createTempFile("recall", ".trace");
+        traceWriter = TraceWriter.create(tracePath, 64);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        traceWriter.close();
+        Files.delete(tracePath);
+    }
+
+    @Test
+    void shouldRecordStoreOperations()
+    {
+        final RecordingStore<ByteBuffer> store = new RecordingStore<>(
+            new BufferStore<>(72, 16, ByteBuffer::allocateDirect, new ByteBufferOps()), traceWriter, this::tick);
+        final Order container = Order.of(-1L);
+
+        store.store(transcoder, Order.of(7L), Order::getId);
+        assertThat(store.load(7L, transcoder, container)).isTrue();
+        store.getAndAddLong(7L, OrderByteBufferTranscoder.INSTRUMENT_ID_OFFSET, 1L);
+        assertThat(store.remove(7L)).isTrue();
+        assertThat(store.load(7L, transcoder, container)).isFalse();
+
+        assertThat(readTrace()).containsExactly(
+            "STORE/7/0/1", "LOAD/7/0/2", "GET_AND_ADD/7/0/3", "REMOVE/7/0/4", "LOAD/7/0/5").inOrder();
+    }
+
+    @Test
+    void shouldRecordMapOperationsWithKeyHashAndLength()
+    {
+        final RecordingSequenceMap<CharSequence> map = new RecordingSequenceMap<>(
+            new CharSequenceMap(16, 16, Long.MIN_VALUE), traceWriter,
+            RecordingSequenceMap::hash, CharSequence::length, this::tick);
+
+        map.put("EURUSD", 11L);
+        assertThat(map.get(new StringBuilder("EURUSD"))).isEqualTo(11L);
+        assertThat(map.remove("EURUSD")).isEqualTo(11L);
+
+        final long hash = RecordingSequenceMap.hash("EURUSD");
+        assertThat(readTrace()).containsExactly(
+            "MAP_PUT/" + hash + "/6/1", "MAP_GET/" + hash + "/6/2", "MAP_REMOVE/" + hash + "/6/3").inOrder();
+    }
+
+    @Test
+    void shouldHashByteBufferKeysConsistentlyWithCharSequenceKeys()
+    {
+        final RecordingSequenceMap<ByteBuffer> map = RecordingSequenceMap.forByteBufferKeys(
+            new ByteSequenceMap(16, 16, Long.MIN_VALUE), traceWriter);
+        final ByteBuffer key = ByteBuffer.wrap("xxEURUSD".getBytes(StandardCharsets.US_ASCII));
+        key.position(2);
+
+        map.put(key, 11L);
+
+        assertThat(RecordingSequenceMap.hash(key)).isEqualTo(RecordingSequenceMap.hash("EURUSD"));
+        assertThat(key.position()).isEqualTo(2);
+        assertThat(traceWriter.recordCount()).isEqualTo(1);
+    }
+
+    private List<String> readTrace()
+    {
+        try (TraceReader reader = TraceReader.open(tracePath))
+        {
+            reader.forEach((operation, key, keyLength, timestamp) ->
+                operations.add(operation + "/" + key + "/" + keyLength + "/" + timestamp));
+        }
+        return operations;
+    }
+
+    private long tick()
+    {
+        return ++nanoTime;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Aitu Software Limited.
+ *
+ * https://aitusoftware.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.aitusoftware.recall.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TraceWriterTest
+{
+    private final List<String> operations = new ArrayList<>();
+    private Path tracePath;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        tracePath = Files.createTempFile("recall", ".trace");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        Files.delete(tracePath);
+    }
+
+    @Test
+    void shouldReadRecordedOperations()
+    {
+        try (TraceWriter writer = TraceWriter.create(tracePath, 16))
+        {
+            writer.record(TraceOperation.STORE, 17L, 0, 100L);
+            writer.record(TraceOperation.MAP_GET, -3L, 12, 200L);
+            writer.record(TraceOperation.REMOVE, 17L, 0, 300L);
+        }
+
+        try (TraceReader reader = TraceReader.open(tracePath))
+        {
+            assertThat(reader.recordCount()).isEqualTo(3);
+            assertThat(reader.forEach(this::onOperation)).isEqualTo(3);
+        }
+
+        assertThat(operations).containsExactly("STORE/17/0/100", "MAP_GET/-3/12/200", "REMOVE/17/0/300").inOrder();
+    }
+
+    @Test
+    void shouldReadTraceWhileItIsBeingWritten()
+    {
+        try (TraceWriter writer = TraceWriter.create(tracePath, 16);
+            TraceReader reader = TraceReader.open(tracePath))
+        {
+            writer.record(TraceOperation.LOAD, 1L, 0, 100L);
+            assertThat(reader.recordCount()).isEqualTo(1);
+            writer.record(TraceOperation.LOAD, 2L, 0, 200L);
+            assertThat(reader.recordCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldReadNoMoreThanLimitWhileTraceIsBeingWritten()
+    {
+        try (TraceWriter writer = TraceWriter.create(tracePath, 16);
+            TraceReader reader = TraceReader.open(tracePath))
+        {
+            writer.record(TraceOperation.LOAD, 1L, 0, 100L);
+            final int recordCount = reader.recordCount();
+            writer.record(TraceOperation.LOAD, 2L, 0, 200L);
+
+            assertThat(reader.forEach(this::onOperation, recordCount)).isEqualTo(1);
+        }
+        assertThat(operations).containsExactly("LOAD/1/0/100");
+    }
+
+    @Test
+    void shouldCountOperationsThatDoNotFit()
+    {
+        try (TraceWriter writer = TraceWriter.create(tracePath, 2))
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                writer.record(TraceOperation.LOAD, i, 0, i);
+            }
+            assertThat(writer.recordCount()).isEqualTo(2);
+            assertThat(writer.droppedCount()).isEqualTo(3L);
+        }
+
+        try (TraceReader reader = TraceReader.open(tracePath))
+        {
+            reader.forEach(this::onOperation);
+        }
+        assertThat(operations).containsExactly("LOAD/0/0/0", "LOAD/1/0/1").inOrder();
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotATrace() throws IOException
+    {
+        Files.write(tracePath, new byte[128]);
+
+        assertThrows(IllegalArgumentException.class, () -> TraceReader.open(tracePath));
+    }
+
+    @Test
+    void shouldMapOperationCodes()
+    {
+        for (final TraceOperation operation : TraceOperation.values())
+        {
+            assertThat(TraceOperation.from(operation.code())).isEqualTo(operation);
+        }
+        assertThrows(IllegalArgumentException.class, () -> TraceOperation.from(0));
+        assertThrows(IllegalArgumentException.class, () -> TraceOperation.from(99));
+    }
+
+    private void onOperation(final TraceOperation operation, final long key, final int keyLength, final long timestamp)
+    {
+        operations.add(operation + "/" + key + "/" + keyLength + "/" + timestamp);
+    }
+}